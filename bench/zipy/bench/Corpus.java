@@ -0,0 +1,124 @@
+package zipy.bench;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * The generated inputs the benchmarks run over. Every corpus is built from a fixed seed, so two
+ * runs on different machines or commits archive exactly the same bytes.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+enum Corpus
+{
+	/** Thousands of files of a few hundred bytes, where per-entry overhead dominates. */
+	TINY_FILES("tiny-files"),
+	/** A few files of tens of megabytes, where raw throughput dominates. */
+	HUGE_FILES("huge-files"),
+	/** Log-like text that compresses well. */
+	TEXT("text"),
+	/** Random bytes that don't compress at all. */
+	RANDOM("random");
+
+	private static final String[] WORDS = { "archive", "entry", "block", "stream", "header", "offset",
+											 "INFO", "WARN", "DEBUG", "request", "served", "in", "ms" };
+
+	private final String name;
+
+	private Corpus(String name)
+	{
+		this.name = name;
+	}
+
+	String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * Writes the corpus into a new folder.
+	 * @param parent the folder the corpus folder is created in.
+	 * @param scale multiplies the amount of data, 1 for a full run.
+	 * @return the corpus folder.
+	 * @throws IOException when a file can't be written.
+	 */
+	File generate(File parent, double scale) throws IOException
+	{
+		File root = new File(parent, name);
+		root.mkdirs();
+		Random random = new Random(42 + ordinal());
+
+		switch (this)
+		{
+			case TINY_FILES:
+				int files = (int) Math.max(10, 5_000 * scale);
+				for (int i = 0; i < files; i++)
+				{
+					File folder = new File(root, "d" + (i % 50));
+					folder.mkdirs();
+					writeText(new File(folder, "f" + i + ".txt"), 100 + random.nextInt(900), random);
+				}
+				break;
+			case HUGE_FILES:
+				for (int i = 0; i < 3; i++)
+				{
+					long size = (long) Math.max(1 << 20, 64L * 1024 * 1024 * scale);
+					if (i == 0)
+						writeRandom(new File(root, "huge" + i + ".bin"), size, random);
+					else
+						writeText(new File(root, "huge" + i + ".log"), size, random);
+				}
+				break;
+			case TEXT:
+				for (int i = 0; i < 64; i++)
+					writeText(new File(root, "log" + i + ".txt"), (long) Math.max(16 * 1024, 1024 * 1024 * scale), random);
+				break;
+			case RANDOM:
+				for (int i = 0; i < 64; i++)
+					writeRandom(new File(root, "data" + i + ".bin"), (long) Math.max(16 * 1024, 1024 * 1024 * scale), random);
+				break;
+		}
+		return root;
+	}
+
+	private static void writeText(File file, long size, Random random) throws IOException
+	{
+		StringBuilder line = new StringBuilder();
+		try (OutputStream out = new FileOutputStream(file)) {
+			long written = 0;
+			while (written < size)
+			{
+				line.setLength(0);
+				line.append(1_700_000_000L + random.nextInt(1_000_000)).append(' ');
+				for (int i = 0; i < 8; i++)
+					line.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+				line.append(random.nextInt(1000)).append('\n');
+
+				byte[] bytes = line.toString().getBytes(StandardCharsets.US_ASCII);
+				int length = (int) Math.min(bytes.length, size - written);
+				out.write(bytes, 0, length);
+				written += length;
+			}
+		}
+	}
+
+	private static void writeRandom(File file, long size, Random random) throws IOException
+	{
+		byte[] buffer = new byte[64 * 1024];
+		try (OutputStream out = new FileOutputStream(file)) {
+			long written = 0;
+			while (written < size)
+			{
+				random.nextBytes(buffer);
+				int length = (int) Math.min(buffer.length, size - written);
+				out.write(buffer, 0, length);
+				written += length;
+			}
+		}
+	}
+}
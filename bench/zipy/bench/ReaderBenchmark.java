@@ -0,0 +1,375 @@
+package zipy.bench;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.apache.commons.compress.archivers.sevenz.SevenZArchiveEntry;
+import org.apache.commons.compress.archivers.sevenz.SevenZOutputFile;
+
+import zipy.ArchiveIndex;
+import zipy.ArchiveIndexCache;
+import zipy.IReader;
+import zipy.RarReader;
+import zipy.SevenZReader;
+import zipy.TarCompression;
+import zipy.TarReader;
+import zipy.Zipy;
+import zipy.ZipReader;
+
+/**
+ * Measures creation, listing and extraction of every reader over the generated {@link Corpus}
+ * inputs, and prints the throughput in MB/s of uncompressed data together with the bytes
+ * allocated per operation. Every operation is run a few times to warm up, then measured several
+ * times and the median is reported.
+ * <p>
+ * Build and run it from the project folder with nothing but the JDK:
+ * <pre>
+ * javac -encoding UTF-8 -d out/bench -cp "lib/*" $(find src bench -name "*.java")
+ * java -cp "out/bench:lib/*" zipy.bench.ReaderBenchmark --csv results.csv
+ * </pre>
+ * Options:
+ * <ul>
+ * <li>{@code --scale <factor>} shrinks or grows the corpora, {@code 0.1} makes a quick run.</li>
+ * <li>{@code --warmup <n>} and {@code --iterations <n>} set the runs per operation, 2 and 5 by default.</li>
+ * <li>{@code --work <folder>} is where corpora, archives and output go, a temporary folder by default.</li>
+ * <li>{@code --rar <file>} adds listing and extraction of an existing .rar file, as RAR can't be created.</li>
+ * <li>{@code --csv <file>} writes the results so a later run can compare against them.</li>
+ * <li>{@code --baseline <file>} compares against an earlier CSV, and exits with 1 when any operation
+ * 	   got more than 10% slower.</li>
+ * </ul>
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+public final class ReaderBenchmark
+{
+	private static final double REGRESSION_THRESHOLD = 0.9;
+	private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+	private final int warmup;
+	private final int iterations;
+	private final File work;
+	private final List<Result> results = new ArrayList<>();
+
+	private ReaderBenchmark(int warmup, int iterations, File work)
+	{
+		this.warmup = warmup;
+		this.iterations = iterations;
+		this.work = work;
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		Map<String, String> options = new HashMap<>();
+		for (int i = 0; i + 1 < args.length; i += 2)
+		{
+			if (!args[i].startsWith("--"))
+				throw new IllegalArgumentException("Unknown argument: " + args[i]);
+			options.put(args[i].substring(2), args[i + 1]);
+		}
+
+		File work = options.containsKey("work") ? new File(options.get("work"))
+												: Files.createTempDirectory("zipy-bench").toFile();
+		double scale = Double.parseDouble(options.getOrDefault("scale", "1"));
+		ReaderBenchmark benchmark = new ReaderBenchmark(Integer.parseInt(options.getOrDefault("warmup", "2")),
+														Integer.parseInt(options.getOrDefault("iterations", "5")), work);
+
+		System.out.printf(Locale.ROOT, "%-11s %-5s %-18s %10s %14s  %s%n", "corpus", "type", "operation", "MB/s",
+						  Allocation.isTotal() ? "alloc MB/op" : "alloc MB/op*", "status");
+		try {
+			for (Corpus corpus : Corpus.values())
+				benchmark.run(corpus, corpus.generate(work, scale));
+			if (options.containsKey("rar"))
+				benchmark.runRar(new File(options.get("rar")));
+		} finally {
+			if (!options.containsKey("work"))
+				Zipy.deleteDirectory(work);
+		}
+
+		if (!Allocation.isTotal())
+			System.out.println("* allocations of the calling thread only, worker threads need JDK 21 or later.");
+		if (options.containsKey("csv"))
+			benchmark.writeCsv(new File(options.get("csv")));
+		if (options.containsKey("baseline") && !benchmark.compare(new File(options.get("baseline"))))
+			System.exit(1);
+	}
+
+	private void run(Corpus corpus, File input) throws Exception
+	{
+		long bytes = sizeOf(input);
+		String name = corpus.getName();
+
+		File zip = new File(work, name + ".zip");
+		measure(name, "zip", "create", bytes, () -> ZipReader.makeArchiveParallel(input, zip, THREADS));
+		measureReader(name, "zip", bytes, output -> new ZipReader(zip, output), zip);
+		measure(name, "zip", "extract-parallel", bytes, () -> {
+			File output = output();
+			return new ZipReader(zip, output).extractFilesParallel(THREADS);
+		});
+
+		for (TarCompression compression : new TarCompression[] { TarCompression.NONE, TarCompression.GZIP })
+		{
+			String type = compression == TarCompression.NONE ? "tar" : "tgz";
+			File tar = new File(work, name + (compression == TarCompression.NONE ? ".tar" : ".tar.gz"));
+			measure(name, type, "create", bytes, () -> TarReader.makeArchive(input, tar, compression, THREADS));
+			measureReader(name, type, bytes, output -> new TarReader(tar, output), tar);
+		}
+
+		File sevenZip = new File(work, name + ".7z");
+		try {
+			measure(name, "7z", "create", bytes, () -> {
+				sevenZip.delete();
+				SevenZReader.makeArchive(input, sevenZip, 5);
+			});
+		} catch (LinkageError | RuntimeException e) {
+			// The native 7-Zip library isn't there for this platform, build the input with Commons.
+			results.add(new Result(name, "7z", "create", 0, 0, "skipped, no native 7-Zip"));
+			print(results.get(results.size() - 1));
+			writeSevenZip(input, sevenZip);
+		}
+		measureReader(name, "7z", bytes, output -> new SevenZReader(sevenZip, output), sevenZip);
+		measure(name, "7z", "extract-parallel", bytes, () -> {
+			File output = output();
+			return new SevenZReader(sevenZip, output).extractFilesParallel(THREADS);
+		});
+	}
+
+	private void runRar(File rar) throws Exception
+	{
+		long bytes = 0;
+		for (ArchiveIndex.Entry entry : new RarReader(rar, work).getIndex().getEntries())
+			bytes += Math.max(0, entry.getSize());
+		measureReader("rar", "rar", bytes, output -> new RarReader(rar, output), rar);
+	}
+
+	/**
+	 * Measures a cold listing, with every index cache emptied first, and a full extraction.
+	 */
+	private void measureReader(String corpus, String type, long bytes, ReaderFactory factory, File archive) throws Exception
+	{
+		measure(corpus, type, "list", bytes, () -> {
+			ArchiveIndexCache.shared().clear();
+			new File(archive.getPath() + TarReader.INDEX_SUFFIX).delete();
+			return !factory.create(work).listEntries().isEmpty();
+		});
+		measure(corpus, type, "extract", bytes, () -> factory.create(output()).extractFiles());
+	}
+
+	private void measure(String corpus, String type, String operation, long bytes, Operation task) throws Exception
+	{
+		measure(corpus, type, operation, bytes, () -> {
+			task.run();
+			return true;
+		});
+	}
+
+	private void measure(String corpus, String type, String operation, long bytes, Check task) throws Exception
+	{
+		long[] nanos = new long[iterations];
+		long[] allocated = new long[iterations];
+		String status = "ok";
+
+		for (int i = 0; i < warmup + iterations && status.equals("ok"); i++)
+		{
+			Zipy.deleteDirectory(new File(work, "out"));
+			System.gc();
+
+			long allocatedBefore = Allocation.bytes();
+			long start = System.nanoTime();
+			boolean successful;
+			try {
+				successful = task.run();
+			} catch (IOException e) {
+				successful = false;
+			}
+			long elapsed = System.nanoTime() - start;
+			long allocatedAfter = Allocation.bytes();
+
+			if (!successful)
+				status = "FAILED";
+			else if (i >= warmup)
+			{
+				nanos[i - warmup] = elapsed;
+				allocated[i - warmup] = allocatedAfter - allocatedBefore;
+			}
+		}
+		Zipy.deleteDirectory(new File(work, "out"));
+
+		Result result = status.equals("ok")
+				? new Result(corpus, type, operation, bytes / 1e6 / (median(nanos) / 1e9), median(allocated) / 1e6, status)
+				: new Result(corpus, type, operation, 0, 0, status);
+		results.add(result);
+		print(result);
+	}
+
+	private File output()
+	{
+		return new File(work, "out");
+	}
+
+	private static void print(Result result)
+	{
+		System.out.printf(Locale.ROOT, "%-11s %-5s %-18s %10.1f %14.2f  %s%n", result.corpus, result.type,
+						  result.operation, result.mbPerSecond, result.allocatedMb, result.status);
+	}
+
+	private static long median(long[] values)
+	{
+		long[] sorted = values.clone();
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2];
+	}
+
+	private static long sizeOf(File folder) throws IOException
+	{
+		try (Stream<Path> paths = Files.walk(folder.toPath())) {
+			return paths.filter(Files::isRegularFile).mapToLong(path -> path.toFile().length()).sum();
+		}
+	}
+
+	private static void writeSevenZip(File input, File archive) throws IOException
+	{
+		try (SevenZOutputFile out = new SevenZOutputFile(archive);
+				Stream<Path> paths = Files.walk(input.toPath())) {
+			for (Path path : (Iterable<Path>) paths::iterator)
+			{
+				if (path.equals(input.toPath()))
+					continue;
+				SevenZArchiveEntry entry = out.createArchiveEntry(path, input.toPath().relativize(path).toString().replace('\\', '/'));
+				out.putArchiveEntry(entry);
+				if (Files.isRegularFile(path))
+					out.write(path);
+				out.closeArchiveEntry();
+			}
+		}
+	}
+
+	private void writeCsv(File file) throws IOException
+	{
+		try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+			out.println("corpus,type,operation,mb_per_second,allocated_mb_per_op,status");
+			for (Result result : results)
+				out.printf(Locale.ROOT, "%s,%s,%s,%.2f,%.3f,%s%n", result.corpus, result.type, result.operation,
+						   result.mbPerSecond, result.allocatedMb, result.status);
+		}
+	}
+
+	/**
+	 * @return {@code false} if any operation got slower than the threshold allows.
+	 */
+	private boolean compare(File baseline) throws IOException
+	{
+		Map<String, Double> before = new HashMap<>();
+		try (BufferedReader in = new BufferedReader(new FileReader(baseline))) {
+			in.readLine();
+			String line;
+			while ((line = in.readLine()) != null)
+			{
+				String[] fields = line.split(",");
+				before.put(fields[0] + "," + fields[1] + "," + fields[2], Double.parseDouble(fields[3]));
+			}
+		}
+
+		boolean passed = true;
+		for (Result result : results)
+		{
+			Double previous = before.get(result.corpus + "," + result.type + "," + result.operation);
+			if (previous == null || previous <= 0)
+				continue;
+			if (result.mbPerSecond < previous * REGRESSION_THRESHOLD)
+			{
+				System.out.printf(Locale.ROOT, "REGRESSION %s %s %s: %.1f MB/s, was %.1f MB/s%n", result.corpus,
+								  result.type, result.operation, result.mbPerSecond, previous);
+				passed = false;
+			}
+		}
+		return passed;
+	}
+
+	private interface Operation
+	{
+		void run() throws Exception;
+	}
+
+	private interface Check
+	{
+		boolean run() throws Exception;
+	}
+
+	private interface ReaderFactory
+	{
+		IReader create(File output) throws IOException;
+	}
+
+	private static final class Result
+	{
+		final String corpus;
+		final String type;
+		final String operation;
+		final double mbPerSecond;
+		final double allocatedMb;
+		final String status;
+
+		Result(String corpus, String type, String operation, double mbPerSecond, double allocatedMb, String status)
+		{
+			this.corpus = corpus;
+			this.type = type;
+			this.operation = operation;
+			this.mbPerSecond = mbPerSecond;
+			this.allocatedMb = allocatedMb;
+			this.status = status;
+		}
+	}
+
+	/**
+	 * Reads the bytes allocated by the JVM. JDK 21 counts every thread, older ones only the
+	 * calling thread, which misses what parallel workers allocate.
+	 */
+	private static final class Allocation
+	{
+		private static final com.sun.management.ThreadMXBean THREADS =
+				(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		private static final Method TOTAL = totalMethod();
+
+		private static Method totalMethod()
+		{
+			try {
+				return com.sun.management.ThreadMXBean.class.getMethod("getTotalThreadAllocatedBytes");
+			} catch (NoSuchMethodException e) {
+				return null;
+			}
+		}
+
+		static boolean isTotal()
+		{
+			return TOTAL != null;
+		}
+
+		static long bytes()
+		{
+			if (TOTAL != null)
+			{
+				try {
+					return (Long) TOTAL.invoke(THREADS);
+				} catch (ReflectiveOperationException e) {
+					// Fall through to the calling thread.
+				}
+			}
+			return THREADS.getCurrentThreadAllocatedBytes();
+		}
+	}
+}
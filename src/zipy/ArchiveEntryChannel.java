@@ -0,0 +1,154 @@
+package zipy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * A read-only channel over one entry of an archive. The entry is only opened on the first read.
+ * Moving forward skips over the data, moving backwards opens the entry again, so reading from
+ * start to end is the only cheap way through it.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+final class ArchiveEntryChannel implements SeekableByteChannel
+{
+	private final IReader reader;
+	private final String name;
+	private final long size;
+
+	private InputStream in;
+	private long streamPosition;
+	private long position;
+	private boolean open = true;
+
+	/**
+	 * @param reader the reader of the archive.
+	 * @param name the full name of the entry.
+	 * @param size the uncompressed size of the entry.
+	 */
+	ArchiveEntryChannel(IReader reader, String name, long size)
+	{
+		this.reader = reader;
+		this.name = name;
+		this.size = size;
+	}
+
+	@Override
+	public int read(ByteBuffer dst) throws IOException
+	{
+		ensureOpen();
+		if (size >= 0 && position >= size)
+			return -1;
+		if (!dst.hasRemaining())
+			return 0;
+
+		if (in == null || streamPosition > position)
+		{
+			if (in != null)
+				in.close();
+			in = reader.openEntry(name);
+			streamPosition = 0;
+		}
+
+		while (streamPosition < position)
+		{
+			long skipped = in.skip(position - streamPosition);
+			if (skipped <= 0)
+			{
+				if (in.read() == -1)
+					return -1;
+				skipped = 1;
+			}
+			streamPosition += skipped;
+		}
+
+		int count;
+		if (dst.hasArray())
+		{
+			count = in.read(dst.array(), dst.arrayOffset() + dst.position(), dst.remaining());
+			if (count > 0)
+				dst.position(dst.position() + count);
+		}
+		else
+		{
+			byte[] buffer = BufferPool.acquire();
+			try {
+				count = in.read(buffer, 0, Math.min(dst.remaining(), buffer.length));
+				if (count > 0)
+					dst.put(buffer, 0, count);
+			} finally {
+				BufferPool.release(buffer);
+			}
+		}
+
+		if (count == -1)
+			return -1;
+		position += count;
+		streamPosition += count;
+		return count;
+	}
+
+	@Override
+	public int write(ByteBuffer src)
+	{
+		throw new NonWritableChannelException();
+	}
+
+	@Override
+	public long position() throws IOException
+	{
+		ensureOpen();
+		return position;
+	}
+
+	@Override
+	public SeekableByteChannel position(long newPosition) throws IOException
+	{
+		ensureOpen();
+		if (newPosition < 0)
+			throw new IllegalArgumentException("Negative position.");
+		position = newPosition;
+		return this;
+	}
+
+	@Override
+	public long size() throws IOException
+	{
+		ensureOpen();
+		return Math.max(0, size);
+	}
+
+	@Override
+	public SeekableByteChannel truncate(long size)
+	{
+		throw new NonWritableChannelException();
+	}
+
+	@Override
+	public boolean isOpen()
+	{
+		return open;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		if (!open)
+			return;
+
+		open = false;
+		if (in != null)
+			in.close();
+	}
+
+	private void ensureOpen() throws IOException
+	{
+		if (!open)
+			throw new ClosedChannelException();
+	}
+}
@@ -0,0 +1,43 @@
+package zipy;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Java Flight Recorder event for one large entry, so the time spent in a single big file shows
+ * up next to the inflater frames it would otherwise hide behind. Only entries of at least
+ * {@link ZipyMetrics#LARGE_ENTRY_SIZE} bytes, or of an unknown size, are recorded.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+@Name("zipy.ArchiveEntry")
+@Label("Archive Entry")
+@Category("Zipy")
+@Description("A large entry extracted or added by Zipy")
+final class ArchiveEntryEvent extends Event
+{
+	@Label("Reader")
+	@Description("The reader class that handled the archive")
+	String reader;
+
+	@Label("Operation")
+	@Description("extract or create")
+	String operation;
+
+	@Label("Entry")
+	String name;
+
+	@Label("Compressed Bytes")
+	@Description("-1 when the format doesn't store it per entry")
+	@DataAmount
+	long compressedBytes;
+
+	@Label("Uncompressed Bytes")
+	@DataAmount
+	long uncompressedBytes;
+}
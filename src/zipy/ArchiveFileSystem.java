@@ -0,0 +1,335 @@
+package zipy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedFileSystemException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.UserPrincipalLookupService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A read-only view of an archive as a {@link FileSystem}. The directory tree is built once from
+ * the {@link ArchiveIndex} of the archive, so listing and reading attributes never touch entry
+ * data. An entry is only decompressed when it is opened, through {@link IReader#openEntry(String)}.
+ * <p>
+ * Directories that only exist as part of entry names are shown as directories too.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+final class ArchiveFileSystem extends FileSystem
+{
+	private final ArchiveFileSystemProvider provider;
+	private final Path archive;
+	private final IReader reader;
+	private final Map<String, Node> nodes = new HashMap<>();
+	private volatile boolean open = true;
+
+	ArchiveFileSystem(ArchiveFileSystemProvider provider, Path archive, IReader reader) throws IOException
+	{
+		this.provider = provider;
+		this.archive = archive;
+		this.reader = reader;
+
+		nodes.put("/", new Node(null));
+		for (ArchiveIndex.Entry entry : reader.getIndex().getEntries())
+		{
+			String path = toPath(entry.getName());
+			if (path.equals("/"))
+				continue;
+
+			// A later entry with the same name replaces the earlier one, as it does when extracting.
+			node(path).entry = entry;
+		}
+	}
+
+	/**
+	 * Turns an entry name into an absolute path, whatever separator and prefix the archive uses.
+	 */
+	private static String toPath(String name)
+	{
+		String path = name.replace('\\', '/');
+		while (path.startsWith("./"))
+			path = path.substring(2);
+		return new ArchivePath(null, "/" + path).normalize().toString();
+	}
+
+	private Node node(String path)
+	{
+		Node node = nodes.get(path);
+		if (node == null)
+		{
+			node = new Node(null);
+			nodes.put(path, node);
+
+			int slash = path.lastIndexOf('/');
+			node(slash == 0 ? "/" : path.substring(0, slash)).children.add(path);
+		}
+		return node;
+	}
+
+	Path getArchive()
+	{
+		return archive;
+	}
+
+	private Node lookup(ArchivePath path) throws IOException
+	{
+		ensureOpen();
+		Node node = nodes.get(path.toAbsolutePath().normalize().toString());
+		if (node == null)
+			throw new NoSuchFileException(path.toString());
+		return node;
+	}
+
+	BasicFileAttributes getAttributes(ArchivePath path) throws IOException
+	{
+		return new Attributes(lookup(path));
+	}
+
+	InputStream newInputStream(ArchivePath path) throws IOException
+	{
+		Node node = lookup(path);
+		if (node.isDirectory())
+			throw new IOException(path + " is a directory.");
+		return reader.openEntry(node.entry.getName());
+	}
+
+	ArchiveEntryChannel newByteChannel(ArchivePath path) throws IOException
+	{
+		Node node = lookup(path);
+		if (node.isDirectory())
+			throw new IOException(path + " is a directory.");
+		return new ArchiveEntryChannel(reader, node.entry.getName(), node.entry.getSize());
+	}
+
+	DirectoryStream<Path> newDirectoryStream(ArchivePath dir, DirectoryStream.Filter<? super Path> filter) throws IOException
+	{
+		Node node = lookup(dir);
+		if (!node.isDirectory())
+			throw new NotDirectoryException(dir.toString());
+
+		List<Path> children = new ArrayList<>();
+		for (String child : node.children)
+		{
+			Path path = dir.resolve(child.substring(child.lastIndexOf('/') + 1));
+			if (filter == null || filter.accept(path))
+				children.add(path);
+		}
+
+		return new DirectoryStream<Path>() {
+			private boolean iterated;
+
+			@Override
+			public Iterator<Path> iterator()
+			{
+				if (iterated)
+					throw new IllegalStateException("The directory stream can only be iterated once.");
+				iterated = true;
+				return Collections.unmodifiableList(children).iterator();
+			}
+
+			@Override
+			public void close() {}
+		};
+	}
+
+	private void ensureOpen()
+	{
+		if (!open)
+			throw new ClosedFileSystemException();
+	}
+
+	@Override
+	public ArchiveFileSystemProvider provider()
+	{
+		return provider;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		if (!open)
+			return;
+
+		open = false;
+		provider.remove(this);
+	}
+
+	@Override
+	public boolean isOpen()
+	{
+		return open;
+	}
+
+	@Override
+	public boolean isReadOnly()
+	{
+		return true;
+	}
+
+	@Override
+	public String getSeparator()
+	{
+		return "/";
+	}
+
+	@Override
+	public Iterable<Path> getRootDirectories()
+	{
+		return Collections.singletonList(new ArchivePath(this, "/"));
+	}
+
+	@Override
+	public Iterable<FileStore> getFileStores()
+	{
+		return Collections.emptyList();
+	}
+
+	@Override
+	public Set<String> supportedFileAttributeViews()
+	{
+		return Collections.singleton("basic");
+	}
+
+	@Override
+	public Path getPath(String first, String... more)
+	{
+		StringBuilder path = new StringBuilder(first);
+		for (String name : more)
+		{
+			if (name.isEmpty())
+				continue;
+			if (path.length() > 0)
+				path.append('/');
+			path.append(name);
+		}
+		return new ArchivePath(this, path.toString());
+	}
+
+	/**
+	 * Glob and regex patterns are matched against the whole path the same way as on the
+	 * default file system.
+	 */
+	@Override
+	public PathMatcher getPathMatcher(String syntaxAndPattern)
+	{
+		PathMatcher matcher = FileSystems.getDefault().getPathMatcher(syntaxAndPattern);
+		return path -> matcher.matches(FileSystems.getDefault().getPath(path.toString()));
+	}
+
+	@Override
+	public UserPrincipalLookupService getUserPrincipalLookupService()
+	{
+		throw new UnsupportedOperationException("Archives have no user principals.");
+	}
+
+	@Override
+	public WatchService newWatchService()
+	{
+		throw new UnsupportedOperationException("Archives can't be watched.");
+	}
+
+	@Override
+	public String toString()
+	{
+		return archive.toString();
+	}
+
+	private static final class Node
+	{
+		private ArchiveIndex.Entry entry;
+		private final Set<String> children = new LinkedHashSet<>();
+
+		Node(ArchiveIndex.Entry entry)
+		{
+			this.entry = entry;
+		}
+
+		boolean isDirectory()
+		{
+			return entry == null || entry.isDirectory() || !children.isEmpty();
+		}
+	}
+
+	private static final class Attributes implements BasicFileAttributes
+	{
+		private final Node node;
+
+		Attributes(Node node)
+		{
+			this.node = node;
+		}
+
+		@Override
+		public FileTime lastModifiedTime()
+		{
+			return FileTime.fromMillis(node.entry != null ? Math.max(0, node.entry.getLastModified()) : 0);
+		}
+
+		@Override
+		public FileTime lastAccessTime()
+		{
+			return lastModifiedTime();
+		}
+
+		@Override
+		public FileTime creationTime()
+		{
+			return lastModifiedTime();
+		}
+
+		@Override
+		public boolean isRegularFile()
+		{
+			return !node.isDirectory();
+		}
+
+		@Override
+		public boolean isDirectory()
+		{
+			return node.isDirectory();
+		}
+
+		@Override
+		public boolean isSymbolicLink()
+		{
+			return false;
+		}
+
+		@Override
+		public boolean isOther()
+		{
+			return false;
+		}
+
+		@Override
+		public long size()
+		{
+			return node.isDirectory() ? 0 : Math.max(0, node.entry.getSize());
+		}
+
+		@Override
+		public Object fileKey()
+		{
+			return null;
+		}
+	}
+}
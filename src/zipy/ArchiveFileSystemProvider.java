@@ -0,0 +1,358 @@
+package zipy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.AccessMode;
+import java.nio.file.CopyOption;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.LinkOption;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.ReadOnlyFileSystemException;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.FileAttributeView;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.spi.FileSystemProvider;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A read-only {@link FileSystemProvider} that opens any archive Zipy can read as a
+ * {@link FileSystem}, so its entries can be used with {@code Files.newInputStream},
+ * {@code Files.walk}, {@code Files.size} and the like without extracting the archive first.
+ * The directory tree comes from a single scan of the archive headers, and entries are only
+ * decompressed when they are opened.
+ * <p>
+ * File systems are opened with {@link Zipy#mount(Path)}, or through a URI such as
+ * {@code zipy:file:///data/logs.tar} where the part after {@code zipy:} is the URI of the
+ * archive. Paths inside it are written as {@code zipy:file:///data/logs.tar!/logs/today.txt}.
+ * Those URIs only resolve through {@link java.nio.file.Paths#get(URI)} for file systems of the
+ * installed provider, which is the one {@link #installed()} returns.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+public class ArchiveFileSystemProvider extends FileSystemProvider
+{
+	public static final String SCHEME = "zipy";
+
+	private static volatile ArchiveFileSystemProvider installed;
+
+	private final Map<Path, ArchiveFileSystem> fileSystems = new HashMap<>();
+
+	/**
+	 * @return the provider {@link java.nio.file.FileSystems} knows of through
+	 * 		   {@code META-INF/services}, or one shared instance if it isn't installed.
+	 */
+	public static ArchiveFileSystemProvider installed()
+	{
+		ArchiveFileSystemProvider provider = installed;
+		if (provider == null)
+		{
+			synchronized (ArchiveFileSystemProvider.class)
+			{
+				if ((provider = installed) == null)
+				{
+					for (FileSystemProvider candidate : FileSystemProvider.installedProviders())
+					{
+						if (candidate instanceof ArchiveFileSystemProvider)
+							provider = (ArchiveFileSystemProvider) candidate;
+					}
+					installed = provider = provider != null ? provider : new ArchiveFileSystemProvider();
+				}
+			}
+		}
+		return provider;
+	}
+
+	@Override
+	public String getScheme()
+	{
+		return SCHEME;
+	}
+
+	@Override
+	public FileSystem newFileSystem(URI uri, Map<String, ?> env) throws IOException
+	{
+		Path archive = archiveOf(uri);
+
+		synchronized (fileSystems)
+		{
+			if (fileSystems.containsKey(archive))
+				throw new FileSystemAlreadyExistsException(archive.toString());
+
+			ArchiveFileSystem fileSystem = create(archive);
+			fileSystems.put(archive, fileSystem);
+			return fileSystem;
+		}
+	}
+
+	/**
+	 * Opens the archive as a file system that can be opened several times. The URIs of its paths
+	 * resolve to the first one of them still open.
+	 */
+	@Override
+	public FileSystem newFileSystem(Path path, Map<String, ?> env) throws IOException
+	{
+		Path archive = path.toAbsolutePath().normalize();
+		ArchiveFileSystem fileSystem = create(archive);
+
+		synchronized (fileSystems)
+		{
+			fileSystems.putIfAbsent(archive, fileSystem);
+		}
+		return fileSystem;
+	}
+
+	@Override
+	public FileSystem getFileSystem(URI uri)
+	{
+		synchronized (fileSystems)
+		{
+			ArchiveFileSystem fileSystem = fileSystems.get(archiveOf(uri));
+			if (fileSystem == null)
+				throw new FileSystemNotFoundException(uri.toString());
+			return fileSystem;
+		}
+	}
+
+	@Override
+	public Path getPath(URI uri)
+	{
+		String spec = uri.getRawSchemeSpecificPart();
+		int separator = spec.indexOf("!/");
+		String entry = "/";
+
+		if (separator != -1)
+		{
+			try {
+				entry = new URI(spec.substring(separator + 1)).getPath();
+			} catch (URISyntaxException e) {
+				throw new IllegalArgumentException(e);
+			}
+		}
+		return getFileSystem(uri).getPath(entry);
+	}
+
+	private Path archiveOf(URI uri)
+	{
+		if (!SCHEME.equalsIgnoreCase(uri.getScheme()))
+			throw new IllegalArgumentException("Not a " + SCHEME + " URI: " + uri);
+
+		String spec = uri.getRawSchemeSpecificPart();
+		int separator = spec.indexOf("!/");
+		if (separator != -1)
+			spec = spec.substring(0, separator);
+		return Paths.get(URI.create(spec)).toAbsolutePath().normalize();
+	}
+
+	private ArchiveFileSystem create(Path archive) throws IOException
+	{
+		// Nothing is ever extracted, the output folder is never used.
+		IReader reader = Zipy.readerFor(archive.toFile(), archive.toFile().getParentFile());
+		if (reader == null)
+			throw new IOException("Not an archive Zipy can read: " + archive);
+		return new ArchiveFileSystem(this, archive, reader);
+	}
+
+	void remove(ArchiveFileSystem fileSystem)
+	{
+		synchronized (fileSystems)
+		{
+			fileSystems.values().remove(fileSystem);
+		}
+	}
+
+	@Override
+	public InputStream newInputStream(Path path, OpenOption... options) throws IOException
+	{
+		checkReadOnly(Arrays.asList(options));
+		ArchivePath archivePath = ArchivePath.of(path);
+		return archivePath.getFileSystem().newInputStream(archivePath);
+	}
+
+	@Override
+	public SeekableByteChannel newByteChannel(Path path, Set<? extends OpenOption> options, FileAttribute<?>... attrs) throws IOException
+	{
+		checkReadOnly(options);
+		ArchivePath archivePath = ArchivePath.of(path);
+		return archivePath.getFileSystem().newByteChannel(archivePath);
+	}
+
+	private static void checkReadOnly(Iterable<? extends OpenOption> options)
+	{
+		for (OpenOption option : options)
+		{
+			if (option != StandardOpenOption.READ && option != LinkOption.NOFOLLOW_LINKS)
+				throw new ReadOnlyFileSystemException();
+		}
+	}
+
+	@Override
+	public DirectoryStream<Path> newDirectoryStream(Path dir, DirectoryStream.Filter<? super Path> filter) throws IOException
+	{
+		ArchivePath archivePath = ArchivePath.of(dir);
+		return archivePath.getFileSystem().newDirectoryStream(archivePath, filter);
+	}
+
+	@Override
+	public void createDirectory(Path dir, FileAttribute<?>... attrs)
+	{
+		throw new ReadOnlyFileSystemException();
+	}
+
+	@Override
+	public void delete(Path path)
+	{
+		throw new ReadOnlyFileSystemException();
+	}
+
+	@Override
+	public void copy(Path source, Path target, CopyOption... options)
+	{
+		throw new ReadOnlyFileSystemException();
+	}
+
+	@Override
+	public void move(Path source, Path target, CopyOption... options)
+	{
+		throw new ReadOnlyFileSystemException();
+	}
+
+	@Override
+	public boolean isSameFile(Path path, Path path2) throws IOException
+	{
+		if (path.equals(path2))
+			return true;
+		if (!(path instanceof ArchivePath) || !(path2 instanceof ArchivePath)
+				|| path.getFileSystem() != path2.getFileSystem())
+			return false;
+		return path.toRealPath().equals(path2.toRealPath());
+	}
+
+	@Override
+	public boolean isHidden(Path path)
+	{
+		return false;
+	}
+
+	@Override
+	public FileStore getFileStore(Path path)
+	{
+		throw new UnsupportedOperationException("Archives have no file store.");
+	}
+
+	@Override
+	public void checkAccess(Path path, AccessMode... modes) throws IOException
+	{
+		ArchivePath archivePath = ArchivePath.of(path);
+		archivePath.getFileSystem().getAttributes(archivePath);
+
+		for (AccessMode mode : modes)
+		{
+			if (mode == AccessMode.WRITE)
+				throw new AccessDeniedException(path.toString(), null, "The archive is read-only.");
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <V extends FileAttributeView> V getFileAttributeView(Path path, Class<V> type, LinkOption... options)
+	{
+		ArchivePath archivePath = ArchivePath.of(path);
+		if (type != BasicFileAttributeView.class)
+			return null;
+
+		return (V) new BasicFileAttributeView() {
+			@Override
+			public String name()
+			{
+				return "basic";
+			}
+
+			@Override
+			public BasicFileAttributes readAttributes() throws IOException
+			{
+				return archivePath.getFileSystem().getAttributes(archivePath);
+			}
+
+			@Override
+			public void setTimes(FileTime lastModifiedTime, FileTime lastAccessTime, FileTime createTime)
+			{
+				throw new ReadOnlyFileSystemException();
+			}
+		};
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <A extends BasicFileAttributes> A readAttributes(Path path, Class<A> type, LinkOption... options) throws IOException
+	{
+		if (type != BasicFileAttributes.class)
+			throw new UnsupportedOperationException("Only basic attributes are supported.");
+
+		ArchivePath archivePath = ArchivePath.of(path);
+		return (A) archivePath.getFileSystem().getAttributes(archivePath);
+	}
+
+	@Override
+	public Map<String, Object> readAttributes(Path path, String attributes, LinkOption... options) throws IOException
+	{
+		String names = attributes;
+		int colon = attributes.indexOf(':');
+		if (colon != -1)
+		{
+			if (!attributes.substring(0, colon).equals("basic"))
+				throw new UnsupportedOperationException("Only basic attributes are supported.");
+			names = attributes.substring(colon + 1);
+		}
+
+		BasicFileAttributes basic = readAttributes(path, BasicFileAttributes.class, options);
+		Map<String, Object> all = new LinkedHashMap<>();
+		all.put("lastModifiedTime", basic.lastModifiedTime());
+		all.put("lastAccessTime", basic.lastAccessTime());
+		all.put("creationTime", basic.creationTime());
+		all.put("size", basic.size());
+		all.put("isRegularFile", basic.isRegularFile());
+		all.put("isDirectory", basic.isDirectory());
+		all.put("isSymbolicLink", basic.isSymbolicLink());
+		all.put("isOther", basic.isOther());
+		all.put("fileKey", basic.fileKey());
+
+		if (names.equals("*"))
+			return all;
+
+		Map<String, Object> result = new LinkedHashMap<>();
+		for (String name : names.split(","))
+		{
+			if (name.equals("*"))
+				result.putAll(all);
+			else if (all.containsKey(name))
+				result.put(name, all.get(name));
+			else
+				throw new IllegalArgumentException("Unknown attribute: " + name);
+		}
+		return result;
+	}
+
+	@Override
+	public void setAttribute(Path path, String attribute, Object value, LinkOption... options)
+	{
+		throw new ReadOnlyFileSystemException();
+	}
+}
@@ -0,0 +1,326 @@
+package zipy;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An in-memory listing of every entry in an archive, built with a single pass over its headers.
+ * Readers build one through {@link IReader#getIndex()}, and the index is kept in the
+ * {@link ArchiveIndexCache} so the archive doesn't have to be read again until it changes.
+ * <p>
+ * Not every format stores every value, anything that is unknown is {@code -1}.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+public final class ArchiveIndex
+{
+	private static final int SIDECAR_MAGIC = 0x5a495832;	// "ZIX2"
+	/** The magic, archive length and date, and entry count in front of the entries. */
+	private static final int SIDECAR_HEADER_SIZE = 24;
+	/** An entry with three null strings: the lengths, five longs, the mode and two booleans. */
+	private static final int MIN_RECORD_SIZE = 3 * 4 + 5 * 8 + 4 + 2;
+
+	private final List<Entry> entries;
+	private final Map<String, Entry> byName;
+
+	public ArchiveIndex(List<Entry> entries)
+	{
+		this.entries = Collections.unmodifiableList(new ArrayList<>(entries));
+		this.byName = new HashMap<>();
+		for (Entry entry : entries)
+			byName.put(entry.getName(), entry);
+	}
+
+	/**
+	 * @return every entry, in the order they are stored in the archive.
+	 */
+	public List<Entry> getEntries()
+	{
+		return entries;
+	}
+
+	/**
+	 * @return the names of every entry, including directories.
+	 */
+	public List<String> getNames()
+	{
+		List<String> names = new ArrayList<>(entries.size());
+		for (Entry entry : entries)
+			names.add(entry.getName());
+		return names;
+	}
+
+	/**
+	 * When several entries have the same name the last one is returned, as it is the one left
+	 * once the archive is extracted, such as a file added to a tar again with {@code tar rf}.
+	 * @param name the full name of the entry inside the archive.
+	 * @return the last entry with that name, or {@code null} if there is none.
+	 */
+	public Entry find(String name)
+	{
+		return byName.get(name);
+	}
+
+	/**
+	 * @return the amount of entries in the archive.
+	 */
+	public int size()
+	{
+		return entries.size();
+	}
+
+	/**
+	 * Saves the index to a binary sidecar file so it can be loaded again without reading the
+	 * archive. The size and modification time of the archive are stored with it, so a sidecar
+	 * that no longer matches its archive is ignored by {@link #load(File, File)}. The sidecar is
+	 * written to a temporary file first and moved in place, so readers never see half of it.
+	 * @param sidecar the file to write the index to.
+	 * @param archive the archive the index was built from.
+	 * @throws IOException if the sidecar can't be written.
+	 */
+	public void save(File sidecar, File archive) throws IOException
+	{
+		File temp = new File(sidecar.getPath() + ".tmp");
+		
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp.toPath())))) {
+			out.writeInt(SIDECAR_MAGIC);
+			out.writeLong(archive.length());
+			out.writeLong(archive.lastModified());
+			out.writeInt(entries.size());
+			
+			for (Entry entry : entries)
+			{
+				writeString(out, entry.name);
+				writeString(out, entry.method);
+				out.writeLong(entry.size);
+				out.writeLong(entry.compressedSize);
+				out.writeLong(entry.crc);
+				out.writeLong(entry.offset);
+				out.writeLong(entry.lastModified);
+				out.writeInt(entry.mode);
+				out.writeBoolean(entry.directory);
+				writeString(out, entry.linkName);
+				out.writeBoolean(entry.symbolicLink);
+			}
+		}
+		
+		Files.move(temp.toPath(), sidecar.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Loads an index saved with {@link #save(File, File)}.
+	 * @param sidecar the file the index was saved to.
+	 * @param archive the archive the index belongs to.
+	 * @return the index, or {@code null} if there is no sidecar, it doesn't match the archive
+	 * 		   as it is now, or its counts and lengths run past its end.
+	 * @throws IOException if the sidecar exists but can't be read.
+	 */
+	public static ArchiveIndex load(File sidecar, File archive) throws IOException
+	{
+		if (!sidecar.isFile())
+			return null;
+		
+		// Read at once so the bytes left are always known, a corrupt count or length can't
+		// make the load allocate more than the sidecar holds.
+		byte[] bytes = Files.readAllBytes(sidecar.toPath());
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+			if (in.readInt() != SIDECAR_MAGIC || in.readLong() != archive.length()
+					|| in.readLong() != archive.lastModified())
+				return null;
+			
+			int count = in.readInt();
+			if (count < 0 || count > (bytes.length - SIDECAR_HEADER_SIZE) / MIN_RECORD_SIZE)
+				return null;
+			List<Entry> entries = new ArrayList<>(count);
+			for (int i = 0; i < count; i++)
+			{
+				String name = readString(in);
+				String method = readString(in);
+				long size = in.readLong(), compressedSize = in.readLong(), crc = in.readLong(), offset = in.readLong();
+				long lastModified = in.readLong();
+				int mode = in.readInt();
+				boolean directory = in.readBoolean();
+				entries.add(new Entry(name, size, compressedSize, method, crc, offset, lastModified, mode, directory,
+									  readString(in), in.readBoolean()));
+			}
+			return new ArchiveIndex(entries);
+		} catch (EOFException e) {
+			return null;
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException
+	{
+		if (value == null)
+		{
+			out.writeInt(-1);
+			return;
+		}
+		
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * @throws EOFException if the length is more than the bytes left in the sidecar.
+	 */
+	private static String readString(DataInputStream in) throws IOException
+	{
+		int length = in.readInt();
+		if (length == -1)
+			return null;
+		if (length < 0 || length > in.available())
+			throw new EOFException("String of " + length + " bytes past the end of the sidecar.");
+		
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * A single entry of an {@link ArchiveIndex}.
+	 */
+	public static final class Entry
+	{
+		private final String name;
+		private final long size;
+		private final long compressedSize;
+		private final String method;
+		private final long crc;
+		private final long offset;
+		private final long lastModified;
+		private final int mode;
+		private final boolean directory;
+		private final String linkName;
+		private final boolean symbolicLink;
+
+		/**
+		 * An entry that isn't a link.
+		 * @see #Entry(String, long, long, String, long, long, long, int, boolean, String, boolean)
+		 */
+		public Entry(String name, long size, long compressedSize, String method, long crc, long offset,
+					 long lastModified, int mode, boolean directory)
+		{
+			this(name, size, compressedSize, method, crc, offset, lastModified, mode, directory, null, false);
+		}
+
+		/**
+		 * @param name the full name of the entry.
+		 * @param size the uncompressed size.
+		 * @param compressedSize the size of the stored data.
+		 * @param method the name of the compression method, such as {@code DEFLATED}.
+		 * @param crc the stored CRC-32 of the uncompressed data.
+		 * @param offset where the entry starts in the archive, its meaning depends on the format.
+		 * @param lastModified the modification time in milliseconds since the epoch.
+		 * @param mode the unix permission bits, or {@code 0}.
+		 * @param directory whether the entry is a directory.
+		 * @param linkName what the entry links to, the name of an earlier entry for a hard link, or
+		 * 		  {@code null} if it isn't a link.
+		 * @param symbolicLink whether the link is a symbolic link rather than a hard link.
+		 */
+		public Entry(String name, long size, long compressedSize, String method, long crc, long offset,
+					 long lastModified, int mode, boolean directory, String linkName, boolean symbolicLink)
+		{
+			this.name = name;
+			this.size = size;
+			this.compressedSize = compressedSize;
+			this.method = method;
+			this.crc = crc;
+			this.offset = offset;
+			this.lastModified = lastModified;
+			this.mode = mode;
+			this.directory = directory;
+			this.linkName = linkName;
+			this.symbolicLink = linkName != null && symbolicLink;
+		}
+
+		public String getName()
+		{
+			return name;
+		}
+
+		public long getSize()
+		{
+			return size;
+		}
+
+		public long getCompressedSize()
+		{
+			return compressedSize;
+		}
+
+		public String getMethod()
+		{
+			return method;
+		}
+
+		public long getCrc()
+		{
+			return crc;
+		}
+
+		/**
+		 * @return the local header offset for .zip files, the data offset for uncompressed .tar
+		 * 		   files, or {@code -1} when the format can't seek to an entry.
+		 */
+		public long getOffset()
+		{
+			return offset;
+		}
+
+		public long getLastModified()
+		{
+			return lastModified;
+		}
+
+		public int getMode()
+		{
+			return mode;
+		}
+
+		public boolean isDirectory()
+		{
+			return directory;
+		}
+
+		/**
+		 * @return what the entry links to, or {@code null} if it isn't a link. A hard link holds the
+		 * 		   name of an earlier entry and has no data of its own.
+		 */
+		public String getLinkName()
+		{
+			return linkName;
+		}
+
+		public boolean isSymbolicLink()
+		{
+			return symbolicLink;
+		}
+
+		public boolean isHardLink()
+		{
+			return linkName != null && !symbolicLink;
+		}
+
+		@Override
+		public String toString()
+		{
+			return name;
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package zipy;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A least-recently-used cache of {@link ArchiveIndex} objects. Every index is stored with the
+ * size and modification time the archive had when it was read, so an archive that has been
+ * rewritten is read again instead of being served from the cache.
+ * <p>
+ * Every reader shares {@link #shared()}, which keeps up to {@value #DEFAULT_MAX_ARCHIVES} archives.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+public final class ArchiveIndexCache
+{
+	public static final int DEFAULT_MAX_ARCHIVES = 256;
+
+	private static final ArchiveIndexCache SHARED = new ArchiveIndexCache(DEFAULT_MAX_ARCHIVES);
+
+	private final LinkedHashMap<String, Cached> cache = new LinkedHashMap<>(16, 0.75f, true);
+	private int maxArchives;
+
+	/**
+	 * Reads an archive's headers to build its index, called when the cache has no fresh copy.
+	 */
+	public interface Loader
+	{
+		ArchiveIndex load() throws IOException;
+	}
+
+	/**
+	 * @param maxArchives the amount of archives kept before the least recently used is evicted.
+	 */
+	public ArchiveIndexCache(int maxArchives)
+	{
+		setMaxArchives(maxArchives);
+	}
+
+	/**
+	 * @return the cache used by every reader.
+	 */
+	public static ArchiveIndexCache shared()
+	{
+		return SHARED;
+	}
+
+	/**
+	 * Returns the index of the archive, loading it when it isn't cached or the archive changed
+	 * since it was cached. The loader runs outside of the cache lock.
+	 * @param archive the archive file.
+	 * @param loader builds the index from the archive.
+	 * @return the index of the archive.
+	 * @throws IOException if the loader fails.
+	 */
+	public ArchiveIndex get(File archive, Loader loader) throws IOException
+	{
+		String key = archive.getAbsolutePath();
+		long size = archive.length();
+		long lastModified = archive.lastModified();
+
+		synchronized (this)
+		{
+			Cached cached = cache.get(key);
+			if (cached != null && cached.size == size && cached.lastModified == lastModified)
+				return cached.index;
+		}
+
+		ArchiveIndex index = loader.load();
+
+		synchronized (this)
+		{
+			if (maxArchives > 0)
+			{
+				cache.put(key, new Cached(index, size, lastModified));
+				evict();
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Drops the cached index of the archive, if there is one.
+	 * @param archive the archive file.
+	 */
+	public synchronized void invalidate(File archive)
+	{
+		cache.remove(archive.getAbsolutePath());
+	}
+
+	/**
+	 * Drops every cached index.
+	 */
+	public synchronized void clear()
+	{
+		cache.clear();
+	}
+
+	/**
+	 * @return the amount of archives currently cached.
+	 */
+	public synchronized int size()
+	{
+		return cache.size();
+	}
+
+	/**
+	 * Changes the amount of archives kept, evicting the least recently used ones if needed.
+	 * @param maxArchives the new bound, {@code 0} turns the cache off.
+	 */
+	public synchronized void setMaxArchives(int maxArchives)
+	{
+		if (maxArchives < 0)
+			throw new IllegalArgumentException("The cache size can't be negative.");
+
+		this.maxArchives = maxArchives;
+		evict();
+	}
+
+	private void evict()
+	{
+		Iterator<Map.Entry<String, Cached>> eldest = cache.entrySet().iterator();
+		while (cache.size() > maxArchives && eldest.hasNext())
+		{
+			eldest.next();
+			eldest.remove();
+		}
+	}
+
+	private static final class Cached
+	{
+		private final ArchiveIndex index;
+		private final long size;
+		private final long lastModified;
+
+		Cached(ArchiveIndex index, long size, long lastModified)
+		{
+			this.index = index;
+			this.size = size;
+			this.lastModified = lastModified;
+		}
+	}
+}
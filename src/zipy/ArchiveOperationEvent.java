@@ -0,0 +1,45 @@
+package zipy;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Java Flight Recorder event for one whole extraction or archive creation. The duration and
+ * the thread that ran it are recorded by JFR itself. Enable it with the {@code zipy.ArchiveOperation}
+ * setting, it is off unless a recording asks for it.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+@Name("zipy.ArchiveOperation")
+@Label("Archive Operation")
+@Category("Zipy")
+@Description("An archive extracted or created by Zipy")
+final class ArchiveOperationEvent extends Event
+{
+	@Label("Reader")
+	@Description("The reader class that handled the archive")
+	String reader;
+
+	@Label("Operation")
+	@Description("extract or create")
+	String operation;
+
+	@Label("Successful")
+	boolean successful;
+
+	@Label("Entries")
+	long entries;
+
+	@Label("Compressed Bytes")
+	@DataAmount
+	long compressedBytes;
+
+	@Label("Uncompressed Bytes")
+	@DataAmount
+	long uncompressedBytes;
+}
@@ -0,0 +1,293 @@
+package zipy;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.ProviderMismatchException;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A path to an entry inside an {@link ArchiveFileSystem}. Names are separated by {@code /} and
+ * the root is {@code /}, whatever separator the archive itself uses.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+final class ArchivePath implements Path
+{
+	private final ArchiveFileSystem fileSystem;
+	private final String path;
+	private String[] names;
+
+	ArchivePath(ArchiveFileSystem fileSystem, String path)
+	{
+		this.fileSystem = fileSystem;
+		this.path = clean(path);
+	}
+
+	/**
+	 * Removes repeated and trailing separators.
+	 */
+	private static String clean(String path)
+	{
+		StringBuilder builder = new StringBuilder(path.length());
+		for (int i = 0; i < path.length(); i++)
+		{
+			char c = path.charAt(i);
+			if (c == '/' && builder.length() > 0 && builder.charAt(builder.length() - 1) == '/')
+				continue;
+			builder.append(c);
+		}
+
+		if (builder.length() > 1 && builder.charAt(builder.length() - 1) == '/')
+			builder.setLength(builder.length() - 1);
+		return builder.toString();
+	}
+
+	private String[] names()
+	{
+		if (names == null)
+		{
+			if (path.equals("/"))
+				names = new String[0];
+			else
+				names = (isAbsolute() ? path.substring(1) : path).split("/", -1);
+		}
+		return names;
+	}
+
+	@Override
+	public ArchiveFileSystem getFileSystem()
+	{
+		return fileSystem;
+	}
+
+	@Override
+	public boolean isAbsolute()
+	{
+		return path.startsWith("/");
+	}
+
+	@Override
+	public Path getRoot()
+	{
+		return isAbsolute() ? new ArchivePath(fileSystem, "/") : null;
+	}
+
+	@Override
+	public Path getFileName()
+	{
+		if (path.equals("/"))
+			return null;
+
+		int slash = path.lastIndexOf('/');
+		return slash == -1 ? this : new ArchivePath(fileSystem, path.substring(slash + 1));
+	}
+
+	@Override
+	public Path getParent()
+	{
+		int slash = path.lastIndexOf('/');
+		if (slash == -1 || path.equals("/"))
+			return null;
+		return new ArchivePath(fileSystem, slash == 0 ? "/" : path.substring(0, slash));
+	}
+
+	@Override
+	public int getNameCount()
+	{
+		return names().length;
+	}
+
+	@Override
+	public Path getName(int index)
+	{
+		if (index < 0 || index >= names().length)
+			throw new IllegalArgumentException("No name at index " + index);
+		return new ArchivePath(fileSystem, names()[index]);
+	}
+
+	@Override
+	public Path subpath(int beginIndex, int endIndex)
+	{
+		if (beginIndex < 0 || endIndex > names().length || beginIndex >= endIndex)
+			throw new IllegalArgumentException("Invalid range " + beginIndex + " to " + endIndex);
+		return new ArchivePath(fileSystem, String.join("/", Arrays.asList(names()).subList(beginIndex, endIndex)));
+	}
+
+	@Override
+	public boolean startsWith(Path other)
+	{
+		ArchivePath that = of(other);
+		if (that.isAbsolute() != isAbsolute() || that.names().length > names().length)
+			return false;
+		if (that.path.isEmpty())
+			return path.isEmpty();
+
+		for (int i = 0; i < that.names().length; i++)
+		{
+			if (!that.names()[i].equals(names()[i]))
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public boolean endsWith(Path other)
+	{
+		ArchivePath that = of(other);
+		if (that.isAbsolute())
+			return equals(that);
+		if (that.path.isEmpty())
+			return path.isEmpty();
+
+		int offset = names().length - that.names().length;
+		if (offset < 0)
+			return false;
+
+		for (int i = 0; i < that.names().length; i++)
+		{
+			if (!that.names()[i].equals(names()[offset + i]))
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public Path normalize()
+	{
+		List<String> result = new ArrayList<>();
+
+		for (String name : names())
+		{
+			if (name.isEmpty() || name.equals("."))
+				continue;
+
+			if (name.equals(".."))
+			{
+				if (!result.isEmpty() && !result.get(result.size() - 1).equals(".."))
+					result.remove(result.size() - 1);
+				else if (!isAbsolute())
+					result.add(name);
+				continue;
+			}
+			result.add(name);
+		}
+
+		String joined = String.join("/", result);
+		return new ArchivePath(fileSystem, isAbsolute() ? "/" + joined : joined);
+	}
+
+	@Override
+	public Path resolve(Path other)
+	{
+		ArchivePath that = of(other);
+		if (that.isAbsolute())
+			return that;
+		if (that.path.isEmpty())
+			return this;
+		if (path.isEmpty())
+			return that;
+		return new ArchivePath(fileSystem, path + "/" + that.path);
+	}
+
+	@Override
+	public Path relativize(Path other)
+	{
+		ArchivePath that = of(other);
+		if (that.isAbsolute() != isAbsolute())
+			throw new IllegalArgumentException("Both paths must be absolute or relative.");
+		if (equals(that))
+			return new ArchivePath(fileSystem, "");
+
+		String[] from = path.isEmpty() ? new String[0] : names();
+		String[] to = that.path.isEmpty() ? new String[0] : that.names();
+		int common = 0;
+		while (common < from.length && common < to.length && from[common].equals(to[common]))
+			common++;
+
+		List<String> result = new ArrayList<>();
+		for (int i = common; i < from.length; i++)
+			result.add("..");
+		for (int i = common; i < to.length; i++)
+			result.add(to[i]);
+		return new ArchivePath(fileSystem, String.join("/", result));
+	}
+
+	/**
+	 * @return a {@code zipy:} URI holding the URI of the archive and the path of the entry,
+	 * 		   such as {@code zipy:file:///data/logs.tar!/logs/today.txt}.
+	 */
+	@Override
+	public URI toUri()
+	{
+		try {
+			String entry = new URI(null, null, toAbsolutePath().toString(), null).getRawPath();
+			return new URI(ArchiveFileSystemProvider.SCHEME + ":" + fileSystem.getArchive().toUri() + "!" + entry);
+		} catch (URISyntaxException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Override
+	public Path toAbsolutePath()
+	{
+		return isAbsolute() ? this : new ArchivePath(fileSystem, "/" + path);
+	}
+
+	@Override
+	public Path toRealPath(LinkOption... options) throws IOException
+	{
+		Path real = toAbsolutePath().normalize();
+		fileSystem.getAttributes((ArchivePath) real);
+		return real;
+	}
+
+	@Override
+	public WatchKey register(WatchService watcher, WatchEvent.Kind<?>[] events, WatchEvent.Modifier... modifiers)
+	{
+		throw new UnsupportedOperationException("Archives can't be watched.");
+	}
+
+	@Override
+	public int compareTo(Path other)
+	{
+		return path.compareTo(of(other).path);
+	}
+
+	@Override
+	public boolean equals(Object other)
+	{
+		return other instanceof ArchivePath && ((ArchivePath) other).fileSystem == fileSystem
+				&& ((ArchivePath) other).path.equals(path);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return path.hashCode();
+	}
+
+	@Override
+	public String toString()
+	{
+		return path;
+	}
+
+	/**
+	 * Checks that a path handed to the provider belongs to it.
+	 */
+	static ArchivePath of(Path path)
+	{
+		if (!(path instanceof ArchivePath))
+			throw new ProviderMismatchException();
+		return (ArchivePath) path;
+	}
+}
@@ -0,0 +1,62 @@
+package zipy;
+
+/**
+ * Receives the progress of an extraction or archive creation. Register one with
+ * {@link IReader#setProgressListener(ArchiveProgressListener)}, or pass one to the
+ * {@code makeArchive} methods that take it. Every method does nothing by default, so only the
+ * ones that are needed have to be implemented.
+ * <p>
+ * Bytes in are the bytes read from the source, the archive when extracting or the files when
+ * creating one. Bytes out are the bytes written. Both are totals since the start of the operation,
+ * and the throughput is the uncompressed bytes handled per second so far.
+ * <p>
+ * Parallel operations call the listener from several threads at once, so it has to be thread
+ * safe. Byte counts are reported about once per {@value #REPORT_INTERVAL} bytes, not for every
+ * buffer, to keep the cost low. With no listener and metrics turned off, see {@link ZipyMetricsMXBean},
+ * nothing is counted at all.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+public interface ArchiveProgressListener
+{
+	/** About how many bytes pass between two {@link #bytesTransferred} calls. */
+	public static final long REPORT_INTERVAL = 1024 * 1024;
+
+	/**
+	 * Called once before the first entry.
+	 * @param totalBytes the uncompressed size of everything that will be handled, or {@code -1}
+	 * 		  if it isn't known up front, as with tarballs.
+	 */
+	default void operationStarted(long totalBytes) {}
+
+	/**
+	 * Called when an entry starts being extracted or added.
+	 * @param name the name of the entry.
+	 * @param size the uncompressed size of the entry, or {@code -1} if unknown.
+	 */
+	default void entryStarted(String name, long size) {}
+
+	/**
+	 * Called when an entry is done.
+	 * @param name the name of the entry.
+	 * @param size the uncompressed size of the entry.
+	 */
+	default void entryFinished(String name, long size) {}
+
+	/**
+	 * Called as data is handled.
+	 * @param bytesIn the bytes read so far.
+	 * @param bytesOut the bytes written so far.
+	 * @param bytesPerSecond the running throughput, in uncompressed bytes per second.
+	 */
+	default void bytesTransferred(long bytesIn, long bytesOut, double bytesPerSecond) {}
+
+	/**
+	 * Called once after the last entry, only when the operation succeeded.
+	 * @param bytesIn the bytes read in total.
+	 * @param bytesOut the bytes written in total.
+	 * @param bytesPerSecond the average throughput, in uncompressed bytes per second.
+	 */
+	default void operationFinished(long bytesIn, long bytesOut, double bytesPerSecond) {}
+}
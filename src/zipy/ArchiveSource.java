@@ -0,0 +1,256 @@
+package zipy;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.io.input.CloseShieldInputStream;
+
+/**
+ * Where a reader takes its archive from: a file, a channel opened by the caller, or a stream that
+ * can only be read once. Archives held in memory or received over the network are read straight
+ * from their channel or stream, without being copied to a temporary file first.
+ * <p>
+ * Every {@link #openChannel()} over the caller's channel gets a view with a position of its own,
+ * so the views can be read on several threads, their reads taking turns on the channel. Closing a
+ * view or a stream never closes what the caller handed over, that is left to the caller.
+ * <p>
+ * Only archives read from a file go through {@link ArchiveIndexCache#shared()}, as a channel or a
+ * stream has no size and modification time to tell whether it changed. Their index is kept by the
+ * source instead, for as long as the reader lives. A stream can't be read again to build it, so a
+ * reader that goes through the whole stream for something else hands the index it saw to
+ * {@link #putIndex(ArchiveIndex)}.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+final class ArchiveSource
+{
+	private final File file;
+	private final SeekableByteChannel channel;
+	private final InputStream stream;
+	private final AtomicBoolean streamRead = new AtomicBoolean();
+	private volatile ArchiveIndex index;
+
+	private ArchiveSource(File file, SeekableByteChannel channel, InputStream stream)
+	{
+		this.file = file;
+		this.channel = channel;
+		this.stream = stream;
+	}
+
+	static ArchiveSource of(File file)
+	{
+		return new ArchiveSource(file.getAbsoluteFile(), null, null);
+	}
+
+	static ArchiveSource of(String path)
+	{
+		return of(new File(path));
+	}
+
+	/**
+	 * @param channel the archive, read from position 0 and never closed.
+	 */
+	static ArchiveSource of(SeekableByteChannel channel)
+	{
+		return new ArchiveSource(null, Objects.requireNonNull(channel, "channel"), null);
+	}
+
+	/**
+	 * @param stream the archive, read once from where it is and never closed.
+	 */
+	static ArchiveSource of(InputStream stream)
+	{
+		return new ArchiveSource(null, null, Objects.requireNonNull(stream, "stream"));
+	}
+
+	/**
+	 * @return the archive file, or {@code null} if the archive isn't read from a file.
+	 */
+	File getFile()
+	{
+		return file;
+	}
+
+	/**
+	 * @return {@code false} if the archive is a stream, which can only be read from start to end.
+	 */
+	boolean isSeekable()
+	{
+		return stream == null;
+	}
+
+	/**
+	 * @return a channel over the whole archive, positioned at its start. Closing it leaves the
+	 * 		   caller's channel open.
+	 * @throws IOException if the archive is a stream, or the file can't be opened.
+	 */
+	SeekableByteChannel openChannel() throws IOException
+	{
+		if (file != null)
+			return FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		if (channel != null)
+			return new ChannelView(channel);
+		throw new IOException("The archive is read from a stream, which can't be read out of order.");
+	}
+
+	/**
+	 * @return a stream over the archive. Closing it leaves the caller's channel or stream open.
+	 * @throws IOException if the archive is a stream that was already read.
+	 */
+	InputStream openStream() throws IOException
+	{
+		if (file != null)
+			return new FileInputStream(file);
+		if (channel != null)
+			return Channels.newInputStream(openChannel());
+		if (!streamRead.compareAndSet(false, true))
+			throw new IOException("The archive stream was already read.");
+		return CloseShieldInputStream.wrap(stream);
+	}
+
+	/**
+	 * @param loader builds the index from the archive.
+	 * @return the index of the archive, from the shared cache when it is a file.
+	 * @throws IOException if the loader fails.
+	 */
+	ArchiveIndex getIndex(ArchiveIndexCache.Loader loader) throws IOException
+	{
+		if (file != null)
+			return ArchiveIndexCache.shared().get(file, loader);
+
+		ArchiveIndex cached = index;
+		if (cached == null)
+		{
+			synchronized (this)
+			{
+				if ((cached = index) == null)
+					index = cached = loader.load();
+			}
+		}
+		return cached;
+	}
+
+	/**
+	 * Keeps the index of a channel or stream built while it was read for something else, unless
+	 * there already is one. An archive read from a file has its index in the shared cache instead.
+	 * @param built the index of every entry in the archive.
+	 */
+	void putIndex(ArchiveIndex built)
+	{
+		if (file != null)
+			return;
+		synchronized (this)
+		{
+			if (index == null)
+				index = built;
+		}
+	}
+	
+	@Override
+	public String toString()
+	{
+		if (file != null)
+			return file.getPath();
+		return channel != null ? "the archive channel" : "the archive stream";
+	}
+
+	/**
+	 * A read-only view of the caller's channel with its own position. Every read moves the channel
+	 * to that position first, holding the channel so no other view moves it in between.
+	 */
+	private static final class ChannelView implements SeekableByteChannel
+	{
+		private final SeekableByteChannel channel;
+		private long position;
+		private boolean open = true;
+
+		ChannelView(SeekableByteChannel channel)
+		{
+			this.channel = channel;
+		}
+
+		@Override
+		public int read(ByteBuffer dst) throws IOException
+		{
+			checkOpen();
+			int count;
+			synchronized (channel)
+			{
+				channel.position(position);
+				count = channel.read(dst);
+			}
+			if (count > 0)
+				position += count;
+			return count;
+		}
+
+		@Override
+		public int write(ByteBuffer src)
+		{
+			throw new NonWritableChannelException();
+		}
+
+		@Override
+		public long position() throws IOException
+		{
+			checkOpen();
+			return position;
+		}
+
+		@Override
+		public SeekableByteChannel position(long newPosition) throws IOException
+		{
+			checkOpen();
+			if (newPosition < 0)
+				throw new IllegalArgumentException("Negative position: " + newPosition);
+			position = newPosition;
+			return this;
+		}
+
+		@Override
+		public long size() throws IOException
+		{
+			checkOpen();
+			synchronized (channel)
+			{
+				return channel.size();
+			}
+		}
+
+		@Override
+		public SeekableByteChannel truncate(long size)
+		{
+			throw new NonWritableChannelException();
+		}
+
+		@Override
+		public boolean isOpen()
+		{
+			return open && channel.isOpen();
+		}
+
+		@Override
+		public void close()
+		{
+			open = false;
+		}
+
+		private void checkOpen() throws ClosedChannelException
+		{
+			if (!isOpen())
+				throw new ClosedChannelException();
+		}
+	}
+}
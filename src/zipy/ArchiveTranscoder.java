@@ -0,0 +1,596 @@
+package zipy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.compress.archivers.sevenz.SevenZArchiveEntry;
+import org.apache.commons.compress.archivers.sevenz.SevenZFile;
+import org.apache.commons.compress.archivers.sevenz.SevenZOutputFile;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+import org.apache.commons.compress.archivers.zip.UnixStat;
+import org.apache.commons.compress.archivers.zip.Zip64Mode;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+
+import com.github.junrar.Archive;
+import com.github.junrar.exception.RarException;
+import com.github.junrar.rarfile.FileHeader;
+
+/**
+ * Converts an archive into another format without extracting it to the disk. One thread decodes
+ * the source entry by entry, in the order they are stored, and hands the data in fixed size
+ * chunks to the calling thread, which writes the target. At most {@value #CHUNKS} chunks are in
+ * flight, so memory use stays the same no matter how large the entries are, and the chunks are
+ * reused rather than allocated for every entry.
+ * <p>
+ * Full entry names, modification times and unix permissions are kept. Symbolic links are kept in
+ * .zip and .tar targets, and skipped for .7z which can't store them. Hard links in a tarball are
+ * kept when the target is a tarball, and stored as a copy of the file they point at otherwise.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+final class ArchiveTranscoder
+{
+	private static final int CHUNK_SIZE = 64 * 1024;
+	private static final int CHUNKS = 32;
+	private static final Chunk END = new Chunk(null, null, 0, null);
+
+	private final File source;
+	private final File target;
+	private final ArchiveType targetType;
+	private final BlockingQueue<byte[]> free = new ArrayBlockingQueue<>(CHUNKS);
+	// Headers take a place too, so there is room for one before every data chunk.
+	private final BlockingQueue<Chunk> filled = new ArrayBlockingQueue<>(CHUNKS * 2);
+
+	/**
+	 * @param source the archive to read, of any type {@link ArchiveType} knows.
+	 * @param target the archive to create, it is replaced if it exists.
+	 * @param targetType the format of the archive to create.
+	 */
+	ArchiveTranscoder(File source, File target, ArchiveType targetType)
+	{
+		this.source = source;
+		this.target = target;
+		this.targetType = targetType;
+	}
+
+	/**
+	 * Writes every entry of the source into the target. The target is deleted if anything fails.
+	 * @return the amount of entries written.
+	 * @throws IOException if the source can't be read, or the target type can't be written.
+	 */
+	int transcode() throws IOException
+	{
+		ArchiveType sourceType = ArchiveType.detect(source.toPath());
+		if (sourceType == null)
+			throw new IOException("Unknown archive type: " + source);
+		if (sourceType == ArchiveType.RAR5)
+			throw new IOException("RAR 5 archives aren't supported: " + source);
+		if (targetType == ArchiveType.RAR4 || targetType == ArchiveType.RAR5)
+			throw new IOException("RAR archives can't be created.");
+
+		for (int i = 0; i < CHUNKS; i++)
+			free.add(new byte[CHUNK_SIZE]);
+
+		ExecutorService decoder = Executors.newSingleThreadExecutor();
+		Future<?> decoding = decoder.submit(() -> {
+			try {
+				decode(sourceType);
+				filled.put(END);
+			} catch (IOException | RuntimeException e) {
+				filled.put(new Chunk(null, null, 0, e));
+			}
+			return null;
+		});
+
+		int entries = 0;
+		boolean successful = false;
+		try (EntryWriter writer = openWriter()) {
+			boolean open = false;
+			Chunk chunk;
+			while ((chunk = take(filled)) != END)
+			{
+				if (chunk.error != null)
+				{
+					if (chunk.error instanceof IOException)
+						throw (IOException) chunk.error;
+					throw new IOException(chunk.error);
+				}
+
+				if (chunk.header != null)
+				{
+					if (open)
+						writer.closeEntry();
+					open = writer.putEntry(chunk.header);
+					if (open)
+						entries++;
+				}
+				else
+				{
+					if (open)
+						writer.write(chunk.data, chunk.length);
+					free.add(chunk.data);
+				}
+			}
+			if (open)
+				writer.closeEntry();
+			successful = true;
+		} finally {
+			decoding.cancel(true);
+			decoder.shutdownNow();
+			if (!successful)
+				Files.deleteIfExists(target.toPath());
+		}
+		return entries;
+	}
+
+	private void decode(ArchiveType sourceType) throws IOException
+	{
+		switch (sourceType)
+		{
+			case ZIP:
+				decodeZip();
+				break;
+			case SEVEN_ZIP:
+				decodeSevenZip();
+				break;
+			case RAR4:
+				decodeRar();
+				break;
+			default:
+				decodeTarball();
+				break;
+		}
+	}
+
+	private void decodeZip() throws IOException
+	{
+		try (ZipFile zipFile = ZipFile.builder().setFile(source).get()) {
+			Enumeration<ZipArchiveEntry> entries = zipFile.getEntries();
+			while (entries.hasMoreElements())
+			{
+				ZipArchiveEntry entry = entries.nextElement();
+				if (!zipFile.canReadEntryData(entry))
+					throw new IOException("Can't read " + entry.getName() + " in " + source);
+
+				int mode = entry.getUnixMode() & 07777;
+				if (entry.isUnixSymlink())
+				{
+					put(new Header(entry.getName(), 0, entry.getTime(), mode, false, zipFile.getUnixSymlink(entry), true));
+					continue;
+				}
+
+				put(new Header(entry.getName(), entry.getSize(), entry.getTime(), mode, entry.isDirectory(), null, false));
+				if (!entry.isDirectory())
+				{
+					try (InputStream in = zipFile.getInputStream(entry)) {
+						pump(in);
+					}
+				}
+			}
+		}
+	}
+
+	private void decodeSevenZip() throws IOException
+	{
+		try (SevenZFile sevenZFile = SevenZFile.builder().setFile(source).get()) {
+			SevenZArchiveEntry entry;
+			while ((entry = sevenZFile.getNextEntry()) != null)
+			{
+				long lastModified = entry.getHasLastModifiedDate() ? entry.getLastModifiedDate().getTime() : -1;
+				put(new Header(entry.getName(), entry.getSize(), lastModified, 0, entry.isDirectory(), null, false));
+				if (!entry.isDirectory() && entry.hasStream())
+					pump(sevenZFile.getInputStream(entry));
+			}
+		}
+	}
+
+	private void decodeRar() throws IOException
+	{
+		try (Archive archive = new Archive(source)) {
+			for (FileHeader fh : archive.getFileHeaders())
+			{
+				String name = fh.getFileName().replace('\\', '/');
+				long lastModified = fh.getMTime() != null ? fh.getMTime().getTime() : -1;
+				put(new Header(name, fh.getFullUnpackSize(), lastModified, 0, fh.isDirectory(), null, false));
+				if (!fh.isDirectory())
+				{
+					try (ChunkOutputStream out = new ChunkOutputStream()) {
+						archive.extractFile(fh, out);
+					}
+				}
+			}
+		} catch (RarException e) {
+			throw new IOException(e);
+		}
+	}
+
+	private void decodeTarball() throws IOException
+	{
+		boolean tarTarget = targetType.getTarCompression() != null;
+		TarReader links = null;
+
+		try (BufferedInputStream in = new BufferedInputStream(new FileInputStream(source));
+				TarArchiveInputStream tais = new TarArchiveInputStream(TarCompression.detect(in).decompress(in))) {
+			TarArchiveEntry entry;
+			while ((entry = tais.getNextEntry()) != null)
+			{
+				long lastModified = entry.getModTime().getTime();
+				int mode = entry.getMode() & 07777;
+
+				if (entry.isSymbolicLink() || (entry.isLink() && tarTarget))
+					put(new Header(entry.getName(), 0, lastModified, mode, false, entry.getLinkName(), entry.isSymbolicLink()));
+				else if (entry.isLink())
+				{
+					// The data is stored once, under the name the link points at.
+					if (links == null)
+						links = new TarReader(source, source.getAbsoluteFile().getParentFile());
+					ArchiveIndex.Entry linked = links.getIndex().find(entry.getLinkName());
+					if (linked == null)
+						throw new IOException(entry.getName() + " links to a missing entry in " + source);
+
+					put(new Header(entry.getName(), linked.getSize(), lastModified, mode, false, null, false));
+					try (InputStream data = links.openEntry(entry.getLinkName())) {
+						pump(data);
+					}
+				}
+				else if (entry.isDirectory() || entry.isFile())
+				{
+					if (!tais.canReadEntryData(entry))
+						throw new IOException("Can't read " + entry.getName() + " in " + source);
+					put(new Header(entry.getName(), entry.getSize(), lastModified, mode, entry.isDirectory(), null, false));
+					if (entry.isFile())
+						pump(tais);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the stream to its end in chunks, filling every chunk before it is handed over.
+	 */
+	private void pump(InputStream in) throws IOException
+	{
+		while (true)
+		{
+			byte[] buffer = take(free);
+			int length = 0, read;
+			while (length < buffer.length && (read = in.read(buffer, length, buffer.length - length)) != -1)
+				length += read;
+
+			if (length == 0)
+			{
+				free.add(buffer);
+				return;
+			}
+			put(new Chunk(null, buffer, length, null));
+			if (length < buffer.length)
+				return;
+		}
+	}
+
+	private void put(Header header) throws IOException
+	{
+		put(new Chunk(header, null, 0, null));
+	}
+
+	private void put(Chunk chunk) throws IOException
+	{
+		try {
+			filled.put(chunk);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Transcoding interrupted.");
+		}
+	}
+
+	private static <T> T take(BlockingQueue<T> queue) throws IOException
+	{
+		try {
+			return queue.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Transcoding interrupted.");
+		}
+	}
+
+	private EntryWriter openWriter() throws IOException
+	{
+		if (targetType == ArchiveType.ZIP)
+			return new ZipWriter(target);
+		if (targetType == ArchiveType.SEVEN_ZIP)
+			return new SevenZWriter(target);
+		return new TarWriter(target, targetType.getTarCompression());
+	}
+
+	/**
+	 * Hands the bytes RAR writes to the encoding thread, a chunk at a time.
+	 */
+	private final class ChunkOutputStream extends OutputStream
+	{
+		private byte[] buffer;
+		private int length;
+
+		@Override
+		public void write(int b) throws IOException
+		{
+			write(new byte[] {(byte) b}, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException
+		{
+			while (len > 0)
+			{
+				if (buffer == null)
+					buffer = take(free);
+
+				int count = Math.min(len, buffer.length - length);
+				System.arraycopy(b, off, buffer, length, count);
+				length += count;
+				off += count;
+				len -= count;
+
+				if (length == buffer.length)
+					flush();
+			}
+		}
+
+		@Override
+		public void flush() throws IOException
+		{
+			if (buffer != null && length > 0)
+			{
+				put(new Chunk(null, buffer, length, null));
+				buffer = null;
+				length = 0;
+			}
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			flush();
+			if (buffer != null)
+				free.add(buffer);
+			buffer = null;
+		}
+	}
+
+	/**
+	 * Either the header of an entry, a piece of its data, or the error that stopped the decoder.
+	 */
+	private static final class Chunk
+	{
+		private final Header header;
+		private final byte[] data;
+		private final int length;
+		private final Exception error;
+
+		Chunk(Header header, byte[] data, int length, Exception error)
+		{
+			this.header = header;
+			this.data = data;
+			this.length = length;
+			this.error = error;
+		}
+	}
+
+	private static final class Header
+	{
+		private final String name;
+		private final long size;
+		private final long lastModified;
+		private final int mode;
+		private final boolean directory;
+		/** Where the entry links to, or {@code null} if it isn't a link. */
+		private final String link;
+		private final boolean symbolic;
+
+		Header(String name, long size, long lastModified, int mode, boolean directory, String link, boolean symbolic)
+		{
+			this.name = directory && !name.endsWith("/") ? name + "/" : name;
+			this.size = size;
+			this.lastModified = lastModified;
+			this.mode = mode;
+			this.directory = directory;
+			this.link = link;
+			this.symbolic = symbolic;
+		}
+	}
+
+	private interface EntryWriter extends Closeable
+	{
+		/**
+		 * @return {@code false} if the entry can't be stored in this format and was skipped.
+		 */
+		boolean putEntry(Header header) throws IOException;
+
+		void write(byte[] data, int length) throws IOException;
+
+		void closeEntry() throws IOException;
+	}
+
+	private static final class ZipWriter implements EntryWriter
+	{
+		private final ZipArchiveOutputStream zos;
+
+		ZipWriter(File target) throws IOException
+		{
+			zos = new ZipArchiveOutputStream(target);
+			zos.setUseZip64(Zip64Mode.AsNeeded);
+		}
+
+		@Override
+		public boolean putEntry(Header header) throws IOException
+		{
+			ZipArchiveEntry entry = new ZipArchiveEntry(header.name);
+			if (header.lastModified != -1)
+				entry.setTime(header.lastModified);
+			if (header.link != null)
+			{
+				// Zip stores a symbolic link as a file holding its target.
+				byte[] link = header.link.getBytes(StandardCharsets.UTF_8);
+				entry.setUnixMode(UnixStat.LINK_FLAG | (header.mode != 0 ? header.mode : 0777));
+				zos.putArchiveEntry(entry);
+				zos.write(link);
+				return true;
+			}
+
+			if (header.size >= 0)
+				entry.setSize(header.size);
+			if (header.mode != 0)
+				entry.setUnixMode((header.directory ? UnixStat.DIR_FLAG : UnixStat.FILE_FLAG) | header.mode);
+			zos.putArchiveEntry(entry);
+			return true;
+		}
+
+		@Override
+		public void write(byte[] data, int length) throws IOException
+		{
+			zos.write(data, 0, length);
+		}
+
+		@Override
+		public void closeEntry() throws IOException
+		{
+			zos.closeArchiveEntry();
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			zos.close();
+		}
+	}
+
+	private static final class TarWriter implements EntryWriter
+	{
+		private final TarArchiveOutputStream taos;
+
+		TarWriter(File target, TarCompression compression) throws IOException
+		{
+			FileOutputStream fos = new FileOutputStream(target);
+			try {
+				taos = new TarArchiveOutputStream(new BufferedOutputStream(compression.compress(fos), CHUNK_SIZE));
+			} catch (IOException e) {
+				fos.close();
+				throw e;
+			}
+			taos.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+			taos.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+		}
+
+		@Override
+		public boolean putEntry(Header header) throws IOException
+		{
+			TarArchiveEntry entry;
+			if (header.link != null)
+			{
+				entry = new TarArchiveEntry(header.name, header.symbolic ? TarConstants.LF_SYMLINK : TarConstants.LF_LINK);
+				entry.setLinkName(header.link);
+			}
+			else
+			{
+				entry = new TarArchiveEntry(header.name);
+				if (!header.directory)
+				{
+					if (header.size < 0)
+						throw new IOException("The size of " + header.name + " isn't known, so it can't be put in a tarball.");
+					entry.setSize(header.size);
+				}
+			}
+
+			if (header.lastModified != -1)
+				entry.setModTime(FileTime.fromMillis(header.lastModified));
+			if (header.mode != 0)
+				entry.setMode(entry.getMode() & ~07777 | header.mode);
+			taos.putArchiveEntry(entry);
+			return true;
+		}
+
+		@Override
+		public void write(byte[] data, int length) throws IOException
+		{
+			taos.write(data, 0, length);
+		}
+
+		@Override
+		public void closeEntry() throws IOException
+		{
+			taos.closeArchiveEntry();
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			taos.close();
+		}
+	}
+
+	private static final class SevenZWriter implements EntryWriter
+	{
+		private final SevenZOutputFile sevenZ;
+
+		SevenZWriter(File target) throws IOException
+		{
+			sevenZ = new SevenZOutputFile(target);
+		}
+
+		@Override
+		public boolean putEntry(Header header) throws IOException
+		{
+			if (header.link != null)
+				return false;
+
+			SevenZArchiveEntry entry = new SevenZArchiveEntry();
+			entry.setName(header.directory ? header.name.substring(0, header.name.length() - 1) : header.name);
+			entry.setDirectory(header.directory);
+			if (header.lastModified != -1)
+				entry.setLastModifiedDate(new Date(header.lastModified));
+			sevenZ.putArchiveEntry(entry);
+			return true;
+		}
+
+		@Override
+		public void write(byte[] data, int length) throws IOException
+		{
+			sevenZ.write(data, 0, length);
+		}
+
+		@Override
+		public void closeEntry() throws IOException
+		{
+			sevenZ.closeArchiveEntry();
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			sevenZ.close();
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package zipy;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The kinds of archive Zipy can read, found from the first bytes of the file instead of its name.
+ * {@link #detect(Path)} reads a single 512 byte header, and for compressed tarballs the first
+ * 512 bytes of the decompressed data, so no library is ever tried on a file it can't read.
+ * When the library for a compression isn't on the classpath the magic bytes alone decide, so
+ * reading the archive fails on the missing library instead of calling it no archive.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+public enum ArchiveType
+{
+	ZIP(null),
+	SEVEN_ZIP(null),
+	/** RAR 1.5 to 4.x, which Junrar reads. */
+	RAR4(null),
+	/** RAR 5.0 and later, which Junrar can't read. */
+	RAR5(null),
+	TAR(TarCompression.NONE),
+	TAR_GZIP(TarCompression.GZIP),
+	TAR_BZIP2(TarCompression.BZIP2),
+	TAR_XZ(TarCompression.XZ),
+	TAR_ZSTD(TarCompression.ZSTD);
+
+	/** The size of a tar header block, and the amount of bytes read to detect a type. */
+	private static final int HEADER_SIZE = 512;
+	private static final int USTAR_OFFSET = 257;
+	private static final int CHECKSUM_OFFSET = 148;
+
+	private final TarCompression compression;
+
+	private ArchiveType(TarCompression compression)
+	{
+		this.compression = compression;
+	}
+
+	/**
+	 * @return the compression around the tar data, or {@code null} if this isn't a tarball.
+	 */
+	public TarCompression getTarCompression()
+	{
+		return compression;
+	}
+
+	/**
+	 * Looks at the first bytes of the file to find what kind of archive it is.
+	 * @param archive the file to look at.
+	 * @return the type found, or {@code null} if it isn't an archive Zipy knows.
+	 * @throws IOException if the file can't be read.
+	 */
+	public static ArchiveType detect(Path archive) throws IOException
+	{
+		try (BufferedInputStream in = new BufferedInputStream(Files.newInputStream(archive), HEADER_SIZE)) {
+			byte[] header = new byte[HEADER_SIZE];
+			in.mark(HEADER_SIZE);
+			int length = readFully(in, header);
+			in.reset();
+
+			if (length >= 4 && header[0] == 'P' && header[1] == 'K'
+					&& ((header[2] == 3 && header[3] == 4) || (header[2] == 5 && header[3] == 6)
+						|| (header[2] == 7 && header[3] == 8)))
+				return ZIP;
+			if (length >= 6 && header[0] == '7' && header[1] == 'z' && (header[2] & 0xff) == 0xbc
+					&& (header[3] & 0xff) == 0xaf && header[4] == 0x27 && header[5] == 0x1c)
+				return SEVEN_ZIP;
+			if (length >= 7 && header[0] == 'R' && header[1] == 'a' && header[2] == 'r' && header[3] == '!'
+					&& header[4] == 0x1a && header[5] == 0x07)
+			{
+				if (header[6] == 0)
+					return RAR4;
+				if (header[6] == 1 && length >= 8 && header[7] == 0)
+					return RAR5;
+			}
+
+			TarCompression compression = TarCompression.detect(header, length);
+			if (compression == TarCompression.NONE)
+				return isTarHeader(header, length) ? TAR : null;
+			if (!compression.isAvailable())
+				return of(compression);
+
+			// Compressed, only a tarball if the data inside starts with a tar header.
+			InputStream decompressed = compression == TarCompression.GZIP ? new GZIPInputStream(in)
+																		   : compression.decompress(in);
+			return isTarHeader(header, readFully(decompressed, header)) ? of(compression) : null;
+		} catch (IOException e) {
+			if (!Files.isReadable(archive))
+				throw e;
+			// The data looked compressed but isn't, so it isn't a tarball either.
+			return null;
+		}
+	}
+
+	private static ArchiveType of(TarCompression compression)
+	{
+		for (ArchiveType type : values())
+		{
+			if (type.compression == compression)
+				return type;
+		}
+		return null;
+	}
+
+	/**
+	 * Opens the reader for this type of archive.
+	 * @param archive the archive to read.
+	 * @param output the folder the reader extracts to.
+	 * @return the reader.
+	 * @throws IOException if the type can't be read by any library Zipy uses.
+	 */
+	IReader newReader(File archive, File output) throws IOException
+	{
+		switch (this)
+		{
+			case ZIP:
+				return new ZipReader(archive, output);
+			case SEVEN_ZIP:
+				return new SevenZReader(archive, output);
+			case RAR4:
+				return new RarReader(archive, output);
+			case RAR5:
+				throw new IOException("RAR 5 archives aren't supported: " + archive);
+			default:
+				return new TarReader(archive, output);
+		}
+	}
+
+	/**
+	 * A ustar, GNU or POSIX header has its magic at offset 257, older V7 headers only have a
+	 * checksum, which is the sum of the header bytes with the checksum field read as spaces.
+	 */
+	private static boolean isTarHeader(byte[] header, int length)
+	{
+		if (length < HEADER_SIZE)
+			return false;
+		if (header[USTAR_OFFSET] == 'u' && header[USTAR_OFFSET + 1] == 's' && header[USTAR_OFFSET + 2] == 't'
+				&& header[USTAR_OFFSET + 3] == 'a' && header[USTAR_OFFSET + 4] == 'r')
+			return true;
+
+		long stored = 0;
+		boolean digits = false;
+		for (int i = CHECKSUM_OFFSET; i < CHECKSUM_OFFSET + 8; i++)
+		{
+			if (header[i] >= '0' && header[i] <= '7')
+			{
+				stored = stored * 8 + (header[i] - '0');
+				digits = true;
+			}
+			else if (digits || (header[i] != ' ' && header[i] != 0))
+				break;
+		}
+		if (!digits || header[0] == 0)
+			return false;
+
+		long sum = 0;
+		for (int i = 0; i < HEADER_SIZE; i++)
+			sum += i >= CHECKSUM_OFFSET && i < CHECKSUM_OFFSET + 8 ? ' ' : header[i] & 0xff;
+		return sum == stored;
+	}
+
+	private static int readFully(InputStream in, byte[] buffer) throws IOException
+	{
+		int read = 0, count;
+		while (read < buffer.length && (count = in.read(buffer, read, buffer.length - read)) != -1)
+			read += count;
+		return read;
+	}
+}
@@ -0,0 +1,101 @@
+package zipy;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs the asynchronous operations of {@link Zipy}. By default every task gets its own virtual
+ * thread, so thousands of extractions can wait on the disk without holding a platform thread
+ * each. Virtual threads only exist from Java 21 on, older runtimes fall back to a cached pool of
+ * daemon threads.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+final class AsyncTasks
+{
+	private static final ExecutorService DEFAULT_EXECUTOR = createDefaultExecutor();
+
+	private AsyncTasks() {}
+
+	/**
+	 * @return the executor used when the caller doesn't supply one.
+	 */
+	static Executor defaultExecutor()
+	{
+		return DEFAULT_EXECUTOR;
+	}
+
+	private static ExecutorService createDefaultExecutor()
+	{
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool(runnable -> {
+				Thread thread = new Thread(runnable, "zipy-async");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	/**
+	 * Runs the task on the executor. Cancelling the returned future interrupts the thread running
+	 * the task, and the readers stop at the next entry once they see the interrupt. Anything the
+	 * task throws completes the future exceptionally.
+	 * @param task the work to run.
+	 * @param executor the executor to run it on.
+	 * @return a future completed with the result of the task.
+	 */
+	static <T> CompletableFuture<T> submit(Callable<T> task, Executor executor)
+	{
+		Object lock = new Object();
+		Thread[] runner = new Thread[1];
+
+		CompletableFuture<T> future = new CompletableFuture<T>() {
+			@Override
+			public boolean cancel(boolean mayInterruptIfRunning)
+			{
+				boolean cancelled = super.cancel(mayInterruptIfRunning);
+				synchronized (lock)
+				{
+					if (cancelled && runner[0] != null)
+						runner[0].interrupt();
+				}
+				return cancelled;
+			}
+		};
+
+		try {
+			executor.execute(() -> {
+				synchronized (lock)
+				{
+					if (future.isDone())
+						return;
+					runner[0] = Thread.currentThread();
+				}
+
+				try {
+					future.complete(task.call());
+				} catch (Throwable e) {
+					future.completeExceptionally(e);
+				} finally {
+					synchronized (lock)
+					{
+						runner[0] = null;
+						// Don't leave a pooled thread interrupted by a late cancel.
+						Thread.interrupted();
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			future.completeExceptionally(e);
+		}
+
+		return future;
+	}
+}
@@ -0,0 +1,451 @@
+package zipy;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extracts large amounts of archives with two separate limits: the amount of archives being
+ * decompressed at once (CPU), and the amount of archives writing to the same disk at once (I/O).
+ * Waiting jobs are started largest archive first, so a big archive never ends up running alone
+ * at the end of the batch, and a job is only started when its destination disk has room, while
+ * jobs for other disks keep going.
+ * <p>
+ * Every job shares the cores with the others, so the readers get the cores divided by the amount
+ * of threads for their own writer and decompression threads instead of starting a set per core.
+ * <p>
+ * The queue of waiting jobs is bounded, {@link #submit(File, File)} blocks while it is full so a
+ * producer can't get ahead of the extraction. Close the extractor to wait for every job and stop
+ * its threads, or use {@link #awaitTermination(long, TimeUnit)} to wait for a limited time.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+public final class BatchExtractor implements AutoCloseable
+{
+	/** The amount of archives written to the same disk at once when none is given. */
+	public static final int DEFAULT_WRITERS_PER_DISK = 2;
+	/**
+	 * The extensions {@link ArchiveType} and {@link TarCompression#fromFileName(String)} know,
+	 * longer ones first so {@code .tar.gz} is stripped whole.
+	 */
+	private static final List<String> ARCHIVE_EXTENSIONS = List.of(".tar.gz", ".tar.bz2", ".tar.xz", ".tar.zst",
+			".tgz", ".tbz2", ".tbz", ".txz", ".tzst", ".tar", ".gz", ".bz2", ".xz", ".zst", ".zip", ".7z", ".rar");
+
+	private final int writersPerDisk;
+	private final int threadsPerJob;
+	private final int queueCapacity;
+	private final List<Thread> workers = new ArrayList<>();
+	private final TreeSet<Job> waiting = new TreeSet<>(Comparator.comparingLong((Job job) -> -job.size)
+																  .thenComparingLong(job -> job.sequence));
+	private final Map<Object, Integer> busyDisks = new HashMap<>();
+	private long sequence;
+	private boolean closed;
+
+	/**
+	 * Uses a thread per core, {@value #DEFAULT_WRITERS_PER_DISK} writers per disk and a queue of
+	 * four jobs per thread.
+	 */
+	public BatchExtractor()
+	{
+		this(Runtime.getRuntime().availableProcessors(), DEFAULT_WRITERS_PER_DISK,
+			 Runtime.getRuntime().availableProcessors() * 4);
+	}
+
+	/**
+	 * @param threads the amount of archives decompressed at the same time.
+	 * @param writersPerDisk the amount of archives extracted to the same disk at the same time.
+	 * @param queueCapacity the amount of jobs that can wait before {@link #submit(File, File)} blocks.
+	 */
+	public BatchExtractor(int threads, int writersPerDisk, int queueCapacity)
+	{
+		if (threads < 1 || writersPerDisk < 1 || queueCapacity < 1)
+			throw new IllegalArgumentException("The limits must be at least 1.");
+
+		this.writersPerDisk = writersPerDisk;
+		this.queueCapacity = queueCapacity;
+		this.threadsPerJob = Math.max(1, Runtime.getRuntime().availableProcessors() / threads);
+
+		for (int i = 0; i < threads; i++)
+		{
+			Thread worker = new Thread(this::work, "zipy-batch-" + i);
+			worker.setDaemon(true);
+			workers.add(worker);
+			worker.start();
+		}
+	}
+
+	/**
+	 * Queues one archive, waiting while the queue is full.
+	 * @param archive the archive to extract.
+	 * @param extractTo the location to extract the files to.
+	 * @return {@link CompletableFuture} completed with the {@link ExtractionResult}, or completed
+	 * 		   exceptionally with the reason the extraction failed. Cancelling it removes a waiting
+	 * 		   job from the queue, or interrupts a running one.
+	 * @throws InterruptedException if the thread is interrupted while waiting for room.
+	 * @throws RejectedExecutionException if the extractor is closed.
+	 */
+	public CompletableFuture<ExtractionResult> submit(File archive, File extractTo) throws InterruptedException
+	{
+		Object disk = diskOf(extractTo);
+
+		synchronized (this)
+		{
+			while (!closed && waiting.size() >= queueCapacity)
+				wait();
+			if (closed)
+				throw new RejectedExecutionException("The batch extractor is closed.");
+
+			Job job = new Job(archive, extractTo, disk, archive.length(), sequence++);
+			waiting.add(job);
+			notifyAll();
+			return job;
+		}
+	}
+
+	/**
+	 * Extracts every archive and waits for all of them. The whole batch is known up front, so the
+	 * archives are queued largest first.
+	 * @param jobs the archives mapped to the location each one is extracted to.
+	 * @return a result for every archive, in the order of the map.
+	 * @throws InterruptedException if the thread is interrupted while queueing or waiting.
+	 */
+	public List<JobResult> extractAll(Map<File, File> jobs) throws InterruptedException
+	{
+		List<File> archives = new ArrayList<>(jobs.keySet());
+		List<File> bySize = new ArrayList<>(archives);
+		bySize.sort(Comparator.comparingLong(File::length).reversed());
+
+		Map<File, CompletableFuture<ExtractionResult>> futures = new HashMap<>();
+		for (File archive : bySize)
+			futures.put(archive, submit(archive, jobs.get(archive)));
+
+		List<JobResult> results = new ArrayList<>();
+		for (File archive : archives)
+		{
+			try {
+				results.add(new JobResult(archive, jobs.get(archive), futures.get(archive).get(), null));
+			} catch (ExecutionException e) {
+				results.add(new JobResult(archive, jobs.get(archive), null, e.getCause()));
+			} catch (CancellationException e) {
+				results.add(new JobResult(archive, jobs.get(archive), null, e));
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Extracts every archive, see {@link #extractAll(Map)}.
+	 * @param archives the archives to extract.
+	 * @param extractTo the folder every archive gets its own sub folder in, named after the archive
+	 * 		  without its archive extension. When two archives would get the same sub folder, such
+	 * 		  as {@code logs.zip} and {@code logs.tar.gz}, the later one gets {@code logs-2}.
+	 * @return a result for every archive, in the same order.
+	 * @throws InterruptedException if the thread is interrupted while queueing or waiting.
+	 */
+	public List<JobResult> extractAll(Collection<File> archives, File extractTo) throws InterruptedException
+	{
+		Map<File, File> jobs = new LinkedHashMap<>();
+		Set<String> taken = new HashSet<>();
+		for (File archive : archives)
+		{
+			if (jobs.containsKey(archive))
+				continue;
+
+			String name = folderName(archive.getName());
+			String unique = name;
+			// Compared ignoring case, so the folders stay apart on case-insensitive file systems.
+			for (int i = 2; !taken.add(unique.toLowerCase()); i++)
+				unique = name + "-" + i;
+			jobs.put(archive, new File(extractTo, unique));
+		}
+		return extractAll(jobs);
+	}
+
+	/**
+	 * Strips a known archive extension, so {@code app.v1.zip} becomes {@code app.v1} and
+	 * {@code logs.tar.gz} becomes {@code logs}. Any other name is kept as it is.
+	 */
+	static String folderName(String archiveName)
+	{
+		String lower = archiveName.toLowerCase();
+		for (String extension : ARCHIVE_EXTENSIONS)
+		{
+			if (lower.endsWith(extension) && lower.length() > extension.length())
+				return archiveName.substring(0, archiveName.length() - extension.length());
+		}
+		return archiveName;
+	}
+
+	/**
+	 * Stops accepting jobs and waits up to the timeout for the queued and running ones to finish.
+	 * @param timeout the longest time to wait.
+	 * @param unit the unit of the timeout.
+	 * @return {@code true} if every job finished, {@code false} if the timeout passed first.
+	 * @throws InterruptedException if the thread is interrupted while waiting.
+	 */
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException
+	{
+		shutdown();
+
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		for (Thread worker : workers)
+		{
+			long left = deadline - System.nanoTime();
+			if (left <= 0)
+				return !isAlive();
+			TimeUnit.NANOSECONDS.timedJoin(worker, left);
+		}
+		return !isAlive();
+	}
+
+	/**
+	 * Stops accepting jobs and waits for the queued and running ones to finish. When the thread
+	 * is interrupted it stops waiting, keeps its interrupt status and leaves the jobs running.
+	 */
+	@Override
+	public void close()
+	{
+		shutdown();
+
+		try {
+			for (Thread worker : workers)
+				worker.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private synchronized void shutdown()
+	{
+		closed = true;
+		notifyAll();
+	}
+
+	private boolean isAlive()
+	{
+		for (Thread worker : workers)
+		{
+			if (worker.isAlive())
+				return true;
+		}
+		return false;
+	}
+
+	private void work()
+	{
+		Job job;
+		while ((job = take()) != null)
+		{
+			try {
+				job.run();
+			} finally {
+				release(job);
+			}
+		}
+	}
+
+	/**
+	 * Picks the largest waiting job whose disk has a free writer, waiting until there is one.
+	 * @return the job, or {@code null} once the extractor is closed and the queue is empty.
+	 */
+	private synchronized Job take()
+	{
+		while (true)
+		{
+			Iterator<Job> iterator = waiting.iterator();
+			while (iterator.hasNext())
+			{
+				Job job = iterator.next();
+				int busy = busyDisks.getOrDefault(job.disk, 0);
+				if (busy < writersPerDisk)
+				{
+					iterator.remove();
+					busyDisks.put(job.disk, busy + 1);
+					notifyAll();
+					return job;
+				}
+			}
+
+			if (closed && waiting.isEmpty())
+				return null;
+
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				return null;
+			}
+		}
+	}
+
+	private synchronized void release(Job job)
+	{
+		int busy = busyDisks.get(job.disk) - 1;
+		if (busy == 0)
+			busyDisks.remove(job.disk);
+		else
+			busyDisks.put(job.disk, busy);
+		notifyAll();
+	}
+
+	private synchronized boolean dequeue(Job job)
+	{
+		boolean removed = waiting.remove(job);
+		if (removed)
+			notifyAll();
+		return removed;
+	}
+
+	/**
+	 * Finds the disk the folder is on, from the nearest folder that already exists.
+	 */
+	private static Object diskOf(File folder)
+	{
+		Path path = folder.getAbsoluteFile().toPath();
+		while (path != null && !Files.exists(path))
+			path = path.getParent();
+
+		try {
+			if (path != null)
+				return Files.getFileStore(path);
+		} catch (IOException e) {
+			// Fall back to the root below.
+		}
+		return folder.getAbsoluteFile().toPath().getRoot();
+	}
+
+	/**
+	 * A queued archive, which is also the future handed back to the caller.
+	 */
+	private final class Job extends CompletableFuture<ExtractionResult>
+	{
+		private final File archive;
+		private final File extractTo;
+		private final Object disk;
+		private final long size;
+		private final long sequence;
+		private Thread runner;
+
+		Job(File archive, File extractTo, Object disk, long size, long sequence)
+		{
+			this.archive = archive;
+			this.extractTo = extractTo;
+			this.disk = disk;
+			this.size = size;
+			this.sequence = sequence;
+		}
+
+		void run()
+		{
+			synchronized (this)
+			{
+				if (isDone())
+					return;
+				runner = Thread.currentThread();
+			}
+
+			try {
+				complete(Zipy.extract(archive, extractTo, threadsPerJob));
+			} catch (Throwable e) {
+				completeExceptionally(e);
+			} finally {
+				synchronized (this)
+				{
+					runner = null;
+					Thread.interrupted();
+				}
+			}
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning)
+		{
+			boolean cancelled = super.cancel(mayInterruptIfRunning);
+			if (cancelled && !dequeue(this))
+			{
+				synchronized (this)
+				{
+					if (runner != null)
+						runner.interrupt();
+				}
+			}
+			return cancelled;
+		}
+	}
+
+	/**
+	 * The outcome of one archive of a batch.
+	 */
+	public static final class JobResult
+	{
+		private final File archive;
+		private final File destination;
+		private final ExtractionResult result;
+		private final Throwable failure;
+
+		JobResult(File archive, File destination, ExtractionResult result, Throwable failure)
+		{
+			this.archive = archive;
+			this.destination = destination;
+			this.result = result;
+			this.failure = failure;
+		}
+
+		public File getArchive()
+		{
+			return archive;
+		}
+
+		public File getDestination()
+		{
+			return destination;
+		}
+
+		/**
+		 * @return whether every entry of the archive was extracted.
+		 */
+		public boolean isSuccessful()
+		{
+			return failure == null;
+		}
+
+		/**
+		 * @return the result of the extraction, or {@code null} if it failed.
+		 */
+		public ExtractionResult getResult()
+		{
+			return result;
+		}
+
+		/**
+		 * @return why the extraction failed, or {@code null} if it didn't.
+		 */
+		public Throwable getFailure()
+		{
+			return failure;
+		}
+
+		@Override
+		public String toString()
+		{
+			return isSuccessful() ? result.toString() : archive + " failed: " + failure;
+		}
+	}
+}
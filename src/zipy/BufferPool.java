@@ -0,0 +1,102 @@
+package zipy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The byte arrays every copy loop reads into, kept per thread so an archive of millions of small
+ * entries doesn't allocate a buffer for each one. A thread keeps the buffers it releases, up to
+ * {@value #BUFFERS_PER_THREAD}, and gets them back on its next {@link #acquire()}. Once the threads
+ * of a pool have each copied an entry, copying allocates nothing at all.
+ * <p>
+ * The size is {@value #DEFAULT_SIZE} bytes, and can be set from {@value #MIN_SIZE} to
+ * {@value #MAX_SIZE} bytes by starting the JVM with {@code -Dzipy.bufferSize=<bytes>}. Larger
+ * buffers mean fewer reads and writes per entry, at the cost of memory on every thread.
+ * <p>
+ * Every buffer acquired must be released in a {@code finally} block, and must not be used after.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+final class BufferPool
+{
+	static final int MIN_SIZE = 64 * 1024;
+	static final int MAX_SIZE = 256 * 1024;
+	static final int DEFAULT_SIZE = 128 * 1024;
+	/** Enough for the input and output buffers of an inflater, with room for a nested copy. */
+	private static final int BUFFERS_PER_THREAD = 4;
+
+	/** The size of the buffers handed out by {@link #acquire()}. */
+	static final int SIZE = Math.max(MIN_SIZE, Math.min(MAX_SIZE, Integer.getInteger("zipy.bufferSize", DEFAULT_SIZE)));
+
+	private static final ThreadLocal<ArrayDeque<byte[]>> BUFFERS = ThreadLocal.withInitial(ArrayDeque::new);
+
+	private BufferPool() {}
+
+	/**
+	 * @return a buffer of {@link #SIZE} bytes, its contents are undefined.
+	 */
+	static byte[] acquire()
+	{
+		return acquire(SIZE);
+	}
+
+	/**
+	 * @param minimum the smallest length the buffer may have.
+	 * @return a buffer of at least {@code minimum} bytes, its contents are undefined.
+	 */
+	static byte[] acquire(int minimum)
+	{
+		ArrayDeque<byte[]> buffers = BUFFERS.get();
+		byte[] buffer = buffers.pollFirst();
+		if (buffer != null && buffer.length >= minimum)
+			return buffer;
+		if (buffer != null)
+			buffers.addFirst(buffer);
+		return new byte[Math.max(minimum, SIZE)];
+	}
+
+	/**
+	 * Hands a buffer back to the calling thread. Buffers acquired on another thread are fine too.
+	 * @param buffer a buffer from {@link #acquire()}, may be {@code null}.
+	 */
+	static void release(byte[] buffer)
+	{
+		if (buffer == null || buffer.length < SIZE)
+			return;
+		ArrayDeque<byte[]> buffers = BUFFERS.get();
+		if (buffers.size() < BUFFERS_PER_THREAD)
+			buffers.addFirst(buffer);
+	}
+
+	/**
+	 * @param in the deflated data.
+	 * @param inflater the inflater used, it is not ended.
+	 * @return a stream inflating the data through a pooled buffer, released when it is closed.
+	 */
+	static InflaterInputStream inflating(InputStream in, Inflater inflater)
+	{
+		return new InflaterInputStream(in, inflater, 1) {
+			private boolean released;
+
+			{
+				buf = acquire();
+			}
+
+			@Override
+			public void close() throws IOException
+			{
+				try {
+					super.close();
+				} finally {
+					if (!released)
+						release(buf);
+					released = true;
+				}
+			}
+		};
+	}
+}
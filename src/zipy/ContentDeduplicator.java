@@ -0,0 +1,112 @@
+package zipy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Finds files with the same content, so archive creators can store each unique content once.
+ * Files are first grouped by size, and only files that share their size with another one are
+ * hashed, with SHA-256 on several threads. Empty files are never treated as duplicates.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+final class ContentDeduplicator
+{
+	private ContentDeduplicator() {}
+
+	/**
+	 * @param files the regular files, in the order they are written to the archive.
+	 * @param threads the amount of files hashed at once.
+	 * @return every duplicate mapped to the first file in {@code files} with the same content.
+	 * @throws IOException if a file can't be read.
+	 */
+	static Map<Path, Path> findDuplicates(List<Path> files, int threads) throws IOException
+	{
+		Map<Long, List<Path>> bySize = new LinkedHashMap<>();
+		for (Path file : files)
+		{
+			long size = Files.size(file);
+			if (size > 0)
+				bySize.computeIfAbsent(size, key -> new ArrayList<>()).add(file);
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+		try {
+			Map<Path, Future<ByteBuffer>> hashes = new LinkedHashMap<>();
+			for (Path file : files)
+			{
+				List<Path> sameSize = bySize.get(Files.size(file));
+				if (sameSize != null && sameSize.size() > 1)
+					hashes.put(file, executor.submit(() -> hash(file)));
+			}
+
+			Map<ByteBuffer, Path> first = new HashMap<>();
+			Map<Path, Path> duplicates = new HashMap<>();
+			for (Map.Entry<Path, Future<ByteBuffer>> hash : hashes.entrySet())
+			{
+				Path original = first.putIfAbsent(await(hash.getValue()), hash.getKey());
+				if (original != null)
+					duplicates.put(hash.getKey(), original);
+			}
+			return duplicates;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * The size is part of the key, so files of different sizes never match.
+	 */
+	private static ByteBuffer hash(Path file) throws IOException
+	{
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+
+		long size = 0;
+		byte[] buffer = BufferPool.acquire();
+		try (InputStream in = Files.newInputStream(file)) {
+			int read;
+			while ((read = in.read(buffer)) != -1)
+			{
+				digest.update(buffer, 0, read);
+				size += read;
+			}
+		} finally {
+			BufferPool.release(buffer);
+		}
+		return ByteBuffer.allocate(40).put(digest.digest()).putLong(size).flip();
+	}
+
+	private static ByteBuffer await(Future<ByteBuffer> future) throws IOException
+	{
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new IOException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Archive creation interrupted.", e);
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package zipy;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of direct buffers, in size classes of every power of two from {@value #MIN_CLASS_SIZE}
+ * bytes up to {@value #MAX_CLASS_SIZE} bytes. A request is served from the smallest class that
+ * fits, so a buffer is never more than twice the size asked for. Larger requests get a buffer of
+ * their exact size, which isn't kept once released.
+ * <p>
+ * Every class keeps at most {@value #RETAINED_BYTES} bytes of released buffers, anything released
+ * past that is left to the garbage collector, which frees the native memory with it.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+final class DirectBufferPool
+{
+	static final int MIN_CLASS_SIZE = 4 * 1024;
+	static final int MAX_CLASS_SIZE = 16 * 1024 * 1024;
+	private static final int RETAINED_BYTES = 32 * 1024 * 1024;
+
+	private static final DirectBufferPool SHARED = new DirectBufferPool();
+
+	private final Queue<ByteBuffer>[] classes;
+	private final AtomicInteger[] retained;
+
+	@SuppressWarnings("unchecked")
+	private DirectBufferPool()
+	{
+		int count = Integer.numberOfTrailingZeros(MAX_CLASS_SIZE) - Integer.numberOfTrailingZeros(MIN_CLASS_SIZE) + 1;
+		classes = (Queue<ByteBuffer>[]) new Queue<?>[count];
+		retained = new AtomicInteger[count];
+		for (int i = 0; i < count; i++)
+		{
+			classes[i] = new ConcurrentLinkedQueue<>();
+			retained[i] = new AtomicInteger();
+		}
+	}
+
+	/**
+	 * @return the pool shared by the whole process.
+	 */
+	static DirectBufferPool shared()
+	{
+		return SHARED;
+	}
+
+	/**
+	 * @param size the amount of bytes needed.
+	 * @return a cleared buffer with a capacity of at least {@code size} bytes and its limit at
+	 * 		   {@code size}.
+	 */
+	ByteBuffer acquire(int size)
+	{
+		int index = classOf(size);
+		if (index < 0)
+			return ByteBuffer.allocateDirect(size);
+
+		ByteBuffer buffer = classes[index].poll();
+		if (buffer == null)
+			buffer = ByteBuffer.allocateDirect(MIN_CLASS_SIZE << index);
+		else
+			retained[index].decrementAndGet();
+
+		buffer.clear().limit(size);
+		return buffer;
+	}
+
+	/**
+	 * Hands a buffer back to the pool. It must not be used afterwards, nor any view of it.
+	 * @param buffer a buffer from {@link #acquire(int)}.
+	 */
+	void release(ByteBuffer buffer)
+	{
+		int index = classOf(buffer.capacity());
+		if (index < 0 || MIN_CLASS_SIZE << index != buffer.capacity())
+			return;
+		if (retained[index].incrementAndGet() * (long) buffer.capacity() > RETAINED_BYTES)
+		{
+			retained[index].decrementAndGet();
+			return;
+		}
+		classes[index].add(buffer);
+	}
+
+	/**
+	 * @return the index of the smallest class holding {@code size} bytes, or {@code -1} if none does.
+	 */
+	private static int classOf(int size)
+	{
+		if (size > MAX_CLASS_SIZE)
+			return -1;
+		int rounded = Math.max(MIN_CLASS_SIZE, Integer.highestOneBit(Math.max(1, size - 1)) << 1);
+		return Integer.numberOfTrailingZeros(rounded) - Integer.numberOfTrailingZeros(MIN_CLASS_SIZE);
+	}
+}
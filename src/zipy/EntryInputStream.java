@@ -0,0 +1,131 @@
+package zipy;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipException;
+
+/**
+ * The stream returned by {@link IReader#openEntry(String)}. It reads the data of a single entry
+ * and closes whatever was opened to reach it, such as the archive itself, once it is closed.
+ * When the stored CRC-32 of the entry is known it is checked as soon as the end is reached.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+final class EntryInputStream extends FilterInputStream
+{
+	private final Closeable[] resources;
+	private final CRC32 crc;
+	private final long expectedCrc;
+	private boolean closed;
+
+	/**
+	 * @param in the entry data.
+	 * @param resources closed after {@code in}, in order.
+	 */
+	EntryInputStream(InputStream in, Closeable... resources)
+	{
+		this(in, -1, resources);
+	}
+
+	/**
+	 * @param in the entry data.
+	 * @param expectedCrc the CRC-32 the data must have, or {@code -1} to skip the check.
+	 * @param resources closed after {@code in}, in order.
+	 */
+	EntryInputStream(InputStream in, long expectedCrc, Closeable... resources)
+	{
+		super(in);
+		this.resources = resources;
+		this.expectedCrc = expectedCrc;
+		this.crc = expectedCrc != -1 ? new CRC32() : null;
+	}
+
+	@Override
+	public int read() throws IOException
+	{
+		int value = in.read();
+		if (value == -1)
+			verify();
+		else if (crc != null)
+			crc.update(value);
+		return value;
+	}
+
+	@Override
+	public int read(byte[] bytes, int offset, int length) throws IOException
+	{
+		int count = in.read(bytes, offset, length);
+		if (count == -1)
+			verify();
+		else if (crc != null)
+			crc.update(bytes, offset, count);
+		return count;
+	}
+
+	@Override
+	public long skip(long count) throws IOException
+	{
+		if (crc == null)
+			return in.skip(count);
+
+		// Skipped bytes still have to go through the checksum.
+		byte[] buffer = BufferPool.acquire();
+		long skipped = 0;
+		try {
+			while (skipped < count)
+			{
+				int read = read(buffer, 0, (int) Math.min(buffer.length, count - skipped));
+				if (read == -1)
+					break;
+				skipped += read;
+			}
+		} finally {
+			BufferPool.release(buffer);
+		}
+		return skipped;
+	}
+
+	@Override
+	public boolean markSupported()
+	{
+		return false;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		if (closed)
+			return;
+
+		closed = true;
+		IOException failure = null;
+		try {
+			in.close();
+		} catch (IOException e) {
+			failure = e;
+		}
+
+		for (Closeable resource : resources)
+		{
+			try {
+				resource.close();
+			} catch (IOException e) {
+				if (failure == null)
+					failure = e;
+			}
+		}
+
+		if (failure != null)
+			throw failure;
+	}
+
+	private void verify() throws IOException
+	{
+		if (crc != null && crc.getValue() != expectedCrc)
+			throw new ZipException("CRC mismatch.");
+	}
+}
@@ -0,0 +1,66 @@
+package zipy;
+
+import java.io.File;
+import java.time.Duration;
+
+/**
+ * The outcome of a finished extraction started with {@link Zipy#extractAsync(File, File)}.
+ * A failed extraction completes its future exceptionally instead, so a result always means
+ * every entry was written.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+public final class ExtractionResult
+{
+	private final File archive;
+	private final File destination;
+	private final int entryCount;
+	private final Duration elapsed;
+
+	public ExtractionResult(File archive, File destination, int entryCount, Duration elapsed)
+	{
+		this.archive = archive;
+		this.destination = destination;
+		this.entryCount = entryCount;
+		this.elapsed = elapsed;
+	}
+
+	/**
+	 * @return the archive that was extracted.
+	 */
+	public File getArchive()
+	{
+		return archive;
+	}
+
+	/**
+	 * @return the folder the entries were written to.
+	 */
+	public File getDestination()
+	{
+		return destination;
+	}
+
+	/**
+	 * @return the amount of entries in the archive, including directories.
+	 */
+	public int getEntryCount()
+	{
+		return entryCount;
+	}
+
+	/**
+	 * @return how long the extraction took, from the moment it started running.
+	 */
+	public Duration getElapsed()
+	{
+		return elapsed;
+	}
+
+	@Override
+	public String toString()
+	{
+		return archive + " -> " + destination + " (" + entryCount + " entries in " + elapsed.toMillis() + " ms)";
+	}
+}
@@ -1,6 +1,8 @@
 package zipy;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 
 
@@ -43,4 +45,47 @@ public interface IReader
 	 * @return the amount of items found in the archive.
 	 */
 	public int getNumberOfItemsInArchive() throws IOException;
+	
+	/**
+	 * Returns the index of every entry in the archive. The headers are only read the first time,
+	 * after which the index is served from the {@link ArchiveIndexCache} until the archive changes.
+	 * @throws IOException when a fatal error occurs.
+	 * @return {@link ArchiveIndex} the index of the archive.
+	 */
+	public ArchiveIndex getIndex() throws IOException;
+	
+	/**
+	 * Writes the contents of a single entry to the stream. Only that entry is decompressed, as far
+	 * as the format allows.
+	 * @param name the full name of the entry inside the archive.
+	 * @param out the stream the contents are written to, it is not closed.
+	 * @throws IOException when a fatal error occurs.
+	 * @return {@code true} if the entry was written and {@code false} if the archive has no file
+	 * 		   with that name.
+	 */
+	public boolean extractEntry(String name, OutputStream out) throws IOException;
+	
+	/**
+	 * Opens a stream over the contents of a single entry, which is decompressed as it is read.
+	 * The archive stays open until the stream is closed.
+	 * @param name the full name of the entry inside the archive.
+	 * @throws java.io.FileNotFoundException when the archive has no file with that name.
+	 * @throws IOException when a fatal error occurs.
+	 * @return {@link InputStream} the contents of the entry.
+	 */
+	public InputStream openEntry(String name) throws IOException;
+	
+	/**
+	 * Extracts every file into memory instead of the outputPath, for archives small enough to be
+	 * held whole. The contents are kept off the heap, in buffers handed back when the result is closed.
+	 * @throws IOException when a fatal error occurs.
+	 * @return {@link InMemoryExtraction} the contents of every file, which must be closed.
+	 */
+	public InMemoryExtraction extractToMemory() throws IOException;
+	
+	/**
+	 * Registers a listener that is told about every entry and the bytes handled while extracting.
+	 * @param listener the listener, or {@code null} to remove it.
+	 */
+	public void setProgressListener(ArchiveProgressListener listener);
 }
\ No newline at end of file
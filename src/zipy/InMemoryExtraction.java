@@ -0,0 +1,221 @@
+package zipy;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The files of an archive extracted into memory by {@link IReader#extractToMemory()}, for archives
+ * small enough that writing them to the disk would only be a round trip. Every file is held in a
+ * read-only direct buffer taken from a shared pool of size classes, so large contents stay off the
+ * heap and the memory is reused by the next extraction once this one is closed.
+ * <p>
+ * The buffers must not be used after {@link #close()}, as they are handed to other extractions.
+ * Directories aren't kept, and when several entries have the same name the last one wins.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+public final class InMemoryExtraction implements Closeable
+{
+	private final DirectBufferPool pool = DirectBufferPool.shared();
+	private final Map<String, ByteBuffer> entries = new LinkedHashMap<>();
+	private final Map<String, ByteBuffer> pooled = new LinkedHashMap<>();
+	private boolean closed;
+
+	InMemoryExtraction() {}
+
+	/**
+	 * @return every file in the archive mapped to a read-only buffer of its contents, in the order
+	 * 		   they are stored. The buffers share their position with every other caller, use
+	 * 		   {@link #get(String)} for a buffer of your own.
+	 * @throws IllegalStateException if the extraction was closed.
+	 */
+	public Map<String, ByteBuffer> getEntries()
+	{
+		checkOpen();
+		return Collections.unmodifiableMap(entries);
+	}
+
+	/**
+	 * @param name the full name of the entry inside the archive.
+	 * @return a new read-only buffer over the contents of the entry, positioned at its start, or
+	 * 		   {@code null} if the archive has no file with that name.
+	 * @throws IllegalStateException if the extraction was closed.
+	 */
+	public ByteBuffer get(String name)
+	{
+		checkOpen();
+		ByteBuffer buffer = entries.get(name);
+		return buffer != null ? buffer.duplicate() : null;
+	}
+
+	/**
+	 * @return the amount of files held.
+	 */
+	public int size()
+	{
+		return entries.size();
+	}
+
+	/**
+	 * Hands every buffer back to the pool.
+	 */
+	@Override
+	public void close()
+	{
+		if (closed)
+			return;
+		closed = true;
+		for (ByteBuffer buffer : pooled.values())
+			pool.release(buffer);
+		pooled.clear();
+		entries.clear();
+	}
+
+	/**
+	 * Reads an entry to its end. An entry that can't be read to its end isn't stored, and its
+	 * buffer goes straight back to the pool.
+	 * @param name the full name of the entry.
+	 * @param size the uncompressed size, or {@code -1} if it isn't known.
+	 * @param in the contents of the entry, it is not closed.
+	 */
+	void add(String name, long size, InputStream in) throws IOException
+	{
+		EntryOutputStream out = open(name, size);
+		byte[] buffer = BufferPool.acquire();
+		try {
+			int read;
+			while ((read = in.read(buffer)) != -1)
+				out.write(buffer, 0, read);
+		} catch (Throwable e) {
+			out.discard();
+			throw e;
+		} finally {
+			BufferPool.release(buffer);
+		}
+		out.close();
+	}
+
+	/**
+	 * Stores a copy of an entry already extracted under another name, for tar hard links.
+	 * @return {@code false} if there is no entry named {@code from}.
+	 */
+	boolean copy(String name, String from) throws IOException
+	{
+		ByteBuffer source = entries.get(from);
+		if (source == null)
+			return false;
+
+		ByteBuffer buffer = pool.acquire(source.remaining());
+		buffer.put(source.duplicate()).flip();
+		store(name, buffer);
+		return true;
+	}
+
+	/**
+	 * Opens a stream that stores an entry once it is closed, for libraries that write the contents
+	 * of an entry rather than handing out a stream of it.
+	 * @param name the full name of the entry.
+	 * @param size the uncompressed size, or {@code -1} if it isn't known.
+	 */
+	OutputStream newEntry(String name, long size) throws IOException
+	{
+		return open(name, size);
+	}
+
+	private EntryOutputStream open(String name, long size) throws IOException
+	{
+		checkOpen();
+		if (size > Integer.MAX_VALUE)
+			throw new IOException(name + " is too large to be extracted into memory.");
+		return new EntryOutputStream(name, size < 0 ? DirectBufferPool.MIN_CLASS_SIZE : (int) size);
+	}
+
+	private void store(String name, ByteBuffer buffer)
+	{
+		ByteBuffer replaced = pooled.put(name, buffer);
+		if (replaced != null)
+			pool.release(replaced);
+		entries.put(name, buffer.asReadOnlyBuffer());
+	}
+
+	private void checkOpen()
+	{
+		if (closed)
+			throw new IllegalStateException("The extraction was closed.");
+	}
+
+	/**
+	 * Writes into a pooled buffer, moving to a buffer of the next size class when it fills up.
+	 */
+	private final class EntryOutputStream extends OutputStream
+	{
+		private final String name;
+		private ByteBuffer buffer;
+
+		EntryOutputStream(String name, int size)
+		{
+			this.name = name;
+			this.buffer = pool.acquire(size);
+			buffer.limit(buffer.capacity());
+		}
+
+		@Override
+		public void write(int b) throws IOException
+		{
+			ensureRemaining(1);
+			buffer.put((byte) b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException
+		{
+			ensureRemaining(len);
+			buffer.put(b, off, len);
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			if (buffer == null)
+				return;
+			buffer.flip();
+			store(name, buffer);
+			buffer = null;
+		}
+
+		/**
+		 * Hands the buffer back to the pool without storing the entry.
+		 */
+		void discard()
+		{
+			if (buffer == null)
+				return;
+			pool.release(buffer);
+			buffer = null;
+		}
+
+		private void ensureRemaining(int count) throws IOException
+		{
+			if (buffer.remaining() >= count)
+				return;
+
+			long needed = (long) buffer.position() + count;
+			if (needed > Integer.MAX_VALUE)
+				throw new IOException(name + " is too large to be extracted into memory.");
+
+			ByteBuffer grown = pool.acquire((int) Math.min(Integer.MAX_VALUE, Math.max(needed, 2L * buffer.capacity())));
+			grown.limit(grown.capacity());
+			buffer.flip();
+			grown.put(buffer);
+			pool.release(buffer);
+			buffer = grown;
+		}
+	}
+}
@@ -0,0 +1,446 @@
+package zipy;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * A gzip {@link InputStream} that reads every member of the input, and inflates members on
+ * several threads when it can tell where they end without inflating them. That is the case for
+ * BGZF files ({@code BC} subfield) and for files written by {@link ParallelGzipOutputStream}
+ * ({@code ZY} subfield). Members without a size are inflated on the reading thread as they
+ * are read, so a plain single-member .gz file is streamed just like {@code GZIPInputStream}
+ * would.
+ * <p>
+ * The sizes in a header and trailer are only trusted so far: a member claiming more than
+ * {@value #MAX_MEMBER_SIZE} bytes is inflated on the reading thread as if it had no size, and the
+ * output of a member grows as it is inflated instead of being allocated from its trailer at once.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+public final class ParallelGzipInputStream extends InputStream
+{
+	private static final int BUFFER_SIZE = 64 * 1024;
+	/** The largest compressed member read into memory to be inflated on a worker. */
+	static final int MAX_MEMBER_SIZE = 16 * 1024 * 1024;
+	/** The most output allocated for a member before any of it is inflated. */
+	private static final int MAX_INITIAL_OUTPUT = 4 * 1024 * 1024;
+	/** The largest array the JVM reliably allocates. */
+	private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+	private static final int FHCRC = 2;
+	private static final int FEXTRA = 4;
+	private static final int FNAME = 8;
+	private static final int FCOMMENT = 16;
+
+	private final InputStream in;
+	private final ExecutorService executor;
+	private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+	private final int maxPending;
+
+	private final byte[] input = new byte[BUFFER_SIZE];
+	private int inputPosition;
+	private int inputLimit;
+
+	private byte[] chunk = new byte[0];
+	private int chunkPosition;
+
+	private Inflater inflater;
+	private final CRC32 crc = new CRC32();
+	private int inflatedLength;
+
+	private boolean inlineMember;
+	private boolean endOfInput;
+	private boolean closed;
+
+	/**
+	 * Creates a stream that inflates sized members on every available core.
+	 * @param in the gzip data.
+	 */
+	public ParallelGzipInputStream(InputStream in) throws IOException
+	{
+		this(in, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param in the gzip data.
+	 * @param threads the amount of threads inflating sized members.
+	 * @throws IOException if the input doesn't start with a gzip member.
+	 */
+	public ParallelGzipInputStream(InputStream in, int threads) throws IOException
+	{
+		this.in = in;
+		this.maxPending = Math.max(1, threads) * 2;
+		this.executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+			Thread thread = new Thread(runnable, "zipy-gunzip");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		if (!readAhead())
+			throw new ZipException("Not in gzip format.");
+	}
+
+	@Override
+	public int read() throws IOException
+	{
+		byte[] single = new byte[1];
+		return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] bytes, int offset, int length) throws IOException
+	{
+		if (closed)
+			throw new IOException("Stream closed.");
+		if (length == 0)
+			return 0;
+
+		while (true)
+		{
+			if (chunkPosition < chunk.length)
+			{
+				int count = Math.min(length, chunk.length - chunkPosition);
+				System.arraycopy(chunk, chunkPosition, bytes, offset, count);
+				chunkPosition += count;
+				return count;
+			}
+
+			if (!pending.isEmpty())
+			{
+				chunk = await(pending.poll());
+				chunkPosition = 0;
+				readAhead();
+				continue;
+			}
+
+			if (inlineMember)
+			{
+				int count = inflateInline(bytes, offset, length);
+				if (count > 0)
+					return count;
+				readAhead();
+				continue;
+			}
+
+			return -1;
+		}
+	}
+
+	@Override
+	public int available() throws IOException
+	{
+		return chunk.length - chunkPosition;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		if (closed)
+			return;
+
+		closed = true;
+		for (Future<byte[]> future : pending)
+			future.cancel(true);
+		executor.shutdownNow();
+		if (inflater != null)
+			inflater.end();
+		in.close();
+	}
+
+	/**
+	 * Reads member headers and queues sized members until the queue is full, the end of the
+	 * input is reached, or a member without a size or too large to hold shows up. That member is
+	 * only started once every member before it has been read.
+	 * @return {@code true} if at least one member was found.
+	 */
+	private boolean readAhead() throws IOException
+	{
+		boolean found = false;
+
+		while (!endOfInput && !inlineMember && pending.size() < maxPending)
+		{
+			long memberSize = readHeader();
+			if (memberSize == -1)
+			{
+				endOfInput = true;
+				break;
+			}
+
+			found = true;
+			if (memberSize == 0 || memberSize > MAX_MEMBER_SIZE)
+			{
+				startInline();
+				break;
+			}
+
+			byte[] member = new byte[(int) memberSize];
+			readFully(member, 0, member.length);
+			pending.add(executor.submit(() -> inflateMember(member)));
+		}
+
+		return found || !pending.isEmpty() || inlineMember;
+	}
+
+	/**
+	 * Reads the header of the next member.
+	 * @return the amount of bytes left in the member after its header, 0 if the member doesn't
+	 * 		   say how long it is, or -1 at the end of the input.
+	 */
+	private long readHeader() throws IOException
+	{
+		int id1 = readByte();
+		if (id1 == -1)
+			return -1;
+		int id2 = readByte();
+		if (id1 != 0x1f || id2 != 0x8b)
+			return -1;		// trailing padding or garbage, gzip ignores it too
+
+		if (readByte() != 8)
+			throw new ZipException("Unsupported gzip compression method.");
+
+		int flags = readByte();
+		skip(6);	// MTIME, XFL, OS
+		int headerSize = 10;
+		long memberSize = 0;
+
+		if ((flags & FEXTRA) != 0)
+		{
+			int extraLength = readShort();
+			headerSize += 2 + extraLength;
+
+			while (extraLength >= 4)
+			{
+				int si1 = readByte();
+				int si2 = readByte();
+				int fieldLength = readShort();
+				extraLength -= 4;
+
+				if (si1 == 'B' && si2 == 'C' && fieldLength == 2)
+					memberSize = readShort() + 1;
+				else if (si1 == ParallelGzipOutputStream.SUBFIELD_ID1 && si2 == ParallelGzipOutputStream.SUBFIELD_ID2 && fieldLength == 4)
+					memberSize = readInt() & 0xffffffffL;
+				else
+					skip(fieldLength);
+
+				extraLength -= fieldLength;
+			}
+			skip(extraLength);
+		}
+
+		if ((flags & FNAME) != 0)
+			headerSize += skipString();
+		if ((flags & FCOMMENT) != 0)
+			headerSize += skipString();
+		if ((flags & FHCRC) != 0)
+		{
+			skip(2);
+			headerSize += 2;
+		}
+
+		if (memberSize == 0)
+			return 0;
+		if (memberSize < headerSize + ParallelGzipOutputStream.TRAILER_SIZE)
+			throw new ZipException("Corrupt gzip member size.");
+		return memberSize - headerSize;
+	}
+
+	/**
+	 * Inflates the deflate data and trailer of one member, on a worker thread.
+	 */
+	private static byte[] inflateMember(byte[] member) throws IOException
+	{
+		int dataLength = member.length - ParallelGzipOutputStream.TRAILER_SIZE;
+		long expectedCrc = readInt(member, dataLength) & 0xffffffffL;
+		int expectedSize = readInt(member, dataLength + 4);
+		// The output can't be longer than the trailer says, nor than an array can hold.
+		long limit = Math.min(expectedSize & 0xffffffffL, MAX_ARRAY_SIZE);
+
+		byte[] output = new byte[(int) Math.min(limit, MAX_INITIAL_OUTPUT)];
+		int length = 0;
+		Inflater inflater = new Inflater(true);
+
+		try {
+			// The first trailer byte doubles as the extra input byte a raw inflater may ask for.
+			inflater.setInput(member, 0, dataLength + 1);
+			while (!inflater.finished())
+			{
+				if (length == limit)
+				{
+					if (inflater.inflate(new byte[1]) > 0)
+						throw new ZipException("Corrupt gzip member, or too large to inflate in memory.");
+					if (inflater.needsInput() || inflater.needsDictionary())
+						throw new EOFException("Truncated gzip member.");
+					continue;
+				}
+				if (length == output.length)
+					output = Arrays.copyOf(output, (int) Math.min(limit, Math.max(BUFFER_SIZE, output.length * 2L)));
+
+				int count = inflater.inflate(output, length, output.length - length);
+				if (count == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+					throw new EOFException("Truncated gzip member.");
+				length += count;
+			}
+		} catch (DataFormatException e) {
+			throw new ZipException(e.getMessage());
+		} finally {
+			inflater.end();
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(output, 0, length);
+		if (crc.getValue() != expectedCrc || length != expectedSize)
+			throw new ZipException("Corrupt gzip member.");
+
+		return length == output.length ? output : Arrays.copyOf(output, length);
+	}
+
+	private void startInline()
+	{
+		if (inflater == null)
+			inflater = new Inflater(true);
+		inflater.reset();
+		crc.reset();
+		inflatedLength = 0;
+		inlineMember = true;
+	}
+
+	/**
+	 * Inflates the current unsized member straight from the input.
+	 * @return the amount of bytes inflated, 0 once the member and its trailer are done.
+	 */
+	private int inflateInline(byte[] bytes, int offset, int length) throws IOException
+	{
+		try {
+			while (!inflater.finished())
+			{
+				if (inflater.needsInput())
+				{
+					if (!fill())
+						throw new EOFException("Unexpected end of gzip data.");
+					inflater.setInput(input, inputPosition, inputLimit - inputPosition);
+					inputPosition = inputLimit;
+				}
+
+				int count = inflater.inflate(bytes, offset, length);
+				if (count > 0)
+				{
+					crc.update(bytes, offset, count);
+					inflatedLength += count;
+					return count;
+				}
+				if (inflater.needsDictionary())
+					throw new ZipException("Corrupt gzip data.");
+			}
+		} catch (DataFormatException e) {
+			throw new ZipException(e.getMessage());
+		}
+
+		// Hand whatever the inflater didn't use back to the input buffer, it holds the trailer.
+		inputPosition -= inflater.getRemaining();
+		long expectedCrc = readInt() & 0xffffffffL;
+		int expectedSize = readInt();
+		if (crc.getValue() != expectedCrc || inflatedLength != expectedSize)
+			throw new ZipException("Corrupt gzip member.");
+
+		inlineMember = false;
+		return 0;
+	}
+
+	private byte[] await(Future<byte[]> future) throws IOException
+	{
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new IOException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Decompression interrupted.", e);
+		}
+	}
+
+	private boolean fill() throws IOException
+	{
+		if (inputPosition < inputLimit)
+			return true;
+
+		int count = in.read(input, 0, input.length);
+		if (count <= 0)
+			return false;
+
+		inputPosition = 0;
+		inputLimit = count;
+		return true;
+	}
+
+	private int readByte() throws IOException
+	{
+		return fill() ? input[inputPosition++] & 0xff : -1;
+	}
+
+	private int readShort() throws IOException
+	{
+		return readRequiredByte() | readRequiredByte() << 8;
+	}
+
+	private int readInt() throws IOException
+	{
+		return readShort() | readShort() << 16;
+	}
+
+	private int readRequiredByte() throws IOException
+	{
+		int value = readByte();
+		if (value == -1)
+			throw new EOFException("Unexpected end of gzip data.");
+		return value;
+	}
+
+	private void readFully(byte[] bytes, int offset, int length) throws IOException
+	{
+		while (length > 0)
+		{
+			if (!fill())
+				throw new EOFException("Unexpected end of gzip data.");
+
+			int count = Math.min(length, inputLimit - inputPosition);
+			System.arraycopy(input, inputPosition, bytes, offset, count);
+			inputPosition += count;
+			offset += count;
+			length -= count;
+		}
+	}
+
+	private void skip(int count) throws IOException
+	{
+		for (int i = 0; i < count; i++)
+			readRequiredByte();
+	}
+
+	private int skipString() throws IOException
+	{
+		int count = 1;
+		while (readRequiredByte() != 0)
+			count++;
+		return count;
+	}
+
+	private static int readInt(byte[] bytes, int offset)
+	{
+		return (bytes[offset] & 0xff) | (bytes[offset + 1] & 0xff) << 8
+			 | (bytes[offset + 2] & 0xff) << 16 | (bytes[offset + 3] & 0xff) << 24;
+	}
+}
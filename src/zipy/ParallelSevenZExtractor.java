@@ -0,0 +1,186 @@
+package zipy;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.compress.archivers.sevenz.SevenZArchiveEntry;
+import org.apache.commons.compress.archivers.sevenz.SevenZFile;
+
+/**
+ * Extracts a .7z file on several threads at once. The entries are cut into contiguous ranges of
+ * roughly the same uncompressed size, and every worker decodes its own range through its own
+ * {@link SevenZFile}, so independent blocks are decoded side by side while the entries of a solid
+ * block are still decoded in order.
+ * <p>
+ * The Apache Commons library doesn't tell which block (folder) an entry belongs to, so a range can
+ * start in the middle of a solid block. The worker then decodes the start of that block once to
+ * skip over it, which is the only work done twice. Non-solid archives never pay that cost.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+final class ParallelSevenZExtractor
+{
+	private final ArchiveSource source;
+	private final File outputDir;
+	private final int bufferSize;
+	private final ProgressTracker progress;
+
+	/**
+	 * @param progress told about every entry, may be {@code null}.
+	 */
+	ParallelSevenZExtractor(ArchiveSource source, File outputDir, int bufferSize, ProgressTracker progress)
+	{
+		this.source = source;
+		this.outputDir = outputDir;
+		this.bufferSize = bufferSize;
+		this.progress = progress;
+	}
+
+	/**
+	 * Extracts every file entry using up to {@code parallelism} tasks on the given executor.
+	 * The executor is not shut down.
+	 * @param executor the executor the workers are submitted to.
+	 * @param parallelism the amount of ranges the entries are cut into.
+	 * @return {@code true} if every entry was extracted, {@code false} if any worker failed,
+	 * 		   in which case the output folder is removed.
+	 * @throws IOException when the archive headers can't be read.
+	 */
+	boolean extract(ExecutorService executor, int parallelism) throws IOException
+	{
+		List<Long> sizes = new ArrayList<>();
+		long total = 0;
+
+		try (SevenZFile sevenZFile = open(false)) {
+			for (SevenZArchiveEntry entry : sevenZFile.getEntries())
+			{
+				long size = entry.hasStream() ? entry.getSize() : 0;
+				sizes.add(size);
+				total += size;
+			}
+		}
+
+		if (progress != null)
+			progress.started(total);
+
+		WorkerGroup workers = new WorkerGroup(executor);
+		for (int[] range : split(sizes, total, Math.max(1, parallelism)))
+			workers.submit(failed -> extractRange(range[0], range[1], failed));
+
+		boolean extracted = false;
+		try {
+			extracted = workers.await();
+		} finally {
+			// Every worker has stopped by now, so nothing writes into the folder while it is removed.
+			if (!extracted)
+			{
+				if (progress != null)
+					progress.failed();
+				Zipy.deleteDirectory(outputDir);
+			}
+		}
+		if (!extracted)
+			return false;
+
+		if (progress != null)
+			progress.finished();
+		return true;
+	}
+
+	/**
+	 * Cuts the entries into at most {@code parts} contiguous ranges with about the same amount of
+	 * uncompressed data in each.
+	 */
+	private static List<int[]> split(List<Long> sizes, long total, int parts)
+	{
+		List<int[]> ranges = new ArrayList<>();
+		long target = Math.max(1, (total + parts - 1) / parts);
+		long filled = 0;
+		int start = 0;
+
+		for (int i = 0; i < sizes.size(); i++)
+		{
+			filled += sizes.get(i);
+			if (filled >= target && ranges.size() < parts - 1)
+			{
+				ranges.add(new int[] { start, i + 1 });
+				start = i + 1;
+				filled = 0;
+			}
+		}
+
+		if (start < sizes.size())
+			ranges.add(new int[] { start, sizes.size() });
+		return ranges;
+	}
+
+	private void extractRange(int start, int end, AtomicBoolean failed) throws IOException
+	{
+		byte[] buffer = BufferPool.acquire(bufferSize);
+
+		try (SevenZFile sevenZFile = open(true)) {
+			List<SevenZArchiveEntry> entries = new ArrayList<>();
+			for (SevenZArchiveEntry entry : sevenZFile.getEntries())
+				entries.add(entry);
+
+			// Jump straight to the first entry of the range, the rest is read sequentially.
+			SevenZArchiveEntry entry = entries.get(start);
+			sevenZFile.getInputStream(entry);
+
+			for (int index = start; index < end && !failed.get(); index++)
+			{
+				if (index > start)
+					entry = sevenZFile.getNextEntry();
+				if (Thread.currentThread().isInterrupted())
+					throw new IOException("Extraction interrupted.");
+				if (entry.isDirectory())
+					continue;
+
+				File outFile = new File(outputDir, entry.getName());
+				File parent = outFile.getParentFile();
+				if (parent != null && !parent.exists())
+					parent.mkdirs();
+
+				if (progress != null)
+					progress.entryStarted(entry.getName(), entry.getSize());
+
+				try (FileOutputStream out = new FileOutputStream(outFile)) {
+					int read;
+					while ((read = sevenZFile.read(buffer)) != -1)
+					{
+						out.write(buffer, 0, read);
+						if (progress != null)
+							progress.add(0, read);
+					}
+				}
+
+				if (progress != null)
+					progress.entryFinished(entry.getName(), entry.getSize());
+			}
+		} finally {
+			BufferPool.release(buffer);
+		}
+	}
+
+	/**
+	 * @param counted whether the bytes read from the archive count as progress.
+	 */
+	private SevenZFile open(boolean counted) throws IOException
+	{
+		SeekableByteChannel channel = source.openChannel();
+		if (counted && progress != null)
+			channel = progress.countReads(channel);
+		try {
+			return SevenZFile.builder().setSeekableByteChannel(channel).get();
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,364 @@
+package zipy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Deflater;
+
+import org.apache.commons.compress.archivers.zip.Zip64Mode;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.io.input.BoundedInputStream;
+
+/**
+ * Creates a .zip file by deflating its entries on several threads. Every file is compressed
+ * on its own into a scatter buffer (kept in memory, or spilled to a temporary file once it gets
+ * large), and a single writer gathers those buffers in directory order and copies them raw into
+ * the archive. The entry order is the same no matter how many threads are used.
+ * <p>
+ * Files that don't get smaller when deflated are stored instead. With deduplication on, files with
+ * the same content are deflated once, and every copy gets its own entry with those same bytes.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+final class ParallelZipCreator
+{
+	private static final int SPILL_THRESHOLD = 4 * 1024 * 1024;
+	private static final Future<Scattered> DIRECTORY = CompletableFuture.completedFuture(null);
+	private static final Future<Scattered> DUPLICATE = CompletableFuture.completedFuture(null);
+
+	private final int threads;
+	private final int level;
+	private final ProgressTracker progress;
+	private final boolean deduplicate;
+
+	/**
+	 * @param progress told about every entry, may be {@code null}.
+	 * @param deduplicate whether files with the same content are only deflated once.
+	 */
+	ParallelZipCreator(int threads, int level, ProgressTracker progress, boolean deduplicate)
+	{
+		this.threads = Math.max(1, threads);
+		this.level = level;
+		this.progress = progress;
+		this.deduplicate = deduplicate;
+	}
+
+	/**
+	 * Creates the archive. Directories are added the same way Zip4J's {@code addFolder} does,
+	 * with the folder itself as the root of every entry name.
+	 * @param fileToZip the file or directory to zip.
+	 * @param zippedFile the file where the archive will be created.
+	 * @throws IOException when a file can't be read or the archive can't be written.
+	 */
+	void create(File fileToZip, File zippedFile) throws IOException
+	{
+		List<File> files = new ArrayList<>();
+		List<String> names = new ArrayList<>();
+		collect(fileToZip, fileToZip.getName(), files, names, new HashSet<>());
+
+		if (progress != null)
+		{
+			long total = 0;
+			for (File file : files)
+				total += file.isDirectory() ? 0 : file.length();
+			progress.started(total);
+		}
+
+		// Every duplicate points at the first file with its content, which keeps its deflated
+		// bytes until the last copy is written.
+		Map<File, File> duplicates = new HashMap<>();
+		Map<File, Integer> copiesLeft = new HashMap<>();
+		Map<File, Scattered> shared = new HashMap<>();
+		if (deduplicate)
+		{
+			List<Path> regular = new ArrayList<>();
+			for (File file : files)
+			{
+				if (!file.isDirectory())
+					regular.add(file.toPath());
+			}
+			for (Map.Entry<Path, Path> duplicate : ContentDeduplicator.findDuplicates(regular, threads).entrySet())
+			{
+				duplicates.put(duplicate.getKey().toFile(), duplicate.getValue().toFile());
+				copiesLeft.merge(duplicate.getValue().toFile(), 1, Integer::sum);
+			}
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		Deque<Future<Scattered>> pending = new ArrayDeque<>();
+		int window = threads * 4;
+		int submitted = 0;
+
+		try (ZipArchiveOutputStream zos = new ZipArchiveOutputStream(zippedFile)) {
+			zos.setUseZip64(Zip64Mode.AsNeeded);
+
+			for (int i = 0; i < files.size(); i++)
+			{
+				while (submitted < files.size() && pending.size() < window)
+				{
+					File next = files.get(submitted++);
+					pending.add(next.isDirectory() ? DIRECTORY
+												   : duplicates.containsKey(next) ? DUPLICATE : executor.submit(() -> deflate(next)));
+				}
+
+				File file = files.get(i);
+				ZipArchiveEntry entry = new ZipArchiveEntry(names.get(i));
+				entry.setTime(file.lastModified());
+				Future<Scattered> future = pending.poll();
+
+				if (future == DIRECTORY)
+				{
+					zos.putArchiveEntry(entry);
+					zos.closeArchiveEntry();
+					continue;
+				}
+
+				if (progress != null)
+					progress.entryStarted(entry.getName(), file.length());
+
+				File original = duplicates.getOrDefault(file, file);
+				Scattered scattered = future == DUPLICATE ? shared.get(original) : await(future);
+				try {
+					entry.setSize(scattered.size);
+					entry.setCrc(scattered.crc);
+
+					if (scattered.stored)
+					{
+						entry.setMethod(ZipArchiveEntry.STORED);
+						entry.setCompressedSize(scattered.size);
+						addStored(zos, entry, file, scattered);
+					}
+					else
+					{
+						entry.setMethod(ZipArchiveEntry.DEFLATED);
+						entry.setCompressedSize(scattered.compressedSize);
+						try (InputStream in = scattered.open()) {
+							zos.addRawArchiveEntry(entry, in);
+						}
+					}
+
+					if (progress != null)
+					{
+						progress.add(entry.getSize(), entry.getCompressedSize());
+						progress.entryFinished(entry.getName(), entry.getSize(), entry.getCompressedSize());
+					}
+				} finally {
+					int left = copiesLeft.getOrDefault(original, 0);
+					if (future != DUPLICATE && left > 0)
+						shared.put(original, scattered);
+					else if (future == DUPLICATE && left > 1)
+						copiesLeft.put(original, left - 1);
+					else
+					{
+						shared.remove(original);
+						scattered.close();
+					}
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			// The archive is closed by now, and with an entry missing or wrong it is of no use.
+			Files.deleteIfExists(zippedFile.toPath());
+			throw e;
+		} finally {
+			for (Future<Scattered> future : pending)
+				future.cancel(true);
+			for (Scattered scattered : shared.values())
+				scattered.close();
+			executor.shutdownNow();
+		}
+
+		if (progress != null)
+			progress.finished();
+	}
+
+	private static Scattered await(Future<Scattered> future) throws IOException
+	{
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new IOException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Archive creation interrupted.", e);
+		}
+	}
+
+	/**
+	 * A stored entry is read from the file a second time, after its size and CRC were written
+	 * into the header. If the file changed in between the entry would no longer match its header,
+	 * so the copy is cut at the known size and checked again.
+	 * @throws IOException if the file isn't the one that was read before.
+	 */
+	private static void addStored(ZipArchiveOutputStream zos, ZipArchiveEntry entry, File file, Scattered scattered)
+			throws IOException
+	{
+		try (InputStream raw = new FileInputStream(file)) {
+			BoundedInputStream bounded = BoundedInputStream.builder().setInputStream(raw).setMaxCount(scattered.size)
+																	 .setPropagateClose(false).get();
+			CheckedInputStream in = new CheckedInputStream(bounded, new CRC32());
+			zos.addRawArchiveEntry(entry, in);
+
+			if (bounded.getCount() != scattered.size || in.getChecksum().getValue() != scattered.crc || raw.read() != -1)
+				throw new IOException(file + " changed while the archive was being created.");
+		}
+	}
+
+	private Scattered deflate(File file) throws IOException
+	{
+		Deflater deflater = new Deflater(level, true);
+		byte[] input = BufferPool.acquire();
+		byte[] output = BufferPool.acquire();
+		CRC32 crc = new CRC32();
+		Scattered scattered = new Scattered();
+
+		try (InputStream in = new FileInputStream(file)) {
+			int read;
+			while ((read = in.read(input)) != -1)
+			{
+				crc.update(input, 0, read);
+				scattered.size += read;
+				deflater.setInput(input, 0, read);
+				while (!deflater.needsInput())
+					scattered.write(output, 0, deflater.deflate(output));
+			}
+
+			deflater.finish();
+			while (!deflater.finished())
+				scattered.write(output, 0, deflater.deflate(output));
+
+			scattered.crc = crc.getValue();
+			scattered.compressedSize = deflater.getBytesWritten();
+			scattered.stored = scattered.compressedSize >= scattered.size;
+			if (scattered.stored)
+				scattered.discard();
+
+			return scattered;
+		} catch (IOException e) {
+			scattered.close();
+			throw e;
+		} finally {
+			deflater.end();
+			BufferPool.release(output);
+			BufferPool.release(input);
+		}
+	}
+
+	/**
+	 * Linked folders are followed, as Zip4J does, but a link back to a folder that is already being
+	 * walked is left out, or the walk would never end.
+	 * @param walking the real paths of the folders above {@code file}.
+	 */
+	private static void collect(File file, String name, List<File> files, List<String> names, Set<Path> walking)
+			throws IOException
+	{
+		if (!file.isDirectory())
+		{
+			files.add(file);
+			names.add(name);
+			return;
+		}
+
+		Path real = file.toPath().toRealPath();
+		if (!walking.add(real))
+			return;
+
+		files.add(file);
+		names.add(name + "/");
+
+		File[] children = file.listFiles();
+		if (children != null)
+		{
+			Arrays.sort(children);
+			for (File child : children)
+				collect(child, name + "/" + child.getName(), files, names, walking);
+		}
+		walking.remove(real);
+	}
+
+	/**
+	 * The deflated bytes of one entry. They stay in memory until they pass the spill threshold,
+	 * after which they are moved to a temporary file that is deleted once the entry is written.
+	 */
+	private static final class Scattered implements AutoCloseable
+	{
+		private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+		private File spill;
+		private OutputStream spillStream;
+
+		private long size;
+		private long compressedSize;
+		private long crc;
+		private boolean stored;
+
+		void write(byte[] bytes, int offset, int length) throws IOException
+		{
+			if (length == 0)
+				return;
+
+			if (spillStream == null && memory.size() + length > SPILL_THRESHOLD)
+			{
+				spill = File.createTempFile("zipy", ".scatter");
+				spillStream = Files.newOutputStream(spill.toPath());
+				memory.writeTo(spillStream);
+				memory = null;
+			}
+
+			if (spillStream != null)
+				spillStream.write(bytes, offset, length);
+			else
+				memory.write(bytes, offset, length);
+		}
+
+		InputStream open() throws IOException
+		{
+			if (spillStream == null)
+				return new ByteArrayInputStream(memory.toByteArray());
+
+			spillStream.close();
+			return Files.newInputStream(spill.toPath());
+		}
+
+		void discard() throws IOException
+		{
+			close();
+			memory = null;
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			if (spillStream != null)
+			{
+				spillStream.close();
+				Files.deleteIfExists(spill.toPath());
+				spillStream = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,399 @@
+package zipy;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+
+/**
+ * Extracts a .zip file on several threads at once. The central directory is read a single
+ * time, after which every worker pulls the next entry from a shared counter and inflates it
+ * through its own channel, so no two workers ever share a file position. STORED entries in a
+ * file are never copied through the heap, they are mapped and written as is.
+ * <p>
+ * The output layout matches {@link ZipReader#extractFiles()}: entries are flattened into the
+ * output folder, the first entry in the central directory wins when several share a base name,
+ * and files that already exist are left untouched.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+final class ParallelZipExtractor
+{
+	private static final int LOCAL_HEADER_SIZE = 30;
+	private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+	private static final long MAP_THRESHOLD = 256 * 1024;
+	private static final long MAP_WINDOW = 64L * 1024 * 1024;
+
+	private final ArchiveSource source;
+	private final File outputFolder;
+	private final ProgressTracker progress;
+
+	/**
+	 * @param progress told about every entry, may be {@code null}.
+	 */
+	ParallelZipExtractor(ArchiveSource source, File outputFolder, ProgressTracker progress)
+	{
+		this.source = source;
+		this.outputFolder = outputFolder;
+		this.progress = progress;
+	}
+
+	/**
+	 * Extracts every file entry on the calling thread.
+	 * @return {@code true} if every entry was extracted, {@code false} if one of them failed,
+	 * 		   in which case the output folder is removed.
+	 * @throws IOException when the central directory can't be read.
+	 */
+	boolean extract() throws IOException
+	{
+		List<ZipArchiveEntry> entries = readCentralDirectory();
+
+		try {
+			runWorker(entries, new AtomicInteger(), new AtomicBoolean());
+			if (progress != null)
+				progress.finished();
+			return true;
+		} catch (IOException e) {
+			if (progress != null)
+				progress.failed();
+			Zipy.deleteDirectory(outputFolder);
+			return false;
+		}
+	}
+
+	/**
+	 * Extracts every file entry using up to {@code parallelism} tasks on the given executor.
+	 * The executor is not shut down.
+	 * @param executor the executor the workers are submitted to.
+	 * @param parallelism the amount of workers to submit.
+	 * @return {@code true} if every entry was extracted, {@code false} if any worker failed,
+	 * 		   in which case the output folder is removed.
+	 * @throws IOException when the central directory can't be read.
+	 */
+	boolean extract(ExecutorService executor, int parallelism) throws IOException
+	{
+		List<ZipArchiveEntry> entries = readCentralDirectory();
+		AtomicInteger next = new AtomicInteger();
+		WorkerGroup workers = new WorkerGroup(executor);
+
+		int workerCount = Math.max(1, Math.min(parallelism, entries.size()));
+		for (int i = 0; i < workerCount; i++)
+			workers.submit(failed -> runWorker(entries, next, failed));
+
+		boolean extracted = false;
+		try {
+			extracted = workers.await();
+		} finally {
+			// Every worker has stopped by now, so nothing writes into the folder while it is removed.
+			if (!extracted)
+			{
+				if (progress != null)
+					progress.failed();
+				Zipy.deleteDirectory(outputFolder);
+			}
+		}
+		if (!extracted)
+			return false;
+		if (progress != null)
+			progress.finished();
+		return true;
+	}
+
+	private List<ZipArchiveEntry> readCentralDirectory() throws IOException
+	{
+		List<ZipArchiveEntry> entries = new ArrayList<>();
+
+		try (ZipFile zip = open(source)) {
+			// Entries are flattened, so the first entry in the central directory owns each name and
+			// later ones with the same base name are skipped, however the workers are scheduled.
+			Set<ZipArchiveEntry> owners = Collections.newSetFromMap(new IdentityHashMap<>());
+			Set<String> names = new HashSet<>();
+			Enumeration<ZipArchiveEntry> central = zip.getEntries();
+			while (central.hasMoreElements())
+			{
+				ZipArchiveEntry entry = central.nextElement();
+				if (!entry.isDirectory() && names.add(new File(entry.getName()).getName()))
+					owners.add(entry);
+			}
+
+			Enumeration<ZipArchiveEntry> physical = zip.getEntriesInPhysicalOrder();
+			while (physical.hasMoreElements())
+			{
+				ZipArchiveEntry entry = physical.nextElement();
+				if (!owners.contains(entry))
+					continue;
+
+				if (entry.getGeneralPurposeBit().usesEncryption())
+					throw new ZipException("Encrypted entries are not supported: " + entry.getName());
+				if (entry.getMethod() != ZipArchiveEntry.STORED && entry.getMethod() != ZipArchiveEntry.DEFLATED)
+					throw new ZipException("Unsupported compression method " + entry.getMethod() + ": " + entry.getName());
+
+				entries.add(entry);
+			}
+		}
+
+		if (progress != null)
+		{
+			long total = 0;
+			for (ZipArchiveEntry entry : entries)
+				total += entry.getSize();
+			progress.started(total);
+		}
+		return entries;
+	}
+
+	private void runWorker(List<ZipArchiveEntry> entries, AtomicInteger next, AtomicBoolean failed) throws IOException
+	{
+		byte[] input = BufferPool.acquire();
+		byte[] output = BufferPool.acquire();
+		ByteBuffer inputBuffer = ByteBuffer.wrap(input);
+		ByteBuffer outputBuffer = ByteBuffer.wrap(output);
+		Inflater inflater = new Inflater(true);
+		CRC32 crc = new CRC32();
+
+		try (SeekableByteChannel channel = source.openChannel()) {
+			int index;
+			while (!failed.get() && (index = next.getAndIncrement()) < entries.size())
+			{
+				if (Thread.currentThread().isInterrupted())
+					throw new IOException("Extraction interrupted.");
+
+				ZipArchiveEntry entry = entries.get(index);
+				File newFile = new File(outputFolder, new File(entry.getName()).getName());
+				if (progress != null)
+					progress.entryStarted(entry.getName(), entry.getSize());
+
+				try (FileChannel out = FileChannel.open(newFile.toPath(), StandardOpenOption.CREATE_NEW,
+																		  StandardOpenOption.WRITE)) {
+					long dataOffset = dataOffset(channel, entry);
+					crc.reset();
+
+					if (entry.getMethod() == ZipArchiveEntry.STORED)
+						transfer(channel, dataOffset, entry.getCompressedSize(), out, inputBuffer, crc);
+					else
+					{
+						inflater.reset();
+						inflate(channel, dataOffset, entry.getCompressedSize(), out, inflater, inputBuffer, outputBuffer, crc);
+					}
+
+					if (entry.getCrc() != -1 && crc.getValue() != entry.getCrc())
+						throw new ZipException("CRC mismatch for " + entry.getName());
+					if (progress != null)
+						progress.entryFinished(entry.getName(), entry.getSize(), entry.getCompressedSize());
+				} catch (FileAlreadyExistsException e) {
+					continue;
+				}
+			}
+		} finally {
+			inflater.end();
+			BufferPool.release(output);
+			BufferPool.release(input);
+		}
+	}
+
+	/**
+	 * Reads the central directory of an archive through a channel of its own.
+	 * @throws IOException if the archive can't be opened or isn't a zip.
+	 */
+	static ZipFile open(ArchiveSource source) throws IOException
+	{
+		SeekableByteChannel channel = source.openChannel();
+		try {
+			return ZipFile.builder().setSeekableByteChannel(channel).get();
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Reads the local file header of the entry to find where its data begins. The local name
+	 * and extra field lengths can differ from the central directory, so they must be read here.
+	 */
+	static long dataOffset(SeekableByteChannel channel, ZipArchiveEntry entry) throws IOException
+	{
+		return dataOffset(channel, entry.getLocalHeaderOffset(), entry.getName());
+	}
+
+	/**
+	 * @param localHeaderOffset where the local file header of the entry starts.
+	 * @param name the entry name, used in error messages.
+	 * @throws ZipException if there is no local header there or the entry is encrypted.
+	 */
+	static long dataOffset(SeekableByteChannel channel, long localHeaderOffset, String name) throws IOException
+	{
+		ByteBuffer header = ByteBuffer.allocate(LOCAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(channel, header, localHeaderOffset);
+
+		if (header.getInt(0) != LOCAL_HEADER_SIGNATURE)
+			throw new ZipException("Bad local file header for " + name);
+		if ((header.getShort(6) & 1) != 0)
+			throw new ZipException("Encrypted entries are not supported: " + name);
+
+		int nameLength = header.getShort(26) & 0xffff;
+		int extraLength = header.getShort(28) & 0xffff;
+		return localHeaderOffset + LOCAL_HEADER_SIZE + nameLength + extraLength;
+	}
+
+	/**
+	 * Copies a STORED entry straight from the archive to the output. Small entries go through the
+	 * worker's buffer, anything larger in a file is memory-mapped so the bytes never land on the
+	 * heap; the CRC is computed over the mapped region before the kernel writes it out.
+	 */
+	private void transfer(SeekableByteChannel channel, long position, long length, FileChannel out,
+								 ByteBuffer buffer, CRC32 crc) throws IOException
+	{
+		if (length < MAP_THRESHOLD || !(channel instanceof FileChannel))
+		{
+			copy(channel, position, length, out, buffer, crc);
+			return;
+		}
+
+		long remaining = length;
+		while (remaining > 0)
+		{
+			long window = Math.min(MAP_WINDOW, remaining);
+			MappedByteBuffer mapped = ((FileChannel) channel).map(FileChannel.MapMode.READ_ONLY, position, window);
+
+			crc.update(mapped.duplicate());
+			while (mapped.hasRemaining())
+				out.write(mapped);
+			if (progress != null)
+				progress.add(window, window);
+
+			position += window;
+			remaining -= window;
+		}
+	}
+
+	private void copy(SeekableByteChannel channel, long position, long length, FileChannel out,
+							 ByteBuffer buffer, CRC32 crc) throws IOException
+	{
+		byte[] bytes = buffer.array();
+		long remaining = length;
+
+		while (remaining > 0)
+		{
+			buffer.clear().limit((int) Math.min(bytes.length, remaining));
+			int read = read(channel, buffer, position);
+			if (read < 0)
+				throw new ZipException("Unexpected end of archive.");
+
+			crc.update(bytes, 0, read);
+			buffer.flip();
+			writeFully(out, buffer);
+			if (progress != null)
+				progress.add(read, read);
+			position += read;
+			remaining -= read;
+		}
+	}
+
+	private void inflate(SeekableByteChannel channel, long position, long length, FileChannel out, Inflater inflater,
+								ByteBuffer inputBuffer, ByteBuffer outputBuffer, CRC32 crc) throws IOException
+	{
+		byte[] input = inputBuffer.array();
+		byte[] output = outputBuffer.array();
+		long remaining = length;
+		long unreported = 0;
+		boolean padded = false;
+
+		try {
+			while (!inflater.finished())
+			{
+				if (inflater.needsInput())
+				{
+					if (remaining > 0)
+					{
+						inputBuffer.clear().limit((int) Math.min(input.length, remaining));
+						int read = read(channel, inputBuffer, position);
+						if (read < 0)
+							throw new ZipException("Unexpected end of archive.");
+
+						inflater.setInput(input, 0, read);
+						position += read;
+						remaining -= read;
+						unreported += read;
+					}
+					else if (padded)
+						throw new ZipException("Truncated deflate data.");
+					else
+					{
+						// A raw inflater may need one extra byte past the data to report the end.
+						padded = true;
+						input[0] = 0;
+						inflater.setInput(input, 0, 1);
+					}
+				}
+
+				int inflated = inflater.inflate(output);
+				if (inflated > 0)
+				{
+					crc.update(output, 0, inflated);
+					outputBuffer.clear().limit(inflated);
+					writeFully(out, outputBuffer);
+					if (progress != null)
+					{
+						progress.add(unreported, inflated);
+						unreported = 0;
+					}
+				}
+				else if (inflater.needsDictionary())
+					throw new ZipException("Inflater needs a preset dictionary.");
+			}
+		} catch (DataFormatException e) {
+			throw new ZipException(e.getMessage());
+		}
+	}
+
+	private static void readFully(SeekableByteChannel channel, ByteBuffer buffer, long position) throws IOException
+	{
+		while (buffer.hasRemaining())
+		{
+			int read = read(channel, buffer, position);
+			if (read < 0)
+				throw new ZipException("Unexpected end of archive.");
+			position += read;
+		}
+	}
+
+	/**
+	 * Reads from the given position, without moving a {@link FileChannel}.
+	 */
+	private static int read(SeekableByteChannel channel, ByteBuffer buffer, long position) throws IOException
+	{
+		if (channel instanceof FileChannel)
+			return ((FileChannel) channel).read(buffer, position);
+		channel.position(position);
+		return channel.read(buffer);
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+	}
+}
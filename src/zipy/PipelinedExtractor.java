@@ -0,0 +1,462 @@
+package zipy;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes the entries of an archive that has to be decoded in order, such as a tarball, a solid 7z
+ * or a RAR, on several threads. The decoding thread only fills buffers and hands them over, while a
+ * pool of writer threads creates the folders and opens, writes and closes the files, so decoding
+ * never waits on the file system.
+ * <p>
+ * Every file is queued as a whole, in the order it was decoded, and written by a single writer.
+ * When several entries have the same name the last one wins, as it does with {@code tar}.
+ * The buffers come from a fixed set of {@value #CHUNKS}, which bounds the memory used no matter how
+ * far the decoder gets ahead. Folders that were already created are remembered, so a folder with
+ * thousands of files is only created once.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+final class PipelinedExtractor implements Closeable
+{
+	/** The amount of writer threads used when a reader isn't told otherwise. */
+	static final int DEFAULT_WRITERS = 4;
+	private static final int CHUNKS = 32;
+	private static final Task END = new Task(null, Kind.FILE, null);
+
+	private final File outputDir;
+	private final BlockingQueue<byte[]> free = new ArrayBlockingQueue<>(CHUNKS);
+	private final BlockingQueue<Task> ring = new ArrayBlockingQueue<>(CHUNKS * 4);
+	private final Set<Path> directories = ConcurrentHashMap.newKeySet();
+	/** Every file queued so far, so hard links can wait for the file they point at. */
+	private final Map<String, CompletableFuture<Void>> files = new ConcurrentHashMap<>();
+	private final AtomicReference<IOException> failure = new AtomicReference<>();
+	private final ExecutorService executor;
+	private final List<Future<?>> writers = new ArrayList<>();
+	private boolean finished;
+
+	/**
+	 * @param outputDir the folder the entries are written to.
+	 * @param writers the amount of writer threads.
+	 * @param chunkSize the size of every buffer handed to the writers.
+	 */
+	PipelinedExtractor(File outputDir, int writers, int chunkSize)
+	{
+		this.outputDir = outputDir;
+		for (int i = 0; i < CHUNKS; i++)
+			free.add(new byte[chunkSize]);
+
+		executor = Executors.newFixedThreadPool(Math.max(1, writers));
+		for (int i = 0; i < Math.max(1, writers); i++)
+			this.writers.add(executor.submit(() -> {
+				write();
+				return null;
+			}));
+	}
+
+	/**
+	 * Queues a folder to be created.
+	 * @throws WriteException if a writer failed.
+	 */
+	void directory(String name) throws IOException
+	{
+		submit(new Task(name, Kind.DIRECTORY, null));
+	}
+
+	/**
+	 * Reads the entry to its end and queues it to be written.
+	 * @param in the contents of the entry, it is not closed.
+	 * @return the amount of bytes read.
+	 * @throws WriteException if a writer failed.
+	 */
+	long file(String name, InputStream in) throws IOException
+	{
+		Task task = new Task(name, Kind.FILE, null);
+		submit(task);
+
+		long total = 0;
+		try {
+			while (true)
+			{
+				byte[] buffer = take(free);
+				int length = 0, read;
+				while (length < buffer.length && (read = in.read(buffer, length, buffer.length - length)) != -1)
+					length += read;
+
+				if (length == 0)
+				{
+					free.add(buffer);
+					break;
+				}
+				task.chunks.add(new Chunk(buffer, length));
+				total += length;
+				if (length < buffer.length)
+					break;
+				checkFailure();
+			}
+		} finally {
+			task.chunks.add(Chunk.LAST);
+		}
+		return total;
+	}
+
+	/**
+	 * Opens a stream for libraries that write the contents of an entry, the file is queued as soon
+	 * as the stream is opened and is complete once it is closed.
+	 * @throws WriteException if a writer failed.
+	 */
+	OutputStream file(String name) throws IOException
+	{
+		Task task = new Task(name, Kind.FILE, null);
+		submit(task);
+		return new ChunkOutputStream(task);
+	}
+
+	/**
+	 * Queues a hard link, which is created once the file it points at is written. Where links can't
+	 * be created the file is copied instead.
+	 * @param target the name of an earlier entry.
+	 * @throws WriteException if a writer failed.
+	 */
+	void link(String name, String target) throws IOException
+	{
+		submit(new Task(name, Kind.LINK, target));
+	}
+
+	/**
+	 * Waits for every queued entry to be written.
+	 * @throws WriteException if a writer failed.
+	 */
+	void finish() throws IOException
+	{
+		finished = true;
+		for (int i = 0; i < writers.size(); i++)
+			put(END);
+
+		try {
+			for (Future<?> writer : writers)
+				writer.get();
+		} catch (ExecutionException e) {
+			failure.compareAndSet(null, e.getCause() instanceof IOException ? (IOException) e.getCause()
+																			: new IOException(e.getCause()));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Extraction interrupted.");
+		} finally {
+			executor.shutdown();
+		}
+		checkFailure();
+	}
+
+	/**
+	 * Stops the writers if the extraction didn't finish.
+	 */
+	@Override
+	public void close()
+	{
+		if (!finished)
+			executor.shutdownNow();
+	}
+
+	/**
+	 * A file added to a tar again replaces the earlier one, so it is only handed over once the
+	 * earlier one is written, or two writers would write the same file at once.
+	 */
+	private void submit(Task task) throws IOException
+	{
+		checkFailure();
+		if (task.kind == Kind.FILE)
+		{
+			CompletableFuture<Void> earlier = files.put(task.name, task.done);
+			if (earlier != null)
+			{
+				await(earlier);
+				checkFailure();
+			}
+		}
+		put(task);
+	}
+
+	private void put(Task task) throws IOException
+	{
+		try {
+			ring.put(task);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Extraction interrupted.");
+		}
+	}
+
+	private static <T> T take(BlockingQueue<T> queue) throws IOException
+	{
+		try {
+			return queue.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Extraction interrupted.");
+		}
+	}
+
+	private void checkFailure() throws WriteException
+	{
+		IOException cause = failure.get();
+		if (cause != null)
+			throw new WriteException(cause);
+	}
+
+	/**
+	 * The loop of every writer thread. After a failure the remaining files are only drained, so
+	 * their buffers go back to the decoder until it notices.
+	 */
+	private void write() throws IOException
+	{
+		Task task;
+		while ((task = take(ring)) != END)
+		{
+			try {
+				if (failure.get() == null)
+					write(task);
+			} catch (IOException | RuntimeException e) {
+				failure.compareAndSet(null, e instanceof IOException ? (IOException) e : new IOException(e));
+			} finally {
+				if (task.kind == Kind.FILE)
+					drain(task);
+				task.done.complete(null);
+			}
+		}
+	}
+
+	private void write(Task task) throws IOException
+	{
+		File file = resolve(task.name, task.kind == Kind.DIRECTORY).toFile();
+		switch (task.kind)
+		{
+			case DIRECTORY:
+				createDirectories(file);
+				break;
+			case LINK:
+				CompletableFuture<Void> target = files.get(task.link);
+				if (target == null)
+					throw new IOException(task.name + " links to a missing entry: " + task.link);
+				await(target);
+
+				createDirectories(file.getParentFile());
+				Path source = resolve(task.link, false);
+				try {
+					Files.deleteIfExists(file.toPath());
+					Files.createLink(file.toPath(), source);
+				} catch (IOException | UnsupportedOperationException e) {
+					Files.copy(source, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				}
+				break;
+			default:
+				createDirectories(file.getParentFile());
+				try (FileOutputStream out = new FileOutputStream(file)) {
+					Chunk chunk;
+					while ((chunk = take(task.chunks)) != Chunk.LAST)
+					{
+						try {
+							out.write(chunk.data, 0, chunk.length);
+						} finally {
+							free.add(chunk.data);
+						}
+					}
+					task.drained = true;
+				}
+				break;
+		}
+	}
+
+	/**
+	 * Entry names come from the archive, so one like {@code ../x} or {@code /x} must not reach
+	 * outside the output folder, and neither may a link target that could be deleted or replaced.
+	 * @param folder whether the name may be the output folder itself, as {@code ./} is in a tar.
+	 * @throws IOException if the name leaves the output folder.
+	 */
+	private Path resolve(String name, boolean folder) throws IOException
+	{
+		Path root = outputDir.toPath().normalize();
+		Path path = root.resolve(name).normalize();
+		if (!path.startsWith(root) || (!folder && path.equals(root)))
+			throw new IOException("Entry is outside of the output folder: " + name);
+		return path;
+	}
+
+	/**
+	 * Hands back the buffers of a file that wasn't written to the end.
+	 */
+	private void drain(Task task) throws IOException
+	{
+		if (task.drained)
+			return;
+		Chunk chunk;
+		while ((chunk = take(task.chunks)) != Chunk.LAST)
+			free.add(chunk.data);
+		task.drained = true;
+	}
+
+	private void createDirectories(File directory) throws IOException
+	{
+		if (directory == null)
+			return;
+		Path path = directory.toPath();
+		if (directories.contains(path))
+			return;
+
+		Files.createDirectories(path);
+		for (Path created = path; created != null && directories.add(created); created = created.getParent())
+			;
+	}
+
+	private static void await(CompletableFuture<Void> done) throws IOException
+	{
+		try {
+			done.get();
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Extraction interrupted.");
+		}
+	}
+
+	/**
+	 * Thrown by the decoding side when a writer failed, so a reader can tell a file it couldn't
+	 * write from an archive it couldn't read.
+	 */
+	static final class WriteException extends IOException
+	{
+		private static final long serialVersionUID = 1L;
+
+		WriteException(IOException cause)
+		{
+			super(cause.getMessage(), cause);
+		}
+	}
+
+	private enum Kind
+	{
+		FILE, DIRECTORY, LINK
+	}
+
+	private static final class Task
+	{
+		private final String name;
+		private final Kind kind;
+		private final String link;
+		private final BlockingQueue<Chunk> chunks = new LinkedBlockingQueue<>();
+		private final CompletableFuture<Void> done = new CompletableFuture<>();
+		private boolean drained;
+
+		Task(String name, Kind kind, String link)
+		{
+			this.name = name;
+			this.kind = kind;
+			this.link = link;
+		}
+	}
+
+	private static final class Chunk
+	{
+		private static final Chunk LAST = new Chunk(null, 0);
+
+		private final byte[] data;
+		private final int length;
+
+		Chunk(byte[] data, int length)
+		{
+			this.data = data;
+			this.length = length;
+		}
+	}
+
+	/**
+	 * Fills buffers from what a library writes, handing each one over once it is full.
+	 */
+	private final class ChunkOutputStream extends OutputStream
+	{
+		private final Task task;
+		private byte[] buffer;
+		private int length;
+		private boolean closed;
+
+		ChunkOutputStream(Task task)
+		{
+			this.task = task;
+		}
+
+		@Override
+		public void write(int b) throws IOException
+		{
+			write(new byte[] {(byte) b}, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException
+		{
+			while (len > 0)
+			{
+				if (buffer == null)
+				{
+					checkFailure();
+					buffer = take(free);
+				}
+
+				int count = Math.min(len, buffer.length - length);
+				System.arraycopy(b, off, buffer, length, count);
+				length += count;
+				off += count;
+				len -= count;
+
+				if (length == buffer.length)
+					handOver();
+			}
+		}
+
+		@Override
+		public void close()
+		{
+			if (closed)
+				return;
+			closed = true;
+			handOver();
+			if (buffer != null)
+				free.add(buffer);
+			buffer = null;
+			task.chunks.add(Chunk.LAST);
+		}
+
+		private void handOver()
+		{
+			if (buffer != null && length > 0)
+			{
+				task.chunks.add(new Chunk(buffer, length));
+				buffer = null;
+				length = 0;
+			}
+		}
+	}
+}
@@ -0,0 +1,287 @@
+package zipy;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the bytes of one operation and passes them on to an {@link ArchiveProgressListener},
+ * the {@link ZipyMetrics} of the reader and the Zipy JFR events. Readers only create one when a
+ * listener is registered or metrics are on, see {@link #of(Class, ArchiveProgressListener, boolean)},
+ * and skip every call when they have none. It is safe to use from several threads.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+final class ProgressTracker
+{
+	private final ArchiveProgressListener listener;
+	private final ZipyMetrics metrics;
+	private final boolean extracting;
+	private final long start = System.nanoTime();
+	private final AtomicLong bytesIn = new AtomicLong();
+	private final AtomicLong bytesOut = new AtomicLong();
+	private final AtomicLong entries = new AtomicLong();
+	private final AtomicLong nextReport = new AtomicLong(ArchiveProgressListener.REPORT_INTERVAL);
+	private final AtomicBoolean ended = new AtomicBoolean();
+	private final ArchiveOperationEvent operation = new ArchiveOperationEvent();
+	private final Map<String, ArchiveEntryEvent> largeEntries = new ConcurrentHashMap<>();
+
+	private ProgressTracker(Class<?> reader, ArchiveProgressListener listener, boolean extracting)
+	{
+		this.listener = listener;
+		this.metrics = ZipyMetrics.isEnabled() ? ZipyMetrics.of(reader) : null;
+		this.extracting = extracting;
+		operation.begin();
+	}
+
+	/**
+	 * @param reader the reader class the operation is counted for.
+	 * @param listener the listener, may be {@code null}.
+	 * @param extracting {@code true} when the written bytes are the uncompressed ones.
+	 * @return a tracker, or {@code null} when there is no listener and metrics are off.
+	 */
+	static ProgressTracker of(Class<?> reader, ArchiveProgressListener listener, boolean extracting)
+	{
+		return listener == null && !ZipyMetrics.isEnabled() ? null : new ProgressTracker(reader, listener, extracting);
+	}
+
+	void started(long totalBytes)
+	{
+		if (listener != null)
+			listener.operationStarted(totalBytes);
+	}
+
+	void entryStarted(String name, long size)
+	{
+		if (listener != null)
+			listener.entryStarted(name, size);
+
+		if (metrics != null && (size < 0 || size >= ZipyMetrics.LARGE_ENTRY_SIZE))
+		{
+			ArchiveEntryEvent event = new ArchiveEntryEvent();
+			if (event.isEnabled())
+			{
+				event.begin();
+				largeEntries.put(name, event);
+			}
+		}
+	}
+
+	void entryFinished(String name, long size)
+	{
+		entryFinished(name, size, -1);
+	}
+
+	/**
+	 * @param compressedSize the compressed size of the entry, or {@code -1} if unknown.
+	 */
+	void entryFinished(String name, long size, long compressedSize)
+	{
+		entries.incrementAndGet();
+		if (listener != null)
+			listener.entryFinished(name, size);
+
+		ArchiveEntryEvent event = largeEntries.isEmpty() ? null : largeEntries.remove(name);
+		if (event != null)
+		{
+			event.end();
+			if (event.shouldCommit())
+			{
+				event.reader = metrics.getReader();
+				event.operation = extracting ? "extract" : "create";
+				event.name = name;
+				event.compressedBytes = compressedSize;
+				event.uncompressedBytes = size;
+				event.commit();
+			}
+		}
+	}
+
+	/**
+	 * Adds to the byte counts, and reports them once another interval has passed.
+	 */
+	void add(long in, long out)
+	{
+		long totalIn = bytesIn.addAndGet(in);
+		long totalOut = bytesOut.addAndGet(out);
+		if (listener == null)
+			return;
+
+		long uncompressed = extracting ? totalOut : totalIn;
+		long next = nextReport.get();
+
+		if (uncompressed >= next && nextReport.compareAndSet(next, uncompressed + ArchiveProgressListener.REPORT_INTERVAL))
+			listener.bytesTransferred(totalIn, totalOut, throughput(uncompressed));
+	}
+
+	/**
+	 * Ends a successful operation.
+	 */
+	void finished()
+	{
+		long totalIn = bytesIn.get();
+		long totalOut = bytesOut.get();
+		double throughput = throughput(extracting ? totalOut : totalIn);
+
+		if (listener != null)
+		{
+			listener.bytesTransferred(totalIn, totalOut, throughput);
+			listener.operationFinished(totalIn, totalOut, throughput);
+		}
+		end(true);
+	}
+
+	/**
+	 * Ends an operation that failed. The listener isn't told, the metrics count it as a failure.
+	 */
+	void failed()
+	{
+		end(false);
+	}
+
+	private void end(boolean successful)
+	{
+		if (metrics == null || !ended.compareAndSet(false, true))
+			return;
+
+		long compressed = extracting ? bytesIn.get() : bytesOut.get();
+		long uncompressed = extracting ? bytesOut.get() : bytesIn.get();
+		metrics.record(System.nanoTime() - start, successful, entries.get(), compressed, uncompressed);
+
+		operation.end();
+		if (operation.shouldCommit())
+		{
+			operation.reader = metrics.getReader();
+			operation.operation = extracting ? "extract" : "create";
+			operation.successful = successful;
+			operation.entries = entries.get();
+			operation.compressedBytes = compressed;
+			operation.uncompressedBytes = uncompressed;
+			operation.commit();
+		}
+	}
+
+	private double throughput(long bytes)
+	{
+		long elapsed = System.nanoTime() - start;
+		return elapsed <= 0 ? 0 : bytes * 1e9 / elapsed;
+	}
+
+	/**
+	 * @return a stream that counts every byte read from {@code in} as a byte in.
+	 */
+	InputStream countReads(InputStream in)
+	{
+		return new FilterInputStream(in) {
+			@Override
+			public int read() throws IOException
+			{
+				int value = in.read();
+				if (value != -1)
+					add(1, 0);
+				return value;
+			}
+
+			@Override
+			public int read(byte[] bytes, int offset, int length) throws IOException
+			{
+				int count = in.read(bytes, offset, length);
+				if (count > 0)
+					add(count, 0);
+				return count;
+			}
+		};
+	}
+
+	/**
+	 * @return a stream that counts every byte written to {@code out} as a byte out.
+	 */
+	OutputStream countWrites(OutputStream out)
+	{
+		return new FilterOutputStream(out) {
+			@Override
+			public void write(int value) throws IOException
+			{
+				out.write(value);
+				add(0, 1);
+			}
+
+			@Override
+			public void write(byte[] bytes, int offset, int length) throws IOException
+			{
+				out.write(bytes, offset, length);
+				add(0, length);
+			}
+		};
+	}
+
+	/**
+	 * @return a channel that counts every byte read from {@code channel} as a byte in.
+	 */
+	SeekableByteChannel countReads(SeekableByteChannel channel)
+	{
+		return new SeekableByteChannel() {
+			@Override
+			public int read(ByteBuffer dst) throws IOException
+			{
+				int count = channel.read(dst);
+				if (count > 0)
+					add(count, 0);
+				return count;
+			}
+
+			@Override
+			public int write(ByteBuffer src) throws IOException
+			{
+				return channel.write(src);
+			}
+
+			@Override
+			public long position() throws IOException
+			{
+				return channel.position();
+			}
+
+			@Override
+			public SeekableByteChannel position(long newPosition) throws IOException
+			{
+				channel.position(newPosition);
+				return this;
+			}
+
+			@Override
+			public long size() throws IOException
+			{
+				return channel.size();
+			}
+
+			@Override
+			public SeekableByteChannel truncate(long size) throws IOException
+			{
+				channel.truncate(size);
+				return this;
+			}
+
+			@Override
+			public boolean isOpen()
+			{
+				return channel.isOpen();
+			}
+
+			@Override
+			public void close() throws IOException
+			{
+				channel.close();
+			}
+		};
+	}
+}
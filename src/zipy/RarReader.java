@@ -1,14 +1,22 @@
 package zipy;
 
+import java.io.EOFException;
 import java.io.File;
-import java.io.FileOutputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
 import java.util.ArrayList;
 import java.util.List;
 
 import com.github.junrar.Archive;
 import com.github.junrar.exception.RarException;
+import com.github.junrar.io.SeekableReadOnlyByteChannel;
 import com.github.junrar.rarfile.FileHeader;
+import com.github.junrar.volume.Volume;
+import com.github.junrar.volume.VolumeManager;
 
 /**
  * A class used to read .rar files, using the Junrar library.
@@ -20,17 +28,31 @@ import com.github.junrar.rarfile.FileHeader;
 public class RarReader implements IReader
 {
 	private final String outputPath;
-	private final String rarFilePath;
+	private final ArchiveSource source;
+	private ArchiveProgressListener progressListener;
+	private int writerThreads = PipelinedExtractor.DEFAULT_WRITERS;
 	
 	public RarReader(String rarFilePath, String outputPath)
 	{
-		this.rarFilePath = rarFilePath;
+		this.source = ArchiveSource.of(rarFilePath);
 		this.outputPath = outputPath;
 	}
 	
 	public RarReader(File rarFile, File output)
 	{
-		this.rarFilePath = rarFile.getAbsolutePath();
+		this.source = ArchiveSource.of(rarFile);
+		this.outputPath = output.getAbsolutePath();
+	}
+	
+	/**
+	 * Reads the archive from a channel, such as one over an archive held in memory, the same way as
+	 * from a file. The channel holds a single volume and is left open.
+	 * @param rarChannel the archive, read from position 0.
+	 * @param output the folder the files are extracted to.
+	 */
+	public RarReader(SeekableByteChannel rarChannel, File output)
+	{
+		this.source = ArchiveSource.of(rarChannel);
 		this.outputPath = output.getAbsolutePath();
 	}
 
@@ -40,33 +62,81 @@ public class RarReader implements IReader
 		File outputDir = new File(outputPath);
 		
 		if(!outputDir.exists())
-			outputDir.mkdir();
+			outputDir.mkdirs();
 		
-		try(Archive archive = new Archive(new File(rarFilePath))) {
+		try(Archive archive = openArchive()) {
 			if (archive.isEncrypted())
 				return false;
 			
-			for(FileHeader fh : archive.getFileHeaders())
+			ProgressTracker progress = ProgressTracker.of(RarReader.class, progressListener, true);
+			if (progress != null)
 			{
-				File outputFile = new File(outputDir, fh.getFileName());
-                try (FileOutputStream fos = new FileOutputStream(outputFile)) {
-                	archive.extractFile(fh, fos);
-                } catch(IOException e) {
-                	Zipy.deleteDirectory(outputDir);
-                	return false;
-                }
+				long total = 0;
+				for(FileHeader fh : archive.getFileHeaders())
+					total += fh.getFullUnpackSize();
+				progress.started(total);
+			}
+			
+			try (PipelinedExtractor pipeline = new PipelinedExtractor(outputDir, writerThreads, BufferPool.SIZE)) {
+				for(FileHeader fh : archive.getFileHeaders())
+				{
+					if (Thread.currentThread().isInterrupted())
+						throw new IOException("Extraction interrupted.");
+					if (progress != null)
+						progress.entryStarted(fh.getFileName(), fh.getFullUnpackSize());
+					
+					if (fh.isDirectory())
+						pipeline.directory(fh.getFileName());
+					else
+					{
+						try (OutputStream out = pipeline.file(fh.getFileName())) {
+							archive.extractFile(fh, progress != null ? progress.countWrites(out) : out);
+						}
+					}
+					
+					if (progress != null)
+					{
+						progress.add(fh.getFullPackSize(), 0);
+						progress.entryFinished(fh.getFileName(), fh.getFullUnpackSize(), fh.getFullPackSize());
+					}
+				}
+				
+				pipeline.finish();
+			} catch(PipelinedExtractor.WriteException e) {
+				if (progress != null)
+					progress.failed();
+				Zipy.deleteDirectory(outputDir);
+				return false;
 			}
 			
+			if (progress != null)
+				progress.finished();
 			return true;
 		} catch (RarException e) {
 			 throw new IOException(e);
 		}
 	}
 
+	/**
+	 * Sets the amount of threads writing the decoded files, while the archive itself is decoded on
+	 * the calling thread. More writers help most with many small files or a slow file system.
+	 * @param threads the amount of writer threads, 4 by default.
+	 */
+	public void setWriterThreads(int threads)
+	{
+		this.writerThreads = Math.max(1, threads);
+	}
+
+	@Override
+	public void setProgressListener(ArchiveProgressListener listener)
+	{
+		this.progressListener = listener;
+	}
+
 	@Override
 	public boolean isPasswordProtected() throws IOException
 	{
-		try (Archive archive = new Archive(new File(rarFilePath))) {
+		try (Archive archive = openArchive()) {
            return archive.isEncrypted();
         } catch (RarException e) {
         	 throw new IOException(e);
@@ -76,21 +146,234 @@ public class RarReader implements IReader
 	@Override
 	public List<String> listEntries() throws IOException
 	{
-		List<String> entries = new ArrayList<String>();
+		return new ArrayList<String>(getIndex().getNames());
+	}
+
+	@Override
+	public int getNumberOfItemsInArchive() throws IOException
+	{
+		return getIndex().size();
+	}
+
+	@Override
+	public boolean extractEntry(String name, OutputStream out) throws IOException
+	{
+		try (Archive archive = openArchive()) {
+			FileHeader fh = findHeader(archive, name);
+			if (fh == null)
+				return false;
+			
+			archive.extractFile(fh, out);
+			return true;
+		} catch (RarException e) {
+			 throw new IOException(e);
+		}
+	}
+
+	@Override
+	public InputStream openEntry(String name) throws IOException
+	{
+		Archive archive;
+		try {
+			archive = openArchive();
+		} catch (RarException e) {
+			 throw new IOException(e);
+		}
 		
-		try (Archive archive = new Archive(new File(rarFilePath))) {
+		try {
+			FileHeader fh = findHeader(archive, name);
+			if (fh == null)
+				throw new FileNotFoundException(name + " is not a file in " + source);
+			
+			return new EntryInputStream(archive.getInputStream(fh), archive);
+		} catch (IOException e) {
+			archive.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * A file is opened by Junrar itself, so the volumes after it are found. A channel is handed to
+	 * Junrar as the only volume.
+	 */
+	private Archive openArchive() throws RarException, IOException
+	{
+		if (source.getFile() != null)
+			return new Archive(source.getFile());
+		return new Archive(new ChannelVolumeManager(source), null, null);
+	}
+	
+	/**
+	 * @return the last file with the name, the same as in the index.
+	 */
+	private static FileHeader findHeader(Archive archive, String name)
+	{
+		FileHeader found = null;
+		for(FileHeader fh : archive.getFileHeaders())
+		{
+			if (!fh.isDirectory() && fh.getFileName().equals(name))
+				found = fh;
+		}
+		return found;
+	}
+
+	@Override
+	public InMemoryExtraction extractToMemory() throws IOException
+	{
+		InMemoryExtraction result = new InMemoryExtraction();
+		try (Archive archive = openArchive()) {
 			for(FileHeader fh : archive.getFileHeaders())
-				entries.add(fh.getFileName());
+			{
+				if (fh.isDirectory())
+					continue;
+				try (OutputStream out = result.newEntry(fh.getFileName(), fh.getFullUnpackSize())) {
+					archive.extractFile(fh, out);
+				}
+			}
+			return result;
+		} catch (RarException e) {
+			result.close();
+			throw new IOException(e);
+		} catch (IOException | RuntimeException e) {
+			result.close();
+			throw e;
+		}
+	}
+	
+	@Override
+	public ArchiveIndex getIndex() throws IOException
+	{
+		return source.getIndex(this::buildIndex);
+	}
+
+	private ArchiveIndex buildIndex() throws IOException
+	{
+		List<ArchiveIndex.Entry> entries = new ArrayList<ArchiveIndex.Entry>();
+		
+		try (Archive archive = openArchive()) {
+			for(FileHeader fh : archive.getFileHeaders())
+			{
+				entries.add(new ArchiveIndex.Entry(fh.getFileName(), fh.getFullUnpackSize(), fh.getFullPackSize(),
+						"RAR" + fh.getUnpMethod(), fh.getFileCRC() & 0xffffffffL, fh.getPositionInFile(),
+						fh.getMTime() != null ? fh.getMTime().getTime() : -1, 0, fh.isDirectory()));
+			}
         } catch (RarException e) {
         	 throw new IOException(e);
         }
 		
-		return entries;
+		return new ArchiveIndex(entries);
 	}
-
-	@Override
-	public int getNumberOfItemsInArchive() throws IOException
+	
+	private static final class ChannelVolumeManager implements VolumeManager
+	{
+		private final ArchiveSource source;
+		
+		ChannelVolumeManager(ArchiveSource source)
+		{
+			this.source = source;
+		}
+		
+		@Override
+		public Volume nextVolume(Archive archive, Volume last) throws IOException
+		{
+			if (last != null)
+				return null;
+			
+			try (SeekableByteChannel channel = source.openChannel()) {
+				return new ChannelVolume(archive, source, channel.size());
+			}
+		}
+	}
+	
+	private static final class ChannelVolume implements Volume
+	{
+		private final Archive archive;
+		private final ArchiveSource source;
+		private final long length;
+		
+		ChannelVolume(Archive archive, ArchiveSource source, long length)
+		{
+			this.archive = archive;
+			this.source = source;
+			this.length = length;
+		}
+		
+		/**
+		 * Junrar closes the channel with the archive, which only closes this view of it.
+		 */
+		@Override
+		public SeekableReadOnlyByteChannel getChannel() throws IOException
+		{
+			return new ChannelReader(source.openChannel());
+		}
+		
+		@Override
+		public long getLength()
+		{
+			return length;
+		}
+		
+		@Override
+		public Archive getArchive()
+		{
+			return archive;
+		}
+	}
+	
+	/**
+	 * The channel interface of Junrar over a channel of the JDK.
+	 */
+	private static final class ChannelReader implements SeekableReadOnlyByteChannel
 	{
-		return this.listEntries().size();
+		private final SeekableByteChannel channel;
+		private final ByteBuffer single = ByteBuffer.allocate(1);
+		
+		ChannelReader(SeekableByteChannel channel)
+		{
+			this.channel = channel;
+		}
+		
+		@Override
+		public long getPosition() throws IOException
+		{
+			return channel.position();
+		}
+		
+		@Override
+		public void setPosition(long pos) throws IOException
+		{
+			channel.position(pos);
+		}
+		
+		@Override
+		public int read() throws IOException
+		{
+			single.clear();
+			return channel.read(single) < 0 ? -1 : single.get(0) & 0xff;
+		}
+		
+		@Override
+		public int read(byte[] buffer, int off, int count) throws IOException
+		{
+			return count == 0 ? 0 : channel.read(ByteBuffer.wrap(buffer, off, count));
+		}
+		
+		@Override
+		public int readFully(byte[] buffer, int count) throws IOException
+		{
+			ByteBuffer target = ByteBuffer.wrap(buffer, 0, count);
+			while (target.hasRemaining())
+			{
+				if (channel.read(target) < 0)
+					throw new EOFException("Unexpected end of archive.");
+			}
+			return count;
+		}
+		
+		@Override
+		public void close() throws IOException
+		{
+			channel.close();
+		}
 	}
-}
\ No newline at end of file
+}
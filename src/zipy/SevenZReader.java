@@ -2,21 +2,25 @@ package zipy;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.RandomAccessFile;
 import java.nio.channels.SeekableByteChannel;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.commons.compress.archivers.sevenz.SevenZArchiveEntry;
 import org.apache.commons.compress.archivers.sevenz.SevenZFile;
 
-import net.sf.sevenzipjbinding.ArchiveFormat;
-import net.sf.sevenzipjbinding.IInArchive;
 import net.sf.sevenzipjbinding.IOutCreateArchive7z;
 import net.sf.sevenzipjbinding.IOutCreateCallback;
 import net.sf.sevenzipjbinding.IOutItem7z;
@@ -38,59 +42,172 @@ import net.sf.sevenzipjbinding.impl.RandomAccessFileOutStream;
  */
 public class SevenZReader implements IReader
 {
+	/** The smallest buffer used to copy entry data, 64 KB. */
+	public static final int MIN_BUFFER_SIZE = 64 * 1024;
+	/** The largest buffer used to copy entry data, 1 MB. */
+	public static final int MAX_BUFFER_SIZE = 1024 * 1024;
+	
 	private final String outputPath;
-	private final String zipFilePath;
+	private final ArchiveSource source;
+	private int bufferSize = 256 * 1024;
+	private int writerThreads = PipelinedExtractor.DEFAULT_WRITERS;
+	private ArchiveProgressListener progressListener;
 	
 	public SevenZReader(String zipFilePath, String outputPath)
 	{
-		this.zipFilePath = zipFilePath;
+		this.source = ArchiveSource.of(zipFilePath);
 		this.outputPath = outputPath;
 	}
 	
 	public SevenZReader(File zipFile, File output)
 	{
-		this.zipFilePath = zipFile.getAbsolutePath();
+		this.source = ArchiveSource.of(zipFile);
+		this.outputPath = output.getAbsolutePath();
+	}
+	
+	/**
+	 * Reads the archive from a channel, such as one over an archive held in memory, the same way as
+	 * from a file. The channel is left open, and the parallel extraction still reads it on every
+	 * thread, one read at a time. A 7z can't be read from a stream, as its headers are at the end.
+	 * @param sevenZChannel the archive, read from position 0.
+	 * @param output the folder the files are extracted to.
+	 */
+	public SevenZReader(SeekableByteChannel sevenZChannel, File output)
+	{
+		this.source = ArchiveSource.of(sevenZChannel);
 		this.outputPath = output.getAbsolutePath();
 	}
 	
+	/**
+	 * Sets the size of the buffers entries are streamed through while extracting. A fixed amount of
+	 * them is used no matter how large the entries are. Values outside of
+	 * {@link #MIN_BUFFER_SIZE} and {@link #MAX_BUFFER_SIZE} are moved to the nearest bound.
+	 * @param bufferSize the buffer size in bytes, 256 KB by default.
+	 */
+	public void setBufferSize(int bufferSize)
+	{
+		this.bufferSize = Math.max(MIN_BUFFER_SIZE, Math.min(MAX_BUFFER_SIZE, bufferSize));
+	}
+	
+	/**
+	 * Sets the amount of threads writing the decoded files in {@link #extractFiles()}, while the
+	 * archive itself is decoded on the calling thread. More writers help most with many small files
+	 * or a slow file system.
+	 * @param threads the amount of writer threads, 4 by default.
+	 */
+	public void setWriterThreads(int threads)
+	{
+		this.writerThreads = Math.max(1, threads);
+	}
+	
 	@Override
 	public boolean extractFiles() throws IOException
 	{
 		File outputDir = new File(outputPath);
 		
 		if(!outputDir.exists())
-			outputDir.mkdir();
+			outputDir.mkdirs();
+		
+		ProgressTracker progress = ProgressTracker.of(SevenZReader.class, progressListener, true);
+		SeekableByteChannel file = source.openChannel();
 		
-		try (SeekableByteChannel channel = Files.newByteChannel(Paths.get(zipFilePath));
+		try (SeekableByteChannel channel = progress != null ? progress.countReads(file) : file;
 			SevenZFile sevenZFile = SevenZFile.builder().setSeekableByteChannel(channel)
-														.get()) {
+														.get();
+			PipelinedExtractor pipeline = new PipelinedExtractor(outputDir, writerThreads, bufferSize)) {
+			if (progress != null)
+			{
+				long total = 0;
+				for (SevenZArchiveEntry entry : sevenZFile.getEntries())
+					total += entry.hasStream() ? entry.getSize() : 0;
+				progress.started(total);
+			}
+			
 			SevenZArchiveEntry entry;
 			while((entry = sevenZFile.getNextEntry()) != null)
 			{
-				if (!entry.isDirectory())
+				if (Thread.currentThread().isInterrupted())
+					throw new IOException("Extraction interrupted.");
+				if (entry.isDirectory())
+				{
+					pipeline.directory(entry.getName());
+					continue;
+				}
+				
+				if (progress != null)
+					progress.entryStarted(entry.getName(), entry.getSize());
+				
+				long written = pipeline.file(entry.getName(), sevenZFile.getInputStream(entry));
+				if (progress != null)
 				{
-					File outFile = new File(outputDir, entry.getName());
-					
-					try(FileOutputStream out = new FileOutputStream(outFile)) {
-						byte[] stuff = new byte[(int)entry.getSize()];
-						sevenZFile.read(stuff, 0, stuff.length);
-						out.write(stuff);
-					} catch (IOException e) {
-						e.printStackTrace();
-						Zipy.deleteDirectory(outputDir);
-						return false;
-					}
+					progress.add(0, written);
+					progress.entryFinished(entry.getName(), entry.getSize());
 				}
 			}
 			
+			pipeline.finish();
+			if (progress != null)
+				progress.finished();
 			return true;
+		} catch (PipelinedExtractor.WriteException e) {
+			e.printStackTrace();
+			if (progress != null)
+				progress.failed();
+			Zipy.deleteDirectory(outputDir);
+			return false;
 		}
 	}
 
+	/**
+	 * Extracts the files to the outputPath on several threads. The entries are split into ranges,
+	 * and each thread decodes its own range through its own handle to the archive, so independent
+	 * blocks are decoded at the same time. The entries of a solid block are still decoded in order.
+	 * @param threads the amount of threads used to extract the entries.
+	 * @throws IOException when a fatal error occurs.
+	 * @return {@code true} if it was successful in extracting the files to the
+	 * 		   specified output path and {@code false} if it failed.
+	 */
+	public boolean extractFilesParallel(int threads) throws IOException
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+		
+		try {
+			return extractFilesParallel(executor, threads);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Extracts the files to the outputPath using the given executor. The executor is left running
+	 * so it can be shared between several extractions.
+	 * @param executor the executor the extraction work is submitted to.
+	 * @param parallelism the amount of ranges decoded at the same time.
+	 * @throws IOException when a fatal error occurs.
+	 * @return {@code true} if it was successful in extracting the files to the
+	 * 		   specified output path and {@code false} if it failed.
+	 */
+	public boolean extractFilesParallel(ExecutorService executor, int parallelism) throws IOException
+	{
+		File outputDir = new File(outputPath);
+		
+		if(!outputDir.exists())
+			outputDir.mkdirs();
+		
+		return new ParallelSevenZExtractor(source, outputDir, bufferSize,
+										   ProgressTracker.of(SevenZReader.class, progressListener, true)).extract(executor, parallelism);
+	}
+	
+	@Override
+	public void setProgressListener(ArchiveProgressListener listener)
+	{
+		this.progressListener = listener;
+	}
+
 	@Override
 	public boolean isPasswordProtected() throws IOException
 	{
-		try (SeekableByteChannel channel = Files.newByteChannel(new File(zipFilePath).toPath());
+		try (SeekableByteChannel channel = source.openChannel();
 				SevenZFile sevenZFile = SevenZFile.builder().setSeekableByteChannel(channel)
 															.get()) {
             //If this doesn't throw an exception then it is not password protected
@@ -110,39 +227,117 @@ public class SevenZReader implements IReader
 	@Override
 	public List<String> listEntries() throws IOException
 	{
-		List<String> entries = new ArrayList<>();
-		
-		try (SeekableByteChannel channel = Files.newByteChannel(new File(zipFilePath).toPath());
-				SevenZFile sevenZFile = SevenZFile.builder().setSeekableByteChannel(channel)
-															.get()) {
-            SevenZArchiveEntry entry;
-            while((entry = sevenZFile.getNextEntry()) != null)
-            	entries.add(entry.getName());
-        }
+		return new ArrayList<>(getIndex().getNames());
+	}
+	
+	@Override
+	public int getNumberOfItemsInArchive() throws IOException
+	{
+		return getIndex().size();
+	}
+	
+	/**
+	 * The entries are decoded in the order they are stored, so every solid block is only
+	 * decompressed once.
+	 */
+	@Override
+	public InMemoryExtraction extractToMemory() throws IOException
+	{
+		InMemoryExtraction result = new InMemoryExtraction();
+		try (SeekableByteChannel channel = source.openChannel();
+				SevenZFile sevenZFile = SevenZFile.builder().setSeekableByteChannel(channel).get()) {
+			SevenZArchiveEntry entry;
+			while ((entry = sevenZFile.getNextEntry()) != null)
+			{
+				if (!entry.isDirectory())
+					result.add(entry.getName(), entry.getSize(), sevenZFile.getInputStream(entry));
+			}
+			return result;
+		} catch (IOException | RuntimeException e) {
+			result.close();
+			throw e;
+		}
+	}
+	
+	@Override
+	public ArchiveIndex getIndex() throws IOException
+	{
+		return source.getIndex(this::buildIndex);
+	}
+	
+	@Override
+	public boolean extractEntry(String name, OutputStream out) throws IOException
+	{
+		ArchiveIndex.Entry entry = getIndex().find(name);
+		if (entry == null || entry.isDirectory())
+			return false;
 		
-		return entries;
+		byte[] buffer = BufferPool.acquire(bufferSize);
+		try (InputStream in = openEntry(name)) {
+			int read;
+			while ((read = in.read(buffer)) != -1)
+				out.write(buffer, 0, read);
+		} finally {
+			BufferPool.release(buffer);
+		}
+		return true;
 	}
 	
-	/*
-	 * Taken directly from the SevenZipJBinding wikipedia!!
+	/**
+	 * The archive headers say which block holds the entry, so decoding starts at that block.
+	 * Entries stored before it in the same solid block still have to be decoded to reach it,
+	 * but their data is thrown away.
 	 */
 	@Override
-	public int getNumberOfItemsInArchive() throws IOException
+	public InputStream openEntry(String name) throws IOException
 	{
-		IInArchive archive;
-	    RandomAccessFile randomAccessFile;
-
-	    randomAccessFile = new RandomAccessFile(zipFilePath, "r");
-
-	    archive = SevenZip.openInArchive(ArchiveFormat.ZIP, // null - autodetect
-	            new RandomAccessFileInStream(randomAccessFile));
-
-	    int numberOfItems = archive.getNumberOfItems();
-
-	    archive.close();
-	    randomAccessFile.close();
-	    
-	    return numberOfItems;
+		SeekableByteChannel channel = source.openChannel();
+		SevenZFile sevenZFile;
+		try {
+			sevenZFile = SevenZFile.builder().setSeekableByteChannel(channel).get();
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		
+		try {
+			// The last entry with the name wins, the same as in the index.
+			SevenZArchiveEntry found = null;
+			for (SevenZArchiveEntry entry : sevenZFile.getEntries())
+			{
+				if (!entry.isDirectory() && entry.getName().equals(name))
+					found = entry;
+			}
+			if (found == null)
+				throw new FileNotFoundException(name + " is not a file in " + source);
+			return new EntryInputStream(sevenZFile.getInputStream(found), sevenZFile, channel);
+		} catch (IOException e) {
+			sevenZFile.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Only the archive headers are read, no entry data is decoded. 7z doesn't store compressed
+	 * sizes or offsets per entry, as entries share compressed blocks.
+	 */
+	private ArchiveIndex buildIndex() throws IOException
+	{
+		List<ArchiveIndex.Entry> entries = new ArrayList<>();
+		
+		try (SeekableByteChannel channel = source.openChannel();
+				SevenZFile sevenZFile = SevenZFile.builder().setSeekableByteChannel(channel)
+															.get()) {
+			for (SevenZArchiveEntry entry : sevenZFile.getEntries())
+			{
+				entries.add(new ArchiveIndex.Entry(entry.getName(), entry.getSize(), -1, null,
+						entry.getHasCrc() ? entry.getCrcValue() : -1, -1,
+						entry.getHasLastModifiedDate() ? entry.getLastModifiedTime().toMillis() : -1, 0,
+						entry.isDirectory()));
+			}
+		}
+		
+		return new ArchiveIndex(entries);
 	}
 	
 	
@@ -170,7 +365,7 @@ public class SevenZReader implements IReader
 		List<File> filesToCompress = new ArrayList<File>();
 		List<String> paths = new ArrayList<String>();
 		
-		collectFiles(fileToZip, outFile, filesToCompress, paths);
+		collectEntries(fileToZip, outFile, filesToCompress, paths, false);
 		
 		/*
 		 * Set compression level: 0 - Copy mode (no compression)
@@ -184,7 +379,7 @@ public class SevenZReader implements IReader
 		 * We then create a callback interface so we can specify what to do per entry.
 		 * We make sure to put the in stream as out file(s) to compress.
 		 */
-		outArchive7z.createArchive(stream, compressionLevel, new IOutCreateCallback<IOutItem7z>() {
+		outArchive7z.createArchive(stream, filesToCompress.size(), new IOutCreateCallback<IOutItem7z>() {
 			@Override
 			public void setCompleted(long arg0) throws SevenZipException {}
 			@Override
@@ -254,6 +449,39 @@ public class SevenZReader implements IReader
 	 */
 	public static void makeArchive(File fileToZip, File zippedFile, int compressionLevel) throws IOException
 	{
+		makeArchive(fileToZip, zippedFile, compressionLevel, null);
+	}
+	
+	/**
+	 * A static method used to create a .7z file, telling the listener about every entry as it is
+	 * compressed. Bytes out are the size of the finished archive, and are only known at the end.
+	 * @param fileToZip the file(s) to zip.
+	 * @param zippedFile the file where the archive will be created.
+	 * @param compressionLevel the compression level used to zip, see {@link #makeArchive(File, File, int)}.
+	 * @param listener the listener, may be {@code null}.
+	 * @throws IOException
+	 */
+	public static void makeArchive(File fileToZip, File zippedFile, int compressionLevel,
+								   ArchiveProgressListener listener) throws IOException
+	{
+		makeArchive(fileToZip, zippedFile, compressionLevel, listener, false);
+	}
+	
+	/**
+	 * A static method used to create a .7z file, optionally putting files with the same content next
+	 * to each other. The 7z format has no way to share data between entries, but in a solid block
+	 * a copy that directly follows its original is found in the dictionary and costs almost nothing.
+	 * @param fileToZip the file(s) to zip.
+	 * @param zippedFile the file where the archive will be created.
+	 * @param compressionLevel the compression level used to zip, see {@link #makeArchive(File, File, int)}.
+	 * @param listener the listener, may be {@code null}.
+	 * @param deduplicate whether files with the same content are written one after the other.
+	 * @throws IOException
+	 */
+	public static void makeArchive(File fileToZip, File zippedFile, int compressionLevel,
+								   ArchiveProgressListener listener, boolean deduplicate) throws IOException
+	{
+		ProgressTracker progress = ProgressTracker.of(SevenZReader.class, listener, false);
 		File outFile = zippedFile;
 		
 		if (outFile == null)
@@ -271,7 +499,7 @@ public class SevenZReader implements IReader
 		List<File> filesToCompress = new ArrayList<File>();
 		List<String> paths = new ArrayList<String>();
 		
-		collectFiles(fileToZip, outFile, filesToCompress, paths);
+		collectEntries(fileToZip, outFile, filesToCompress, paths, deduplicate);
 		
 		/*
 		 * Set compression level: 0 - Copy mode (no compression)
@@ -285,11 +513,25 @@ public class SevenZReader implements IReader
 		 * We then create a callback interface so we can specify what to do per entry.
 		 * We make sure to put the in stream as out file(s) to compress.
 		 */
-		outArchive7z.createArchive(stream, compressionLevel, new IOutCreateCallback<IOutItem7z>() {
+		outArchive7z.createArchive(stream, filesToCompress.size(), new IOutCreateCallback<IOutItem7z>() {
+			private long completed;
+			private int current = -1;
+			
 			@Override
-			public void setCompleted(long arg0) throws SevenZipException {}
+			public void setCompleted(long arg0) throws SevenZipException
+			{
+				if (progress != null)
+				{
+					progress.add(arg0 - completed, 0);
+					completed = arg0;
+				}
+			}
 			@Override
-			public void setTotal(long arg0) throws SevenZipException {}
+			public void setTotal(long arg0) throws SevenZipException
+			{
+				if (progress != null)
+					progress.started(arg0);
+			}
 
 			@Override
 			public IOutItem7z getItemInformation(int index, OutItemFactory<IOutItem7z> factory)
@@ -321,6 +563,12 @@ public class SevenZReader implements IReader
 			    if (file.isDirectory())
 			    	return null;
 			    
+			    if (progress != null)
+			    {
+			    	current = index;
+			    	progress.entryStarted(paths.get(index), file.length());
+			    }
+			    
 			    try {
 			        return new RandomAccessFileInStream(new RandomAccessFile(file, "r"));
 			    } catch (FileNotFoundException e) {
@@ -334,22 +582,103 @@ public class SevenZReader implements IReader
 			{
 				if (!operationResultOk)
                     throw new SevenZipException("Compression failed for the current item.");
+				if (progress != null && current != -1)
+				{
+					progress.entryFinished(paths.get(current), filesToCompress.get(current).length());
+					current = -1;
+				}
 			}
 		
 		});
 		
 		outArchive7z.close();
+		
+		if (progress != null)
+		{
+			progress.add(0, outFile.length());
+			progress.finished();
+		}
+	}
+	
+	/**
+	 * Lists what goes into the archive: the file itself, or everything inside the folder, in the
+	 * order of the names.
+	 * @param archive the archive being written, left out if it is inside the folder.
+	 * @param deduplicate whether files with the same content are moved next to each other.
+	 */
+	static void collectEntries(File fileToZip, File archive, List<File> files, List<String> paths,
+							   boolean deduplicate) throws IOException
+	{
+		if (fileToZip.isDirectory())
+			collectFiles(fileToZip, fileToZip, archive.getAbsoluteFile(), files, paths);
+		else
+		{
+			files.add(fileToZip);
+			paths.add(fileToZip.getName());
+		}
+		
+		if (deduplicate)
+			groupDuplicates(files, paths);
 	}
 	
+	/**
+	 * Moves every file with the same content as an earlier one right after that file, keeping the
+	 * paths in step with the files.
+	 */
+	private static void groupDuplicates(List<File> files, List<String> paths) throws IOException
+	{
+		List<Path> regular = new ArrayList<Path>();
+		for (File file : files)
+		{
+			if (!file.isDirectory())
+				regular.add(file.toPath());
+		}
+		
+		Map<Path, Path> duplicates = ContentDeduplicator.findDuplicates(regular, Runtime.getRuntime().availableProcessors());
+		if (duplicates.isEmpty())
+			return;
+		
+		Map<File, List<Integer>> copies = new HashMap<File, List<Integer>>();
+		for (int i = 0; i < files.size(); i++)
+		{
+			Path original = duplicates.get(files.get(i).toPath());
+			if (original != null)
+				copies.computeIfAbsent(original.toFile(), key -> new ArrayList<Integer>()).add(i);
+		}
+		
+		List<File> groupedFiles = new ArrayList<File>(files.size());
+		List<String> groupedPaths = new ArrayList<String>(paths.size());
+		for (int i = 0; i < files.size(); i++)
+		{
+			if (duplicates.containsKey(files.get(i).toPath()))
+				continue;
+			
+			groupedFiles.add(files.get(i));
+			groupedPaths.add(paths.get(i));
+			for (int copy : copies.getOrDefault(files.get(i), Collections.<Integer>emptyList()))
+			{
+				groupedFiles.add(files.get(copy));
+				groupedPaths.add(paths.get(copy));
+			}
+		}
+		
+		files.clear();
+		files.addAll(groupedFiles);
+		paths.clear();
+		paths.addAll(groupedPaths);
+	}
 	
-	private static void collectFiles(File rootDir, File current, List<File> files, List<String> paths)
+	private static void collectFiles(File rootDir, File current, File archive, List<File> files, List<String> paths)
 	{
         File[] children = current.listFiles();
 
         if (children != null)
         {
+            Arrays.sort(children);
             for (File file : children)
             {
+                if (file.getAbsoluteFile().equals(archive))
+                	continue;
                 files.add(file);
                 
                 String relativePath = rootDir.toURI().relativize(file.toURI()).getPath();
@@ -361,7 +690,7 @@ public class SevenZReader implements IReader
                 paths.add(relativePath);
 
                 if (file.isDirectory())
-                    collectFiles(rootDir, file, files, paths);
+                    collectFiles(rootDir, file, archive, files, paths);
             }
         }
     }
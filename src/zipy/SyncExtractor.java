@@ -0,0 +1,519 @@
+package zipy;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.apache.commons.compress.archivers.sevenz.SevenZArchiveEntry;
+import org.apache.commons.compress.archivers.sevenz.SevenZFile;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+
+/**
+ * Brings a folder up to date with an archive, writing only the entries that changed. Every file
+ * entry is compared with the file already on the disk:
+ * <ul>
+ * <li>a missing file, or one of another size or modification time, is written without hashing it.</li>
+ * <li>a file of the same size and modification time is hashed when the archive stores a CRC-32,
+ * 	   on several threads at once, and is only written if the hash differs.</li>
+ * <li>without a stored CRC-32, as in tarballs, a file of the same size and modification time is
+ * 	   kept.</li>
+ * </ul>
+ * Changed entries are written to a temporary file next to the target and then moved over it, so
+ * a file is never seen half written. Every written file gets the modification time of its entry,
+ * so the next sync of the same archive writes none of them again, though it still hashes them
+ * when a CRC-32 is stored. Files that aren't in the archive can be deleted as well, see
+ * {@link #setDeleteExtraFiles(boolean)}.
+ * <p>
+ * Links of a tar are made again once the files are written, the way {@link IReader#extractFiles()}
+ * does: a hard link is kept while it is still the same file as the entry it points at, and is
+ * copied where links can't be made. A symbolic link is kept while it points at the same place. A
+ * symbolic link that leads out of the target is skipped, as files could be written through it.
+ * <p>
+ * Unlike {@link IReader#extractFiles()} the full path of every entry is kept.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+public final class SyncExtractor
+{
+	private static final String TEMP_SUFFIX = ".zipy-sync";
+
+	private final File archive;
+	private final File target;
+	private boolean deleteExtraFiles;
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * @param archive the archive to extract, of any type {@link ArchiveType} knows.
+	 * @param target the folder to bring up to date, created if it doesn't exist.
+	 */
+	public SyncExtractor(File archive, File target)
+	{
+		this.archive = archive;
+		this.target = target.getAbsoluteFile();
+	}
+
+	/**
+	 * @param deleteExtraFiles whether files and folders in the target that aren't in the archive
+	 * 		  are deleted, {@code false} by default.
+	 */
+	public void setDeleteExtraFiles(boolean deleteExtraFiles)
+	{
+		this.deleteExtraFiles = deleteExtraFiles;
+	}
+
+	/**
+	 * @param threads the amount of files hashed and written at once, one per core by default.
+	 */
+	public void setThreads(int threads)
+	{
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Compares the target with the archive and writes what changed.
+	 * @return {@link SyncResult} what was written, kept and deleted.
+	 * @throws IOException if the archive can't be read or a file can't be written. Files that
+	 * 		   were already brought up to date stay that way.
+	 */
+	public SyncResult sync() throws IOException
+	{
+		long start = System.nanoTime();
+		IReader reader = Zipy.readerFor(archive, target);
+		if (reader == null)
+			throw new IOException("Unknown archive type: " + archive);
+
+		// A later entry of the same name replaces an earlier one, as it would on extraction.
+		Map<String, ArchiveIndex.Entry> files = new LinkedHashMap<>();
+		Map<String, ArchiveIndex.Entry> links = new LinkedHashMap<>();
+		Set<Path> expected = new HashSet<>();
+		expected.add(target.toPath());
+
+		for (ArchiveIndex.Entry entry : reader.getIndex().getEntries())
+		{
+			String name = normalize(entry.getName());
+			if (name.isEmpty())
+				continue;
+
+			Path path = resolve(name);
+			for (Path parent = path; !parent.equals(target.toPath()); parent = parent.getParent())
+				expected.add(parent);
+
+			files.remove(name);
+			links.remove(name);
+			if (entry.isDirectory())
+				Files.createDirectories(path);
+			else if (entry.isHardLink() || (entry.isSymbolicLink() && staysInside(path, entry.getLinkName())))
+				links.put(name, entry);
+			else if (!entry.isSymbolicLink())
+				files.put(name, entry);
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			Set<String> changed = compare(files, executor);
+			Set<String> changedLinks = compareLinks(links, changed);
+			write(reader, files, changed, executor);
+			writeLinks(links, changedLinks);
+
+			List<String> deleted = deleteExtraFiles ? deleteExtra(expected) : Collections.emptyList();
+			List<String> written = new ArrayList<>();
+			long bytesWritten = 0;
+			for (String name : files.keySet())
+			{
+				if (changed.contains(name))
+				{
+					written.add(name);
+					bytesWritten += files.get(name).getSize();
+				}
+			}
+			for (String name : links.keySet())
+			{
+				if (changedLinks.contains(name))
+					written.add(name);
+			}
+
+			return new SyncResult(written, files.size() + links.size() - written.size(), deleted, bytesWritten,
+								  System.nanoTime() - start);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * @return the names of the entries that have to be written.
+	 */
+	private Set<String> compare(Map<String, ArchiveIndex.Entry> files, ExecutorService executor) throws IOException
+	{
+		Set<String> changed = new HashSet<>();
+		Map<String, Future<Boolean>> hashes = new LinkedHashMap<>();
+
+		for (Map.Entry<String, ArchiveIndex.Entry> file : files.entrySet())
+		{
+			ArchiveIndex.Entry entry = file.getValue();
+			Path path = resolve(file.getKey());
+			BasicFileAttributes attributes;
+			try {
+				attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+			} catch (IOException e) {
+				changed.add(file.getKey());
+				continue;
+			}
+
+			// An entry without a time can only be told apart by its size and CRC-32.
+			if (!attributes.isRegularFile() || attributes.size() != entry.getSize()
+					|| (entry.getLastModified() != -1 && !sameTime(attributes.lastModifiedTime(), entry)))
+				changed.add(file.getKey());
+			else if (entry.getCrc() != -1)
+				hashes.put(file.getKey(), executor.submit(() -> crcOf(path) == entry.getCrc()));
+		}
+
+		for (Map.Entry<String, Future<Boolean>> hash : hashes.entrySet())
+		{
+			if (!await(hash.getValue()))
+				changed.add(hash.getKey());
+		}
+		return changed;
+	}
+
+	/**
+	 * A hard link is changed when it is no longer the same file as its target, or the target is
+	 * written again, which leaves the link on the old contents.
+	 * @param changedFiles the files that are written.
+	 * @return the names of the links that have to be made.
+	 */
+	private Set<String> compareLinks(Map<String, ArchiveIndex.Entry> links, Set<String> changedFiles) throws IOException
+	{
+		Set<String> changed = new HashSet<>();
+		for (Map.Entry<String, ArchiveIndex.Entry> link : links.entrySet())
+		{
+			ArchiveIndex.Entry entry = link.getValue();
+			Path path = resolve(link.getKey());
+			boolean same;
+			if (entry.isSymbolicLink())
+				same = Files.isSymbolicLink(path) && Files.readSymbolicLink(path).toString().equals(entry.getLinkName());
+			else
+			{
+				String target = normalize(entry.getLinkName());
+				Path targetPath = resolve(target);
+				same = !changedFiles.contains(target) && !changed.contains(target)
+					   && Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS) && Files.exists(targetPath)
+					   && Files.isSameFile(path, targetPath);
+			}
+			if (!same)
+				changed.add(link.getKey());
+		}
+		return changed;
+	}
+
+	/**
+	 * Makes the changed links in the order of the archive, once every file they may point at is
+	 * written.
+	 */
+	private void writeLinks(Map<String, ArchiveIndex.Entry> links, Set<String> changed) throws IOException
+	{
+		for (Map.Entry<String, ArchiveIndex.Entry> link : links.entrySet())
+		{
+			if (!changed.contains(link.getKey()))
+				continue;
+
+			ArchiveIndex.Entry entry = link.getValue();
+			Path path = resolve(link.getKey());
+			Files.createDirectories(path.getParent());
+			Files.deleteIfExists(path);
+			if (entry.isSymbolicLink())
+			{
+				Files.createSymbolicLink(path, Paths.get(entry.getLinkName()));
+				continue;
+			}
+
+			Path target = resolve(normalize(entry.getLinkName()));
+			try {
+				Files.createLink(path, target);
+			} catch (IOException | UnsupportedOperationException e) {
+				Files.copy(target, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+	}
+
+	/**
+	 * @return whether a symbolic link at {@code path} leads to a place inside the target.
+	 */
+	private boolean staysInside(Path path, String linkName)
+	{
+		Path link = Paths.get(linkName);
+		return !link.isAbsolute() && path.getParent().resolve(link).normalize().startsWith(target.toPath());
+	}
+
+	/**
+	 * Formats that can seek to an entry write every changed entry on its own thread. 7z and
+	 * compressed tarballs would decode the archive again for every entry, so they are streamed
+	 * once instead, and the unchanged entries are skipped on the way.
+	 */
+	private void write(IReader reader, Map<String, ArchiveIndex.Entry> files, Set<String> changed,
+					   ExecutorService executor) throws IOException
+	{
+		if (changed.isEmpty())
+			return;
+
+		ArchiveType type = ArchiveType.detect(archive.toPath());
+		if (type == ArchiveType.SEVEN_ZIP)
+		{
+			writeSevenZip(files, changed);
+			return;
+		}
+		if (type.getTarCompression() != null && type.getTarCompression() != TarCompression.NONE)
+		{
+			writeTarball(files, changed);
+			return;
+		}
+
+		List<Future<?>> writes = new ArrayList<>();
+		for (Map.Entry<String, ArchiveIndex.Entry> file : files.entrySet())
+		{
+			if (!changed.contains(file.getKey()))
+				continue;
+			writes.add(executor.submit(() -> {
+				try (InputStream in = reader.openEntry(file.getValue().getName())) {
+					replace(file.getKey(), file.getValue(), in);
+				}
+				return null;
+			}));
+		}
+
+		for (Future<?> write : writes)
+			await(write);
+	}
+
+	private void writeSevenZip(Map<String, ArchiveIndex.Entry> files, Set<String> changed) throws IOException
+	{
+		try (SeekableByteChannel channel = Files.newByteChannel(archive.toPath());
+				SevenZFile sevenZFile = SevenZFile.builder().setSeekableByteChannel(channel).get()) {
+			SevenZArchiveEntry entry;
+			while ((entry = sevenZFile.getNextEntry()) != null)
+			{
+				String name = normalize(entry.getName());
+				if (!entry.isDirectory() && changed.contains(name) && files.get(name).getName().equals(entry.getName()))
+					replace(name, files.get(name), sevenZFile.getInputStream(entry));
+			}
+		}
+	}
+
+	private void writeTarball(Map<String, ArchiveIndex.Entry> files, Set<String> changed) throws IOException
+	{
+		try (BufferedInputStream in = new BufferedInputStream(new FileInputStream(archive));
+				TarArchiveInputStream tais = new TarArchiveInputStream(TarCompression.detect(in).decompress(in))) {
+			// With several entries of the same name, only the last one is written.
+			Map<String, Integer> remaining = new LinkedHashMap<>();
+			for (ArchiveIndex.Entry entry : new TarReader(archive, target).getIndex().getEntries())
+				remaining.merge(normalize(entry.getName()), 1, Integer::sum);
+
+			TarArchiveEntry entry;
+			while ((entry = tais.getNextEntry()) != null)
+			{
+				String name = normalize(entry.getName());
+				if (remaining.merge(name, -1, Integer::sum) == 0 && !entry.isDirectory() && changed.contains(name)
+						&& tais.canReadEntryData(entry))
+					replace(name, files.get(name), tais);
+			}
+		}
+	}
+
+	/**
+	 * Writes the entry to a temporary file and moves it over the target.
+	 */
+	private void replace(String name, ArchiveIndex.Entry entry, InputStream in) throws IOException
+	{
+		if (Thread.currentThread().isInterrupted())
+			throw new IOException("Extraction interrupted.");
+
+		Path path = resolve(name);
+		Files.createDirectories(path.getParent());
+		Path temp = path.resolveSibling(path.getFileName() + TEMP_SUFFIX);
+
+		byte[] buffer = BufferPool.acquire();
+		try {
+			try (OutputStream out = Files.newOutputStream(temp)) {
+				int read;
+				while ((read = in.read(buffer)) != -1)
+					out.write(buffer, 0, read);
+			}
+			if (entry.getLastModified() != -1)
+				Files.setLastModifiedTime(temp, FileTime.fromMillis(entry.getLastModified()));
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			BufferPool.release(buffer);
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Deletes everything in the target that isn't expected, deepest first.
+	 * @return the deleted paths, relative to the target.
+	 */
+	private List<String> deleteExtra(Set<Path> expected) throws IOException
+	{
+		List<Path> extra = new ArrayList<>();
+		try (Stream<Path> paths = Files.walk(target.toPath())) {
+			paths.filter(path -> !expected.contains(path)).forEach(extra::add);
+		}
+		extra.sort(Comparator.comparingInt(Path::getNameCount).reversed());
+
+		List<String> deleted = new ArrayList<>();
+		for (Path path : extra)
+		{
+			Files.deleteIfExists(path);
+			deleted.add(target.toPath().relativize(path).toString().replace('\\', '/'));
+		}
+		return deleted;
+	}
+
+	private static long crcOf(Path path) throws IOException
+	{
+		CRC32 crc = new CRC32();
+		byte[] buffer = BufferPool.acquire();
+		try (InputStream in = Files.newInputStream(path)) {
+			int read;
+			while ((read = in.read(buffer)) != -1)
+				crc.update(buffer, 0, read);
+		} finally {
+			BufferPool.release(buffer);
+		}
+		return crc.getValue();
+	}
+
+	/**
+	 * Archives keep times in whole seconds at best, so only the seconds are compared.
+	 */
+	private static boolean sameTime(FileTime time, ArchiveIndex.Entry entry)
+	{
+		return entry.getLastModified() != -1 && time.toMillis() / 1000 == entry.getLastModified() / 1000;
+	}
+
+	private static String normalize(String name)
+	{
+		String normalized = name.replace('\\', '/');
+		while (normalized.startsWith("./") || normalized.startsWith("/"))
+			normalized = normalized.substring(normalized.startsWith("/") ? 1 : 2);
+		return normalized.endsWith("/") ? normalized.substring(0, normalized.length() - 1) : normalized;
+	}
+
+	/**
+	 * @throws IOException if the entry would end up outside of the target.
+	 */
+	private Path resolve(String name) throws IOException
+	{
+		Path path = target.toPath().resolve(name).normalize();
+		if (!path.startsWith(target.toPath()) || path.equals(target.toPath()))
+			throw new IOException("Entry is outside of the target folder: " + name);
+		return path;
+	}
+
+	private static <T> T await(Future<T> future) throws IOException
+	{
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new IOException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Extraction interrupted.");
+		}
+	}
+
+	/**
+	 * The outcome of a sync.
+	 */
+	public static final class SyncResult
+	{
+		private final List<String> written;
+		private final int unchanged;
+		private final List<String> deleted;
+		private final long bytesWritten;
+		private final long nanos;
+
+		SyncResult(List<String> written, int unchanged, List<String> deleted, long bytesWritten, long nanos)
+		{
+			this.written = Collections.unmodifiableList(written);
+			this.unchanged = unchanged;
+			this.deleted = Collections.unmodifiableList(deleted);
+			this.bytesWritten = bytesWritten;
+			this.nanos = nanos;
+		}
+
+		/**
+		 * @return the entries that were missing or changed and got written.
+		 */
+		public List<String> getWritten()
+		{
+			return written;
+		}
+
+		/**
+		 * @return the amount of files that were already up to date.
+		 */
+		public int getUnchanged()
+		{
+			return unchanged;
+		}
+
+		/**
+		 * @return the files and folders deleted because they aren't in the archive.
+		 */
+		public List<String> getDeleted()
+		{
+			return deleted;
+		}
+
+		/**
+		 * @return the uncompressed size of the written entries.
+		 */
+		public long getBytesWritten()
+		{
+			return bytesWritten;
+		}
+
+		/**
+		 * @return how long the sync took, in milliseconds.
+		 */
+		public long getElapsedMillis()
+		{
+			return nanos / 1_000_000;
+		}
+
+		@Override
+		public String toString()
+		{
+			return written.size() + " written (" + bytesWritten + " bytes), " + unchanged + " unchanged, "
+					+ deleted.size() + " deleted in " + getElapsedMillis() + " ms";
+		}
+	}
+}
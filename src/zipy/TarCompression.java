@@ -0,0 +1,187 @@
+package zipy;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.commons.compress.compressors.CompressorException;
+import org.apache.commons.compress.compressors.CompressorStreamFactory;
+import org.apache.commons.compress.compressors.xz.XZUtils;
+import org.apache.commons.compress.compressors.zstandard.ZstdUtils;
+
+/**
+ * The compression wrapped around a .tar file. Gzip is handled by {@link ParallelGzipInputStream}
+ * and {@link ParallelGzipOutputStream}, the others by the Apache Commons library. XZ needs the
+ * {@code org.tukaani:xz} library on the classpath, and Zstandard the {@code com.github.luben:zstd-jni}
+ * library.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+public enum TarCompression
+{
+	NONE(".tar"),
+	GZIP(".tar.gz"),
+	BZIP2(".tar.bz2"),
+	XZ(".tar.xz"),
+	ZSTD(".tar.zst");
+	
+	private final String extension;
+	
+	private TarCompression(String extension)
+	{
+		this.extension = extension;
+	}
+	
+	/**
+	 * @return the usual file extension, such as {@code .tar.gz}.
+	 */
+	public String getExtension()
+	{
+		return extension;
+	}
+	
+	/**
+	 * Picks the compression from a file name, such as {@code logs.tgz} or {@code logs.tar.xz}.
+	 * @param fileName the name of the archive.
+	 * @return the matching compression, {@link #NONE} if there is none.
+	 */
+	public static TarCompression fromFileName(String fileName)
+	{
+		String name = fileName.toLowerCase();
+		
+		if (name.endsWith(".gz") || name.endsWith(".tgz"))
+			return GZIP;
+		if (name.endsWith(".bz2") || name.endsWith(".tbz2") || name.endsWith(".tbz"))
+			return BZIP2;
+		if (name.endsWith(".xz") || name.endsWith(".txz"))
+			return XZ;
+		if (name.endsWith(".zst") || name.endsWith(".tzst"))
+			return ZSTD;
+		return NONE;
+	}
+	
+	/**
+	 * Looks at the first bytes of the stream to find its compression. The stream is reset
+	 * afterwards, so nothing is consumed.
+	 * @param in the stream, which must support mark and reset.
+	 * @return the compression found, {@link #NONE} if the data isn't compressed.
+	 * @throws IOException if the stream can't be read.
+	 */
+	public static TarCompression detect(BufferedInputStream in) throws IOException
+	{
+		byte[] magic = new byte[6];
+		in.mark(magic.length);
+		int read = 0, count;
+		while (read < magic.length && (count = in.read(magic, read, magic.length - read)) != -1)
+			read += count;
+		in.reset();
+		
+		return detect(magic, read);
+	}
+	
+	/**
+	 * Finds the compression from the first bytes of a file.
+	 * @param magic the first bytes.
+	 * @param length the amount of bytes in {@code magic} that were read.
+	 * @return the compression found, {@link #NONE} if the data isn't compressed.
+	 */
+	static TarCompression detect(byte[] magic, int length)
+	{
+		if (length >= 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b)
+			return GZIP;
+		if (length >= 3 && magic[0] == 'B' && magic[1] == 'Z' && magic[2] == 'h')
+			return BZIP2;
+		if (length >= 6 && (magic[0] & 0xff) == 0xfd && magic[1] == '7' && magic[2] == 'z' && magic[3] == 'X'
+				&& magic[4] == 'Z' && magic[5] == 0)
+			return XZ;
+		if (length >= 4 && (magic[0] & 0xff) == 0x28 && (magic[1] & 0xff) == 0xb5 && (magic[2] & 0xff) == 0x2f
+				&& (magic[3] & 0xff) == 0xfd)
+			return ZSTD;
+		return NONE;
+	}
+	
+	/**
+	 * @return {@code false} if the library this compression needs isn't on the classpath.
+	 */
+	boolean isAvailable()
+	{
+		switch (this)
+		{
+			case XZ:
+				return XZUtils.isXZCompressionAvailable();
+			case ZSTD:
+				return ZstdUtils.isZstdCompressionAvailable();
+			default:
+				return true;
+		}
+	}
+	
+	/**
+	 * Wraps the stream so the uncompressed tar data can be read from it.
+	 * @param in the compressed data.
+	 * @return the decompressing stream, or {@code in} itself for {@link #NONE}.
+	 * @throws IOException if the stream can't be created.
+	 */
+	public InputStream decompress(InputStream in) throws IOException
+	{
+		return decompress(in, Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * Wraps the stream so the uncompressed tar data can be read from it.
+	 * @param in the compressed data.
+	 * @param threads the amount of threads inflating a gzip file with sized members, the other
+	 * 		   compressions are decoded on the reading thread.
+	 * @return the decompressing stream, or {@code in} itself for {@link #NONE}.
+	 * @throws IOException if the stream can't be created.
+	 */
+	public InputStream decompress(InputStream in, int threads) throws IOException
+	{
+		try {
+			switch (this)
+			{
+				case GZIP:
+					return new ParallelGzipInputStream(in, threads);
+				case BZIP2:
+					return new CompressorStreamFactory().createCompressorInputStream(CompressorStreamFactory.BZIP2, in, true);
+				case XZ:
+					return new CompressorStreamFactory().createCompressorInputStream(CompressorStreamFactory.XZ, in, true);
+				case ZSTD:
+					return new CompressorStreamFactory().createCompressorInputStream(CompressorStreamFactory.ZSTANDARD, in, true);
+				default:
+					return in;
+			}
+		} catch (CompressorException e) {
+			throw new IOException(e);
+		}
+	}
+	
+	/**
+	 * Wraps the stream so the tar data written to it gets compressed. Gzip uses every core.
+	 * @param out the stream receiving the compressed data.
+	 * @return the compressing stream, or {@code out} itself for {@link #NONE}.
+	 * @throws IOException if the stream can't be created.
+	 */
+	public OutputStream compress(OutputStream out) throws IOException
+	{
+		try {
+			switch (this)
+			{
+				case GZIP:
+					return new ParallelGzipOutputStream(out);
+				case BZIP2:
+					return new CompressorStreamFactory().createCompressorOutputStream(CompressorStreamFactory.BZIP2, out);
+				case XZ:
+					return new CompressorStreamFactory().createCompressorOutputStream(CompressorStreamFactory.XZ, out);
+				case ZSTD:
+					return new CompressorStreamFactory().createCompressorOutputStream(CompressorStreamFactory.ZSTANDARD, out);
+				default:
+					return out;
+			}
+		} catch (CompressorException e) {
+			throw new IOException(e);
+		}
+	}
+}
@@ -1,21 +1,25 @@
 package zipy;
 
 import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
-import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarFile;
+import org.apache.commons.io.input.BoundedInputStream;
 
 /**
- * A class used to read .tar files, using the Apache Commons library.
+ * A class used to read .tar files, as well as .tar.gz, .tar.bz2 and .tar.xz tarballs,
+ * using the Apache Commons library.
  * <p>
  * @author Abraham Yelifari
  * @version 1.0
@@ -23,18 +27,53 @@ import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
  */
 public class TarReader implements IReader
 {
+	/**
+	 * Appended to the archive name to get the name of its sidecar index.
+	 */
+	public static final String INDEX_SUFFIX = ".idx";
+	
 	private final String outputPath;
-	private final String tarFilePath;
+	private final ArchiveSource source;
+	private ArchiveProgressListener progressListener;
+	private int writerThreads = PipelinedExtractor.DEFAULT_WRITERS;
+	private int decompressionThreads = Runtime.getRuntime().availableProcessors();
 	
 	public TarReader(String tarFilePath, String outputPath)
 	{
-		this.tarFilePath = tarFilePath;
+		this.source = ArchiveSource.of(tarFilePath);
 		this.outputPath = outputPath;
 	}
 	
 	public TarReader(File tarFile, File output)
 	{
-		this.tarFilePath = tarFile.getAbsolutePath();
+		this.source = ArchiveSource.of(tarFile);
+		this.outputPath = output.getAbsolutePath();
+	}
+	
+	/**
+	 * Reads the archive from a channel, such as one over an archive held in memory, the same way as
+	 * from a file. The channel is left open.
+	 * @param tarChannel the archive, read from position 0.
+	 * @param output the folder the files are extracted to.
+	 */
+	public TarReader(SeekableByteChannel tarChannel, File output)
+	{
+		this.source = ArchiveSource.of(tarChannel);
+		this.outputPath = output.getAbsolutePath();
+	}
+	
+	/**
+	 * Reads the archive from a stream, such as one received over the network, without copying it to
+	 * a file first. The stream can only be read once. After {@link #getIndex()}, or an extraction
+	 * that read the whole stream, {@link #listEntries()} and {@link #getIndex()} still work. After
+	 * anything else they throw an {@link IOException}, as the entries before and after the ones
+	 * read are gone. The stream is left open.
+	 * @param tarStream the archive or compressed tarball, read from where it is.
+	 * @param output the folder the files are extracted to.
+	 */
+	public TarReader(InputStream tarStream, File output)
+	{
+		this.source = ArchiveSource.of(tarStream);
 		this.outputPath = output.getAbsolutePath();
 	}
 
@@ -44,34 +83,79 @@ public class TarReader implements IReader
 		File outputDir = new File(outputPath);
 		
 		if(!outputDir.exists())
-			outputDir.mkdir();
+			outputDir.mkdirs();
+		
+		ProgressTracker progress = ProgressTracker.of(TarReader.class, progressListener, true);
+		if (progress != null)
+			progress.started(-1);
 		
-		try (TarArchiveInputStream tais = new TarArchiveInputStream(
-											new BufferedInputStream(
-												new FileInputStream(new File(tarFilePath))))){
+		// A stream can't be read again to index it, so the headers read here become its index.
+		List<ArchiveIndex.Entry> indexed = source.isSeekable() ? null : new ArrayList<>();
+		try (PipelinedExtractor pipeline = new PipelinedExtractor(outputDir, writerThreads, BufferPool.SIZE);
+				TarArchiveInputStream tais = new TarArchiveInputStream(openArchiveStream(progress))){
 			TarArchiveEntry entry;
 			while((entry = tais.getNextEntry()) != null)
 			{
+				if (Thread.currentThread().isInterrupted())
+					throw new IOException("Extraction interrupted.");
+				if (indexed != null)
+					indexed.add(toIndexEntry(entry, -1));
 				if(!tais.canReadEntryData(entry))
 					continue;
 				
-				File outputFile = new File(outputDir, entry.getName());
+				if (progress != null)
+					progress.entryStarted(entry.getName(), entry.getSize());
 				
-				try (FileOutputStream fos = new FileOutputStream(outputFile)) {
-                    byte[] buffer = new byte[4096];
-                    int bytesRead;
-                    while ((bytesRead = tais.read(buffer)) != -1)
-                        fos.write(buffer, 0, bytesRead);
-                } catch(IOException e) {
-                	e.printStackTrace();
-                	Zipy.deleteDirectory(outputDir);
-                	return false;
-                }
+				// Hard links point at an entry already extracted, and are copied where links aren't possible.
+				if (entry.isDirectory())
+					pipeline.directory(entry.getName());
+				else if (entry.isLink())
+					pipeline.link(entry.getName(), entry.getLinkName());
+				else
+				{
+					long written = pipeline.file(entry.getName(), tais);
+					if (progress != null)
+						progress.add(0, written);
+				}
+				
+				if (progress != null)
+					progress.entryFinished(entry.getName(), entry.getSize());
 			}
 			
+			pipeline.finish();
+			if (indexed != null)
+				source.putIndex(new ArchiveIndex(indexed));
+			if (progress != null)
+				progress.finished();
 			return true;
+		} catch(PipelinedExtractor.WriteException e) {
+			e.printStackTrace();
+			if (progress != null)
+				progress.failed();
+			Zipy.deleteDirectory(outputDir);
+			return false;
 		}
 	}
+	
+	/**
+	 * Sets the amount of threads writing the decoded files, while the archive itself is decoded on
+	 * the calling thread. More writers help most with many small files or a slow file system.
+	 * @param threads the amount of writer threads, 4 by default.
+	 */
+	public void setWriterThreads(int threads)
+	{
+		this.writerThreads = Math.max(1, threads);
+	}
+	
+	/**
+	 * Sets the amount of threads inflating a gzip tarball whose members say how long they are,
+	 * such as one written by {@link ParallelGzipOutputStream}.
+	 * @param threads the amount of threads, one per core by default.
+	 */
+	public void setDecompressionThreads(int threads)
+	{
+		this.decompressionThreads = Math.max(1, threads);
+	}
 
 	@Override
 	public boolean isPasswordProtected()
@@ -79,6 +163,12 @@ public class TarReader implements IReader
 		return false;
 	}
 	
+	@Override
+	public void setProgressListener(ArchiveProgressListener listener)
+	{
+		this.progressListener = listener;
+	}
+	
 	/**
 	 * A static method used to create a .tar file, as there is no need to have it localized since
 	 * the local variables are meant to be used in extraction.
@@ -92,24 +182,9 @@ public class TarReader implements IReader
 		String name = fileName.substring(0, (fileName.contains(".") ? fileName.lastIndexOf('.') : fileName.length()));
 		File tarFile = new File(name);
 		
-		try(FileOutputStream fos = new FileOutputStream(tarFile);
-				BufferedOutputStream bos = new BufferedOutputStream(fos);
-					TarArchiveOutputStream taos = new TarArchiveOutputStream(bos);) {
-			
-			TarArchiveEntry entry = new TarArchiveEntry(filesToTar);
-			taos.putArchiveEntry(entry);
-			
-			try(FileInputStream fis = new FileInputStream(filesToTar)) {
-				byte[] buffer = new byte[1024];
-				int bytesRead = 0;
-				
-				while ((bytesRead = fis.read(buffer)) != -1)
-                    taos.write(buffer, 0, bytesRead);
-			}
-			taos.closeArchiveEntry();
-			
-			return tarFile;
-		}
+		makeArchive(filesToTar, tarFile);
+		
+		return tarFile;
 	}
 	
 	
@@ -122,44 +197,341 @@ public class TarReader implements IReader
 	 */
 	public static void makeArchive(File filesToTar, File tarFile) throws FileNotFoundException, IOException
 	{		
-		try(FileOutputStream fos = new FileOutputStream(tarFile);
-				BufferedOutputStream bos = new BufferedOutputStream(fos);
-					TarArchiveOutputStream taos = new TarArchiveOutputStream(bos);) {
-			
-			TarArchiveEntry entry = new TarArchiveEntry(filesToTar);
-			taos.putArchiveEntry(entry);
-			
-			try(FileInputStream fis = new FileInputStream(filesToTar)) {
-				byte[] buffer = new byte[1024];
-				int bytesRead = 0;
-				
-				while ((bytesRead = fis.read(buffer)) != -1)
-                    taos.write(buffer, 0, bytesRead);
-			}
-			taos.closeArchiveEntry();
+		makeArchive(filesToTar, tarFile, TarCompression.NONE);
+	}
+	
+	/**
+	 * A static method used to create a compressed tarball such as a .tar.gz file. Gzip
+	 * compresses blocks on every core at once and writes a multi-member gzip file.
+	 * @param fileToTar the file(s) to archive into a .tar file.
+	 * @param tarFile the file where the archive will be created.
+	 * @param compression the compression wrapped around the tar data.
+	 * @throws FileNotFoundException, IOException
+	 */
+	public static void makeArchive(File filesToTar, File tarFile, TarCompression compression) throws FileNotFoundException, IOException
+	{		
+		makeArchive(filesToTar, tarFile, compression, Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * A static method used to create a .tar file from a file or a whole directory tree. The tree is
+	 * walked and small files are read ahead on {@code threads} threads, while a single writer streams
+	 * the entries in a fixed order: every directory followed by its children, sorted by name.
+	 * Directories are stored with the folder itself as the root of every entry name.
+	 * @param fileToTar the file(s) to archive into a .tar file.
+	 * @param tarFile the file where the archive will be created.
+	 * @param compression the compression wrapped around the tar data.
+	 * @param threads the amount of threads walking the tree and reading files.
+	 * @throws FileNotFoundException, IOException
+	 */
+	public static void makeArchive(File filesToTar, File tarFile, TarCompression compression, int threads) throws FileNotFoundException, IOException
+	{
+		makeArchive(filesToTar, tarFile, compression, threads, null);
+	}
+	
+	/**
+	 * A static method used to create a .tar file from a file or a whole directory tree, telling the
+	 * listener about every entry as it is written. Bytes out are counted after compression.
+	 * @param fileToTar the file(s) to archive into a .tar file.
+	 * @param tarFile the file where the archive will be created.
+	 * @param compression the compression wrapped around the tar data.
+	 * @param threads the amount of threads walking the tree and reading files.
+	 * @param listener the listener, may be {@code null}.
+	 * @throws FileNotFoundException, IOException
+	 */
+	public static void makeArchive(File filesToTar, File tarFile, TarCompression compression, int threads,
+								   ArchiveProgressListener listener) throws FileNotFoundException, IOException
+	{
+		makeArchive(filesToTar, tarFile, compression, threads, listener, false);
+	}
+	
+	/**
+	 * A static method used to create a .tar file from a file or a whole directory tree, optionally
+	 * storing every file with the same content as an earlier one as a hard link to it.
+	 * @param fileToTar the file(s) to archive into a .tar file.
+	 * @param tarFile the file where the archive will be created.
+	 * @param compression the compression wrapped around the tar data.
+	 * @param threads the amount of threads walking the tree and reading files.
+	 * @param listener the listener, may be {@code null}.
+	 * @param deduplicate whether files with the same content are stored as hard links.
+	 * @throws FileNotFoundException, IOException
+	 */
+	public static void makeArchive(File filesToTar, File tarFile, TarCompression compression, int threads,
+								   ArchiveProgressListener listener, boolean deduplicate) throws FileNotFoundException, IOException
+	{
+		if (!filesToTar.exists())
+			throw new FileNotFoundException(filesToTar.getPath());
+		
+		ProgressTracker progress = ProgressTracker.of(TarReader.class, listener, false);
+		FileOutputStream fos = new FileOutputStream(tarFile);
+		OutputStream cos;
+		try {
+			cos = compression.compress(progress != null ? progress.countWrites(fos) : fos);
+		} catch(IOException e) {
+			fos.close();
+			throw e;
 		}
+		
+		new ParallelTarCreator(threads, progress, deduplicate).create(filesToTar.toPath(), cos);
 	}
 
 	@Override
-	public List<String> listEntries()
+	public List<String> listEntries() throws IOException
 	{
 		List<String> entries = new ArrayList<>();
-		try(TarArchiveInputStream tais = new TarArchiveInputStream(new FileInputStream(new File(tarFilePath)))) {
-			TarArchiveEntry entry;
-			while((entry = tais.getNextEntry()) != null)
-			{
-				entries.add(entry.getName());
-				entry = tais.getNextEntry();
-			}
+		try {
+			entries.addAll(getIndex().getNames());
 		} catch(IOException e) {
+			// A stream that can't be listed any more isn't an empty archive.
+			if (!source.isSeekable())
+				throw e;
 			e.printStackTrace();
 		}
 		return entries;
 	}
 	
 	@Override
-	public int getNumberOfItemsInArchive()
+	public int getNumberOfItemsInArchive() throws IOException
 	{
 		return this.listEntries().size();
 	}
+	
+	/**
+	 * The archive is read once, from start to end. Hard links get a copy of the file they point at.
+	 * A stream keeps the headers read on the way as its index.
+	 */
+	@Override
+	public InMemoryExtraction extractToMemory() throws IOException
+	{
+		InMemoryExtraction result = new InMemoryExtraction();
+		List<ArchiveIndex.Entry> indexed = new ArrayList<>();
+		try (TarArchiveInputStream tais = new TarArchiveInputStream(openArchiveStream(null))) {
+			TarArchiveEntry entry;
+			while ((entry = tais.getNextEntry()) != null)
+			{
+				indexed.add(toIndexEntry(entry, -1));
+				if (entry.isLink())
+				{
+					if (!result.copy(entry.getName(), entry.getLinkName()))
+						throw new FileNotFoundException(entry.getName() + " links to a missing entry in " + source);
+				}
+				else if (entry.isFile() && tais.canReadEntryData(entry))
+					result.add(entry.getName(), entry.getSize(), tais);
+			}
+			if (!source.isSeekable())
+				source.putIndex(new ArchiveIndex(indexed));
+			return result;
+		} catch (IOException | RuntimeException e) {
+			result.close();
+			throw e;
+		}
+	}
+	
+	@Override
+	public ArchiveIndex getIndex() throws IOException
+	{
+		return source.getIndex(this::loadIndex);
+	}
+	
+	/**
+	 * @return the sidecar index of the archive, {@code <archive>.idx}, which may not exist yet, or
+	 * 		   {@code null} if the archive isn't read from a file.
+	 */
+	public File getIndexFile()
+	{
+		return source.getFile() != null ? new File(source.getFile().getPath() + INDEX_SUFFIX) : null;
+	}
+	
+	/**
+	 * Builds the index of the archive and saves it next to it, see {@link #getIndexFile()}. Later
+	 * readers of the same archive load the sidecar instead of reading through the whole tar, as
+	 * long as the archive keeps the size and modification time it has now.
+	 * @return the sidecar file.
+	 * @throws IOException if the archive can't be read or the sidecar can't be written, or the
+	 * 		   archive isn't read from a file.
+	 */
+	public File writeIndex() throws IOException
+	{
+		File archive = source.getFile();
+		if (archive == null)
+			throw new IOException("Only an archive read from a file can have a sidecar index.");
+		File sidecar = getIndexFile();
+		
+		getIndex().save(sidecar, archive);
+		return sidecar;
+	}
+	
+	@Override
+	public boolean extractEntry(String name, OutputStream out) throws IOException
+	{
+		InputStream in;
+		if (source.isSeekable())
+		{
+			ArchiveIndex.Entry entry = getIndex().find(name);
+			if (entry == null || entry.isDirectory())
+				return false;
+			in = openEntry(name);
+		}
+		else if ((in = seekStream(name, 1)) == null)
+			return false;
+		
+		byte[] buffer = BufferPool.acquire();
+		try (InputStream stream = in) {
+			int bytesRead;
+			while ((bytesRead = stream.read(buffer)) != -1)
+				out.write(buffer, 0, bytesRead);
+		} finally {
+			BufferPool.release(buffer);
+		}
+		return true;
+	}
+	
+	/**
+	 * In an uncompressed tar the data is read straight from where the index says the entry
+	 * starts, without touching anything before it. Otherwise the headers are scanned one by one,
+	 * skipping over the data of every entry before the requested one, which is all a stream allows.
+	 * A stream stops at the first entry with the name, as it can't be read on to find a later one.
+	 */
+	@Override
+	public InputStream openEntry(String name) throws IOException
+	{
+		if (!source.isSeekable())
+		{
+			InputStream in = seekStream(name, 1);
+			if (in == null)
+				throw new FileNotFoundException(name + " is not a file in " + source);
+			return in;
+		}
+		
+		ArchiveIndex.Entry entry = getIndex().find(name);
+		if (entry == null || entry.isDirectory())
+			throw new FileNotFoundException(name + " is not a file in " + source);
+		
+		if (entry.getOffset() >= 0)
+		{
+			SeekableByteChannel channel = source.openChannel();
+			try {
+				channel.position(entry.getOffset());
+				InputStream data = BoundedInputStream.builder().setInputStream(Channels.newInputStream(channel))
+															   .setMaxCount(entry.getSize())
+															   .get();
+				return new EntryInputStream(data, channel);
+			} catch (IOException e) {
+				channel.close();
+				throw e;
+			}
+		}
+		
+		// The index returns the last entry with the name, which is the one the scan stops at.
+		int occurrences = 0;
+		for (ArchiveIndex.Entry other : getIndex().getEntries())
+		{
+			if (!other.isDirectory() && other.getName().equals(name))
+				occurrences++;
+		}
+		
+		InputStream in = seekStream(name, occurrences);
+		if (in == null)
+			throw new FileNotFoundException(name + " is not a file in " + source);
+		return in;
+	}
+	
+	/**
+	 * Reads the archive up to the named entry.
+	 * @param occurrence which of the files with that name is wanted, from 1.
+	 * @return the stream positioned at the data of the entry, or {@code null} if there is no such
+	 * 		   file with that name.
+	 */
+	private InputStream seekStream(String name, int occurrence) throws IOException
+	{
+		TarArchiveInputStream tais = new TarArchiveInputStream(openArchiveStream(null));
+		try {
+			TarArchiveEntry tarEntry;
+			int seen = 0;
+			while ((tarEntry = tais.getNextEntry()) != null)
+			{
+				if (!tarEntry.isDirectory() && tarEntry.getName().equals(name) && ++seen == occurrence)
+					return new EntryInputStream(tais);
+			}
+		} catch (IOException e) {
+			tais.close();
+			throw e;
+		}
+		tais.close();
+		return null;
+	}
+	
+	/**
+	 * Loads the sidecar index if there is an up to date one, and builds the index otherwise.
+	 */
+	private ArchiveIndex loadIndex() throws IOException
+	{
+		ArchiveIndex index = source.getFile() != null ? ArchiveIndex.load(getIndexFile(), source.getFile()) : null;
+		return index != null ? index : buildIndex();
+	}
+	
+	/**
+	 * Uncompressed archives are indexed with {@link TarFile}, which seeks over the entry data
+	 * instead of reading it and records where the data of every entry starts. That data offset
+	 * is stored rather than the header offset, as it is what a reader seeks to. Sparse entries
+	 * can't be read by seeking and compressed tarballs and streams have to be read through, so
+	 * those entries have no offset.
+	 */
+	private ArchiveIndex buildIndex() throws IOException
+	{
+		List<ArchiveIndex.Entry> entries = new ArrayList<>();
+		TarCompression compression = null;
+		
+		if (source.isSeekable())
+		{
+			try (BufferedInputStream in = new BufferedInputStream(source.openStream())) {
+				compression = TarCompression.detect(in);
+			}
+		}
+		
+		if (compression == TarCompression.NONE)
+		{
+			try (SeekableByteChannel channel = source.openChannel();
+					TarFile tarFile = new TarFile(channel)) {
+				for (TarArchiveEntry entry : tarFile.getEntries())
+					entries.add(toIndexEntry(entry, entry.isSparse() ? -1 : entry.getDataOffset()));
+			}
+		}
+		else
+		{
+			try (TarArchiveInputStream tais = new TarArchiveInputStream(openArchiveStream(null))) {
+				TarArchiveEntry entry;
+				while((entry = tais.getNextEntry()) != null)
+					entries.add(toIndexEntry(entry, -1));
+			}
+		}
+		
+		return new ArchiveIndex(entries);
+	}
+	
+	private static ArchiveIndex.Entry toIndexEntry(TarArchiveEntry entry, long offset)
+	{
+		String linkName = entry.isLink() || entry.isSymbolicLink() ? entry.getLinkName() : null;
+		return new ArchiveIndex.Entry(entry.getName(), entry.getSize(), entry.getSize(), "STORED", -1, offset,
+				entry.getModTime().getTime(), entry.getMode() & 07777, entry.isDirectory(), linkName,
+				entry.isSymbolicLink());
+	}
+	
+	/**
+	 * Opens the archive, decompressing it on the fly when it is a compressed tarball. The
+	 * compression is found from the first bytes of the file, not its name.
+	 * @param progress counts the bytes read from the file, may be {@code null}.
+	 */
+	private InputStream openArchiveStream(ProgressTracker progress) throws IOException
+	{
+		InputStream file = source.openStream();
+		BufferedInputStream in = new BufferedInputStream(progress != null ? progress.countReads(file) : file);
+		
+		try {
+			return TarCompression.detect(in).decompress(in, decompressionThreads);
+		} catch(IOException e) {
+			in.close();
+			throw e;
+		}
+	}
 }
\ No newline at end of file
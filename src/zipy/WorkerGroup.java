@@ -0,0 +1,143 @@
+package zipy;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The workers of one parallel extraction on an executor. A worker that fails raises the shared
+ * flag at once, so the others stop before their next entry instead of extracting files that are
+ * about to be deleted. {@link #await()} only returns once every worker has stopped, so the output
+ * folder can be removed without a worker still writing into it.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+final class WorkerGroup
+{
+	private final ExecutorService executor;
+	private final AtomicBoolean failed = new AtomicBoolean();
+	private final List<Future<?>> futures = new ArrayList<>();
+	private final Set<Thread> running = new HashSet<>();
+	private Throwable failure;
+
+	/**
+	 * One worker, which checks the flag between entries.
+	 */
+	interface Worker
+	{
+		void run(AtomicBoolean failed) throws IOException;
+	}
+
+	/**
+	 * @param executor the executor the workers are submitted to, it is not shut down.
+	 */
+	WorkerGroup(ExecutorService executor)
+	{
+		this.executor = executor;
+	}
+
+	void submit(Worker worker)
+	{
+		futures.add(executor.submit(() -> {
+			run(worker);
+			return null;
+		}));
+	}
+
+	/**
+	 * Waits for every worker to stop. When the waiting thread is interrupted the workers are
+	 * interrupted too and still waited for, and the interrupt is kept.
+	 * @return {@code true} if every worker finished, {@code false} if one of them failed with an
+	 * 		   {@link IOException} or the wait was interrupted.
+	 * @throws RuntimeException the first failure, if it wasn't an {@link IOException}, with any
+	 * 		   later failure suppressed by it. Errors are thrown the same way.
+	 */
+	boolean await()
+	{
+		boolean interrupted = false;
+		for (Future<?> future : futures)
+		{
+			while (true)
+			{
+				try {
+					future.get();
+					break;
+				} catch (ExecutionException e) {
+					// Workers catch everything, this only happens if the executor failed the task.
+					fail(e.getCause());
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+					fail(new IOException("Extraction interrupted.", e));
+					interruptWorkers();
+				}
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+
+		synchronized (running)
+		{
+			if (failure instanceof RuntimeException)
+				throw (RuntimeException) failure;
+			if (failure instanceof Error)
+				throw (Error) failure;
+			return failure == null;
+		}
+	}
+
+	/**
+	 * A worker that only starts after a failure returns at once, so every queued worker still
+	 * completes its future.
+	 */
+	private void run(Worker worker)
+	{
+		synchronized (running)
+		{
+			if (failed.get())
+				return;
+			running.add(Thread.currentThread());
+		}
+
+		try {
+			worker.run(failed);
+		} catch (Throwable e) {
+			fail(e);
+		} finally {
+			synchronized (running)
+			{
+				running.remove(Thread.currentThread());
+				// An interrupt meant for this worker must not reach the next task of the thread.
+				Thread.interrupted();
+			}
+		}
+	}
+
+	private void fail(Throwable e)
+	{
+		synchronized (running)
+		{
+			if (failure == null)
+				failure = e;
+			else if (failure != e)
+				failure.addSuppressed(e);
+			failed.set(true);
+		}
+	}
+
+	private void interruptWorkers()
+	{
+		synchronized (running)
+		{
+			for (Thread thread : running)
+				thread.interrupt();
+		}
+	}
+}
@@ -1,20 +1,34 @@
 package zipy;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Enumeration;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipMethod;
+import org.apache.commons.io.input.BoundedInputStream;
 
 import net.lingala.zip4j.ZipFile;
-import net.lingala.zip4j.model.FileHeader;
 
 /**
- * A class used to read .zip files, using the standard Java Zip Library, as well as
- * the Zip4J library to create .zip files.
+ * A class used to read .zip files straight from their central directory, using the
+ * Apache Commons library, as well as the Zip4J library to create .zip files.
  * <p>
  * @author Abraham Yelifari
  * @version 1.0
@@ -23,17 +37,47 @@ import net.lingala.zip4j.model.FileHeader;
 public class ZipReader implements IReader
 {
 	private final String outputPath;
-	private final String zipFilePath;
+	private final ArchiveSource source;
+	private ArchiveProgressListener progressListener;
 	
 	public ZipReader(String zipFilePath, String outputPath)
 	{
-		this.zipFilePath = zipFilePath;
+		this.source = ArchiveSource.of(zipFilePath);
 		this.outputPath = outputPath;
 	}
 	
 	public ZipReader(File zipFile, File output)
 	{
-		this.zipFilePath = zipFile.getAbsolutePath();
+		this.source = ArchiveSource.of(zipFile);
+		this.outputPath = output.getAbsolutePath();
+	}
+	
+	/**
+	 * Reads the archive from a channel, such as one over an archive held in memory, the same way as
+	 * from a file. The channel is left open, and the parallel extraction still reads it on every
+	 * thread, one read at a time.
+	 * @param zipChannel the archive, read from position 0.
+	 * @param output the folder the files are extracted to.
+	 */
+	public ZipReader(SeekableByteChannel zipChannel, File output)
+	{
+		this.source = ArchiveSource.of(zipChannel);
+		this.outputPath = output.getAbsolutePath();
+	}
+	
+	/**
+	 * Reads the archive from a stream, such as one received over the network, without copying it to
+	 * a file first. The local headers are read one after the other, so everything is done on the
+	 * calling thread and the stream can only be read once. After {@link #getIndex()}, or an
+	 * extraction that read the whole stream, {@link #listEntries()} and {@link #getIndex()} still
+	 * work. After anything else they throw an {@link IOException}, as the entries before and after
+	 * the ones read are gone. The stream is left open.
+	 * @param zipStream the archive, read from where it is.
+	 * @param output the folder the files are extracted to.
+	 */
+	public ZipReader(InputStream zipStream, File output)
+	{
+		this.source = ArchiveSource.of(zipStream);
 		this.outputPath = output.getAbsolutePath();
 	}
 	
@@ -41,46 +85,99 @@ public class ZipReader implements IReader
 	public boolean extractFiles() throws IOException
 	{
 		File outputFolder = new File(outputPath);
-		ZipEntry zipEntry;
 		
 		if (!outputFolder.exists())
 			outputFolder.mkdirs();
+		if (!source.isSeekable())
+			return extractStream(outputFolder);
 		
-		try(ZipInputStream zis = new ZipInputStream(new FileInputStream(zipFilePath))) {
-			
-			while((zipEntry = zis.getNextEntry()) != null)
-			{
-				
-                if (zipEntry.isDirectory())
-                	continue;
-                
-                File newFile = new File(outputFolder, new File(zipEntry.getName()).getName());
+		return new ParallelZipExtractor(source, outputFolder,
+										ProgressTracker.of(ZipReader.class, progressListener, true)).extract();
+	}
 
-                if (!newFile.exists())
-                {
-                	try (FileOutputStream fos = new FileOutputStream(newFile)) {
-                        byte[] buffer = new byte[1024];
-                        int len;
-                        while ((len = zis.read(buffer)) > 0)
-                            fos.write(buffer, 0, len);
-                    } catch(IOException e) {
-                    	Zipy.deleteDirectory(outputFolder);
-                    	return false;
-                    }
-                }
-                zis.closeEntry();
-			}
-			
-			return true;
+	/**
+	 * Extracts the files to the outputPath on several threads. The central directory is read once
+	 * and each thread inflates its entries through its own handle to the archive. The result is the
+	 * same as {@link #extractFiles()}.
+	 * @param threads the amount of threads used to extract the entries.
+	 * @throws IOException when a fatal error occurs.
+	 * @return {@code true} if it was successful in extracting the files to the
+	 * 		   specified output path and {@code false} if it failed.
+	 */
+	public boolean extractFilesParallel(int threads) throws IOException
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+
+		try {
+			return extractFilesParallel(executor, threads);
+		} finally {
+			executor.shutdownNow();
 		}
 	}
 
+	/**
+	 * Extracts the files to the outputPath using the given executor. The executor is left running
+	 * so it can be shared between several extractions. A stream is extracted on the calling thread.
+	 * @param executor the executor the extraction work is submitted to.
+	 * @param parallelism the maximum amount of entries extracted at the same time.
+	 * @throws IOException when a fatal error occurs.
+	 * @return {@code true} if it was successful in extracting the files to the
+	 * 		   specified output path and {@code false} if it failed.
+	 */
+	public boolean extractFilesParallel(ExecutorService executor, int parallelism) throws IOException
+	{
+		File outputFolder = new File(outputPath);
+
+		if (!outputFolder.exists())
+			outputFolder.mkdirs();
+		if (!source.isSeekable())
+			return extractStream(outputFolder);
+
+		return new ParallelZipExtractor(source, outputFolder,
+										ProgressTracker.of(ZipReader.class, progressListener, true)).extract(executor, parallelism);
+	}
+
+	@Override
+	public void setProgressListener(ArchiveProgressListener listener)
+	{
+		this.progressListener = listener;
+	}
+
+	/**
+	 * Zip4J only reads files, any other source has the encryption flag of every entry read instead.
+	 */
 	@Override
 	public boolean isPasswordProtected() throws IOException
 	{
-		try(ZipFile zipped = new ZipFile(new File(zipFilePath))) {
-			return zipped.isEncrypted();
+		if (source.getFile() != null)
+		{
+			try(ZipFile zipped = new ZipFile(source.getFile())) {
+				return zipped.isEncrypted();
+			}
+		}
+		
+		if (!source.isSeekable())
+		{
+			try (ZipArchiveInputStream zis = openStream(null)) {
+				ZipArchiveEntry header;
+				while ((header = zis.getNextEntry()) != null)
+				{
+					if (header.getGeneralPurposeBit().usesEncryption())
+						return true;
+				}
+			}
+			return false;
+		}
+		
+		try (org.apache.commons.compress.archivers.zip.ZipFile zip = ParallelZipExtractor.open(source)) {
+			Enumeration<ZipArchiveEntry> headers = zip.getEntries();
+			while (headers.hasMoreElements())
+			{
+				if (headers.nextElement().getGeneralPurposeBit().usesEncryption())
+					return true;
+			}
 		}
+		return false;
 	}
 
 	@Override
@@ -88,10 +185,12 @@ public class ZipReader implements IReader
 	{
 		List<String> entries = new ArrayList<>();
 		
-		try(ZipFile zipped = new ZipFile(zipFilePath)) {
-			for (FileHeader header : zipped.getFileHeaders())
-				entries.add(header.getFileName());
+		try {
+			entries.addAll(getIndex().getNames());
 		} catch (IOException e) {
+			// A stream that can't be listed any more isn't an empty archive.
+			if (!source.isSeekable())
+				throw e;
 			e.printStackTrace();
 		}
 		
@@ -104,6 +203,299 @@ public class ZipReader implements IReader
 		return this.listEntries().size();
 	}
 	
+	/**
+	 * Every file is read straight from its offset, the same way {@link #openEntry(String)} does.
+	 * A stream is read once, from start to end.
+	 */
+	@Override
+	public InMemoryExtraction extractToMemory() throws IOException
+	{
+		InMemoryExtraction result = new InMemoryExtraction();
+		try {
+			if (!source.isSeekable())
+			{
+				List<ZipArchiveEntry> headers = new ArrayList<>();
+				try (ZipArchiveInputStream zis = openStream(null)) {
+					ZipArchiveEntry header;
+					while ((header = zis.getNextEntry()) != null)
+					{
+						headers.add(header);
+						if (header.isDirectory())
+							continue;
+						if (!zis.canReadEntryData(header))
+							throw new ZipException("Unsupported compression method or encryption: " + header.getName());
+						result.add(header.getName(), header.getSize(), zis);
+					}
+				}
+				source.putIndex(streamIndex(headers));
+				return result;
+			}
+			
+			for (ArchiveIndex.Entry entry : getIndex().getEntries())
+			{
+				if (entry.isDirectory())
+					continue;
+				try (InputStream in = openEntry(entry.getName())) {
+					result.add(entry.getName(), entry.getSize(), in);
+				}
+			}
+			return result;
+		} catch (IOException | RuntimeException e) {
+			result.close();
+			throw e;
+		}
+	}
+	
+	@Override
+	public ArchiveIndex getIndex() throws IOException
+	{
+		return source.getIndex(this::buildIndex);
+	}
+	
+	@Override
+	public boolean extractEntry(String name, OutputStream out) throws IOException
+	{
+		InputStream in;
+		if (source.isSeekable())
+		{
+			ArchiveIndex.Entry entry = getIndex().find(name);
+			if (entry == null || entry.isDirectory())
+				return false;
+			in = openEntry(name);
+		}
+		else if ((in = seekStream(name)) == null)
+			return false;
+		
+		byte[] buffer = BufferPool.acquire();
+		try (InputStream stream = in) {
+			int bytesRead;
+			while ((bytesRead = stream.read(buffer)) != -1)
+				out.write(buffer, 0, bytesRead);
+		} finally {
+			BufferPool.release(buffer);
+		}
+		return true;
+	}
+	
+	/**
+	 * STORED and DEFLATED entries are read straight from the offset kept in the index, so
+	 * nothing but the local header and data of the entry is read. Any other method goes through
+	 * the Apache Commons library. The CRC-32 is checked once the end of the entry is read.
+	 * A stream is read up to the first entry with the name instead, as it can't be read on to find a
+	 * later one.
+	 */
+	@Override
+	public InputStream openEntry(String name) throws IOException
+	{
+		if (!source.isSeekable())
+		{
+			InputStream in = seekStream(name);
+			if (in == null)
+				throw new FileNotFoundException(name + " is not a file in " + source);
+			return in;
+		}
+		
+		ArchiveIndex.Entry entry = getIndex().find(name);
+		if (entry == null || entry.isDirectory())
+			throw new FileNotFoundException(name + " is not a file in " + source);
+		
+		boolean stored = ZipMethod.STORED.name().equals(entry.getMethod());
+		if (!stored && !ZipMethod.DEFLATED.name().equals(entry.getMethod()))
+			return openWithCommons(name);
+		
+		SeekableByteChannel channel = source.openChannel();
+		try {
+			channel.position(ParallelZipExtractor.dataOffset(channel, entry.getOffset(), name));
+			InputStream raw = Channels.newInputStream(channel);
+			
+			if (stored)
+			{
+				InputStream data = BoundedInputStream.builder().setInputStream(raw)
+															   .setMaxCount(entry.getCompressedSize())
+															   .get();
+				return new EntryInputStream(data, entry.getCrc(), channel);
+			}
+			
+			// The inflater stops by itself at the end of the deflate data.
+			Inflater inflater = new Inflater(true);
+			return new EntryInputStream(BufferPool.inflating(raw, inflater), entry.getCrc(),
+										inflater::end, channel);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+	
+	private InputStream openWithCommons(String name) throws IOException
+	{
+		org.apache.commons.compress.archivers.zip.ZipFile zip = ParallelZipExtractor.open(source);
+		
+		try {
+			// The last entry with the name wins, the same as in the index.
+			ZipArchiveEntry header = null;
+			for (ZipArchiveEntry candidate : zip.getEntries(name))
+				header = candidate;
+			if (header == null)
+				throw new FileNotFoundException(name + " is not a file in " + source);
+			if (!zip.canReadEntryData(header))
+				throw new ZipException("Unsupported compression method or encryption: " + name);
+			
+			return new EntryInputStream(zip.getInputStream(header), zip);
+		} catch (IOException e) {
+			zip.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * A stream has no central directory to read, so its local headers are read instead. The sizes
+	 * of an entry followed by a data descriptor are only known once its data was read, which is why
+	 * the entries are only added at the end. They have no offset, as the stream can't go back.
+	 */
+	private ArchiveIndex buildIndex() throws IOException
+	{
+		if (!source.isSeekable())
+		{
+			List<ZipArchiveEntry> headers = new ArrayList<>();
+			try (ZipArchiveInputStream zis = openStream(null)) {
+				ZipArchiveEntry header;
+				while ((header = zis.getNextEntry()) != null)
+					headers.add(header);
+			}
+			return streamIndex(headers);
+		}
+		
+		List<ArchiveIndex.Entry> entries = new ArrayList<>();
+		
+		try (org.apache.commons.compress.archivers.zip.ZipFile zip = ParallelZipExtractor.open(source)) {
+			Enumeration<ZipArchiveEntry> headers = zip.getEntries();
+			while (headers.hasMoreElements())
+			{
+				ZipArchiveEntry header = headers.nextElement();
+				entries.add(toIndexEntry(header, header.getLocalHeaderOffset()));
+			}
+		}
+		
+		return new ArchiveIndex(entries);
+	}
+	
+	/**
+	 * @param headers every local header of a stream, once the stream was read to its end.
+	 */
+	private static ArchiveIndex streamIndex(List<ZipArchiveEntry> headers)
+	{
+		List<ArchiveIndex.Entry> entries = new ArrayList<>(headers.size());
+		for (ZipArchiveEntry header : headers)
+			entries.add(toIndexEntry(header, -1));
+		return new ArchiveIndex(entries);
+	}
+	
+	private static ArchiveIndex.Entry toIndexEntry(ZipArchiveEntry header, long offset)
+	{
+		ZipMethod method = ZipMethod.getMethodByCode(header.getMethod());
+		return new ArchiveIndex.Entry(header.getName(), header.getSize(), header.getCompressedSize(),
+				method != null ? method.name() : String.valueOf(header.getMethod()), header.getCrc(),
+				offset, header.getTime(), header.getUnixMode() & 07777, header.isDirectory());
+	}
+	
+	/**
+	 * Extracts a stream in the order it is stored, with the same layout as the other extractions:
+	 * the entries are flattened into the output folder and files that already exist are left.
+	 * The headers read on the way become the index of the stream.
+	 */
+	private boolean extractStream(File outputFolder) throws IOException
+	{
+		ProgressTracker progress = ProgressTracker.of(ZipReader.class, progressListener, true);
+		ZipArchiveInputStream zis = openStream(progress);
+		if (progress != null)
+			progress.started(-1);
+		
+		List<ZipArchiveEntry> headers = new ArrayList<>();
+		byte[] buffer = BufferPool.acquire();
+		try {
+			ZipArchiveEntry entry;
+			while ((entry = zis.getNextEntry()) != null)
+			{
+				if (Thread.currentThread().isInterrupted())
+					throw new IOException("Extraction interrupted.");
+				headers.add(entry);
+				if (entry.isDirectory())
+					continue;
+				if (!zis.canReadEntryData(entry))
+					throw new ZipException("Unsupported compression method or encryption: " + entry.getName());
+				
+				File newFile = new File(outputFolder, new File(entry.getName()).getName());
+				if (progress != null)
+					progress.entryStarted(entry.getName(), entry.getSize());
+				
+				try (OutputStream out = Files.newOutputStream(newFile.toPath(), StandardOpenOption.CREATE_NEW,
+																				StandardOpenOption.WRITE)) {
+					int read;
+					while ((read = zis.read(buffer)) != -1)
+					{
+						out.write(buffer, 0, read);
+						if (progress != null)
+							progress.add(0, read);
+					}
+				} catch (FileAlreadyExistsException e) {
+					continue;
+				}
+				
+				if (progress != null)
+					progress.entryFinished(entry.getName(), entry.getSize(), entry.getCompressedSize());
+			}
+			
+			source.putIndex(streamIndex(headers));
+			if (progress != null)
+				progress.finished();
+			return true;
+		} catch (IOException e) {
+			if (progress != null)
+				progress.failed();
+			Zipy.deleteDirectory(outputFolder);
+			return false;
+		} finally {
+			BufferPool.release(buffer);
+			zis.close();
+		}
+	}
+	
+	/**
+	 * Reads a stream up to the named file.
+	 * @return the stream positioned at the data of the file, or {@code null} if there is no such file.
+	 */
+	private InputStream seekStream(String name) throws IOException
+	{
+		ZipArchiveInputStream zis = openStream(null);
+		try {
+			ZipArchiveEntry header;
+			while ((header = zis.getNextEntry()) != null)
+			{
+				if (header.isDirectory() || !header.getName().equals(name))
+					continue;
+				if (!zis.canReadEntryData(header))
+					throw new ZipException("Unsupported compression method or encryption: " + name);
+				return new EntryInputStream(zis);
+			}
+		} catch (IOException e) {
+			zis.close();
+			throw e;
+		}
+		zis.close();
+		return null;
+	}
+	
+	/**
+	 * Stored entries followed by a data descriptor are allowed, as zip tools writing to a pipe
+	 * produce them and the descriptor holds their size.
+	 * @param progress counts the bytes read from the stream, may be {@code null}.
+	 */
+	private ZipArchiveInputStream openStream(ProgressTracker progress) throws IOException
+	{
+		InputStream in = source.openStream();
+		return new ZipArchiveInputStream(progress != null ? progress.countReads(in) : in, "UTF8", true, true);
+	}
+	
 	
 	/**
 	 * A static method used to create a .zip file, as there is no need to have it localized since
@@ -146,4 +538,47 @@ public class ZipReader implements IReader
 		
 		zipped.close();
 	}
+	
+	/**
+	 * A static method used to create a .zip file, deflating the files on several threads at once.
+	 * The entries are written in the same order no matter how many threads are used, and Zip64
+	 * records are added when the archive needs them.
+	 * @param fileToZip the file(s) to zip.
+	 * @param zippedFile the file where the archive will be created.
+	 * @param threads the amount of threads used to compress the files.
+	 * @throws IOException
+	 */
+	public static void makeArchiveParallel(File fileToZip, File zippedFile, int threads) throws IOException
+	{
+		makeArchiveParallel(fileToZip, zippedFile, threads, null);
+	}
+	
+	/**
+	 * A static method used to create a .zip file on several threads, telling the listener about every
+	 * file as it is written to the archive.
+	 * @param fileToZip the file(s) to zip.
+	 * @param zippedFile the file where the archive will be created.
+	 * @param threads the amount of threads used to compress the files.
+	 * @param listener the listener, may be {@code null}.
+	 * @throws IOException
+	 */
+	public static void makeArchiveParallel(File fileToZip, File zippedFile, int threads, ArchiveProgressListener listener) throws IOException
+	{
+		makeArchiveParallel(fileToZip, zippedFile, threads, listener, false);
+	}
+	
+	/**
+	 * A static method used to create a .zip file on several threads, optionally deflating files with
+	 * the same content only once. Every copy still gets its own entry, so any zip tool can extract it.
+	 * @param fileToZip the file(s) to zip.
+	 * @param zippedFile the file where the archive will be created.
+	 * @param threads the amount of threads used to compress the files.
+	 * @param listener the listener, may be {@code null}.
+	 * @param deduplicate whether files with the same content are only deflated once.
+	 * @throws IOException
+	 */
+	public static void makeArchiveParallel(File fileToZip, File zippedFile, int threads, ArchiveProgressListener listener, boolean deduplicate) throws IOException
+	{
+		new ParallelZipCreator(threads, Deflater.DEFAULT_COMPRESSION, ProgressTracker.of(ZipReader.class, listener, false), deduplicate).create(fileToZip, zippedFile);
+	}
 }
\ No newline at end of file
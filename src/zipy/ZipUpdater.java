@@ -0,0 +1,538 @@
+package zipy;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipException;
+
+import org.apache.commons.compress.archivers.zip.Zip64Mode;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.archivers.zip.ZipUtil;
+
+/**
+ * Adds, replaces and deletes entries of an existing .zip file without rebuilding it. The entries
+ * that stay are never read or recompressed, their central directory records are copied as they
+ * are. New data and a new central directory are appended to the end of the file, so an update
+ * costs about the size of what changed. Until the new central directory is written the archive
+ * is left exactly as it was, and a failed update is cut off again.
+ * <p>
+ * Replaced and deleted entries, and every old central directory, stay in the file as dead space.
+ * Once more than {@link #setCompactionThreshold(double) a share} of the file is dead, the update
+ * ends with {@link #compact(File)}, which copies the live entries raw into a new file. Tools that
+ * read a zip front to back instead of through its central directory only see the entries from
+ * before the first update until the archive is compacted.
+ * <p>
+ * <pre>
+ * new ZipUpdater(artifact).put("lib/app.jar", newJar).delete("lib/old.jar").commit();
+ * </pre>
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+public final class ZipUpdater
+{
+	private static final int LOCAL_HEADER = 0x04034b50;
+	private static final int CENTRAL_HEADER = 0x02014b50;
+	private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+	private static final int ZIP64_END_OF_CENTRAL_DIRECTORY = 0x06064b50;
+	private static final int ZIP64_LOCATOR = 0x07064b50;
+	private static final long ZIP64_MAGIC = 0xffffffffL;
+	private static final int ZIP64_EXTRA = 0x0001;
+	private static final int UTF8_FLAG = 1 << 11;
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final Charset CP437 = Charset.forName("IBM437");
+
+	/** The dead share of the file above which an update compacts it, by default. */
+	public static final double DEFAULT_COMPACTION_THRESHOLD = 0.5;
+
+	private final File zipFile;
+	private final Map<String, File> puts = new LinkedHashMap<>();
+	private final Set<String> deletes = new LinkedHashSet<>();
+	private int level = Deflater.DEFAULT_COMPRESSION;
+	private double compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+
+	/**
+	 * @param zipFile the archive to update, which must exist.
+	 */
+	public ZipUpdater(File zipFile)
+	{
+		this.zipFile = zipFile;
+	}
+
+	/**
+	 * Adds a file, replacing the entry of the same name if there is one. A folder adds every file
+	 * in it, with {@code name} as the root of their entry names.
+	 * @param name the name of the entry, with {@code /} between folders.
+	 * @param file the file or folder to add.
+	 * @return this updater.
+	 */
+	public ZipUpdater put(String name, File file)
+	{
+		String entryName = name.replace('\\', '/');
+		File[] children = file.listFiles();
+
+		if (children == null)
+		{
+			deletes.remove(entryName);
+			puts.put(entryName, file);
+		}
+		else
+		{
+			for (File child : children)
+				put(entryName + "/" + child.getName(), child);
+		}
+		return this;
+	}
+
+	/**
+	 * Deletes an entry. A name ending with {@code /} deletes the folder and everything in it.
+	 * @param name the name of the entry.
+	 * @return this updater.
+	 */
+	public ZipUpdater delete(String name)
+	{
+		String entryName = name.replace('\\', '/');
+		puts.remove(entryName);
+		deletes.add(entryName);
+		return this;
+	}
+
+	/**
+	 * @param level the deflate level of added files, from 0 to 9.
+	 */
+	public void setLevel(int level)
+	{
+		this.level = level;
+	}
+
+	/**
+	 * @param compactionThreshold the dead share of the file, from 0 to 1, above which an update
+	 * 		  compacts the archive. 1 or more never compacts.
+	 */
+	public void setCompactionThreshold(double compactionThreshold)
+	{
+		this.compactionThreshold = compactionThreshold;
+	}
+
+	/**
+	 * Writes every change to the archive.
+	 * @throws IOException if the archive can't be read or written, in which case it is left as
+	 * 		   it was.
+	 */
+	public void commit() throws IOException
+	{
+		if (!zipFile.isFile())
+			throw new FileNotFoundException(zipFile.getPath());
+
+		long liveBytes;
+		long fileLength;
+
+		try (FileChannel channel = FileChannel.open(zipFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			long originalLength = channel.size();
+			CentralDirectory directory = readCentralDirectory(channel);
+
+			// Keep every record that isn't deleted or replaced, as it is.
+			List<byte[]> records = new ArrayList<>();
+			liveBytes = 0;
+			for (Record record : directory.records)
+			{
+				if (!isDeleted(record.name) && !puts.containsKey(record.name))
+				{
+					records.add(record.bytes);
+					liveBytes += record.compressedSize + 30 + record.bytes.length - 46;
+				}
+			}
+
+			try {
+				channel.position(originalLength);
+				for (Map.Entry<String, File> put : puts.entrySet())
+				{
+					byte[] record = writeEntry(channel, put.getKey(), put.getValue());
+					records.add(record);
+					liveBytes += channel.position() - readOffset(record);
+				}
+
+				long centralDirectoryOffset = channel.position();
+				for (byte[] record : records)
+					writeFully(channel, ByteBuffer.wrap(record));
+				writeEnd(channel, records.size(), centralDirectoryOffset, channel.position() - centralDirectoryOffset,
+						 directory.comment);
+				channel.force(false);
+			} catch (IOException | RuntimeException e) {
+				channel.truncate(originalLength);
+				throw e;
+			}
+			fileLength = channel.size();
+		} finally {
+			ArchiveIndexCache.shared().invalidate(zipFile);
+		}
+
+		if (fileLength > 0 && 1 - (double) liveBytes / fileLength > compactionThreshold)
+			compact(zipFile);
+	}
+
+	/**
+	 * Rewrites the archive without its dead space. Entries are copied raw, nothing is inflated or
+	 * deflated again. The new archive replaces the old one only once it is complete.
+	 * @param zipFile the archive to compact.
+	 * @throws IOException if the archive can't be read or written.
+	 */
+	public static void compact(File zipFile) throws IOException
+	{
+		File temp = new File(zipFile.getPath() + ".compact");
+
+		try {
+			try (ZipFile zip = ZipFile.builder().setFile(zipFile).get();
+					ZipArchiveOutputStream zos = new ZipArchiveOutputStream(temp)) {
+				zos.setUseZip64(Zip64Mode.AsNeeded);
+				Enumeration<ZipArchiveEntry> entries = zip.getEntriesInPhysicalOrder();
+				while (entries.hasMoreElements())
+				{
+					ZipArchiveEntry entry = entries.nextElement();
+					try (InputStream in = zip.getRawInputStream(entry)) {
+						zos.addRawArchiveEntry(entry, in);
+					}
+				}
+			}
+			Files.move(temp.toPath(), zipFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp.toPath());
+			ArchiveIndexCache.shared().invalidate(zipFile);
+		}
+	}
+
+	private boolean isDeleted(String name)
+	{
+		if (deletes.contains(name))
+			return true;
+		for (String delete : deletes)
+		{
+			if (delete.endsWith("/") && name.startsWith(delete))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Writes the local header and data of a file at the position of the channel. The file is
+	 * deflated straight into the archive and the header is filled in afterwards. If it doesn't
+	 * get smaller it is written again stored.
+	 * @return the central directory record of the entry.
+	 */
+	private byte[] writeEntry(FileChannel channel, String name, File file) throws IOException
+	{
+		byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+		long size = file.length();
+		boolean zip64 = size >= 0xffff0000L;
+		long headerOffset = channel.position();
+		long dosTime = ZipUtil.toDosTime(new Date(file.lastModified())).getValue();
+
+		int method = ZipArchiveEntry.DEFLATED;
+		CRC32 crc = new CRC32();
+		long compressedSize = deflate(channel, headerOffset + 30 + nameBytes.length + (zip64 ? 20 : 0), file, crc);
+
+		if (compressedSize >= size)
+		{
+			method = ZipArchiveEntry.STORED;
+			channel.truncate(headerOffset + 30 + nameBytes.length + (zip64 ? 20 : 0));
+			compressedSize = copy(channel, channel.size(), file);
+		}
+		if (!zip64 && compressedSize >= ZIP64_MAGIC)
+			throw new ZipException("Entry grew past 4 GB while it was compressed: " + name);
+
+		ByteBuffer header = ByteBuffer.allocate(30 + nameBytes.length + (zip64 ? 20 : 0)).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(LOCAL_HEADER).putShort((short) (zip64 ? 45 : 20)).putShort((short) UTF8_FLAG)
+			  .putShort((short) method).putInt((int) dosTime).putInt((int) crc.getValue())
+			  .putInt((int) (zip64 ? ZIP64_MAGIC : compressedSize)).putInt((int) (zip64 ? ZIP64_MAGIC : size))
+			  .putShort((short) nameBytes.length).putShort((short) (zip64 ? 20 : 0)).put(nameBytes);
+		if (zip64)
+			header.putShort((short) ZIP64_EXTRA).putShort((short) 16).putLong(size).putLong(compressedSize);
+		header.flip();
+		channel.write(header, headerOffset);
+		channel.position(channel.size());
+
+		// Zip64 values are only in the central directory when they don't fit.
+		boolean bigSize = size >= ZIP64_MAGIC, bigCompressed = compressedSize >= ZIP64_MAGIC, bigOffset = headerOffset >= ZIP64_MAGIC;
+		int extraLength = (bigSize || bigCompressed || bigOffset) ? 4 + (bigSize ? 8 : 0) + (bigCompressed ? 8 : 0) + (bigOffset ? 8 : 0) : 0;
+		int mode = (file.canExecute() ? 0755 : 0644) | 0100000;
+
+		ByteBuffer record = ByteBuffer.allocate(46 + nameBytes.length + extraLength).order(ByteOrder.LITTLE_ENDIAN);
+		record.putInt(CENTRAL_HEADER).putShort((short) (3 << 8 | 45)).putShort((short) (extraLength > 0 ? 45 : 20))
+			  .putShort((short) UTF8_FLAG).putShort((short) method).putInt((int) dosTime).putInt((int) crc.getValue())
+			  .putInt((int) (bigCompressed ? ZIP64_MAGIC : compressedSize)).putInt((int) (bigSize ? ZIP64_MAGIC : size))
+			  .putShort((short) nameBytes.length).putShort((short) extraLength).putShort((short) 0)
+			  .putShort((short) 0).putShort((short) 0).putInt(mode << 16)
+			  .putInt((int) (bigOffset ? ZIP64_MAGIC : headerOffset)).put(nameBytes);
+		if (extraLength > 0)
+		{
+			record.putShort((short) ZIP64_EXTRA).putShort((short) (extraLength - 4));
+			if (bigSize)
+				record.putLong(size);
+			if (bigCompressed)
+				record.putLong(compressedSize);
+			if (bigOffset)
+				record.putLong(headerOffset);
+		}
+		return record.array();
+	}
+
+	/**
+	 * @return the amount of compressed bytes written from {@code position} on.
+	 */
+	private long deflate(FileChannel channel, long position, File file, CRC32 crc) throws IOException
+	{
+		channel.position(position);
+		Deflater deflater = new Deflater(level, true);
+		byte[] buffer = BufferPool.acquire();
+		try (InputStream in = Files.newInputStream(file.toPath())) {
+			// Closing the deflater stream would close the channel, finish it instead.
+			DeflaterOutputStream out = new DeflaterOutputStream(unclosable(channel), deflater, BUFFER_SIZE);
+			int read;
+			while ((read = in.read(buffer)) != -1)
+			{
+				crc.update(buffer, 0, read);
+				out.write(buffer, 0, read);
+			}
+			out.finish();
+			out.flush();
+		} finally {
+			deflater.end();
+			BufferPool.release(buffer);
+		}
+		return channel.position() - position;
+	}
+
+	private static long copy(FileChannel channel, long position, File file) throws IOException
+	{
+		try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = in.size(), copied = 0;
+			while (copied < size)
+				copied += in.transferTo(copied, size - copied, channel.position(position + copied));
+			channel.position(position + copied);
+			return copied;
+		}
+	}
+
+	private static OutputStream unclosable(FileChannel channel)
+	{
+		OutputStream out = Channels.newOutputStream(channel);
+		return new OutputStream() {
+			@Override
+			public void write(int b) throws IOException
+			{
+				out.write(b);
+			}
+
+			@Override
+			public void write(byte[] bytes, int offset, int length) throws IOException
+			{
+				out.write(bytes, offset, length);
+			}
+		};
+	}
+
+	/**
+	 * Writes the end of central directory record, with the Zip64 record and locator in front of
+	 * it when the values don't fit.
+	 */
+	private static void writeEnd(FileChannel channel, int entries, long offset, long size, byte[] comment) throws IOException
+	{
+		boolean zip64 = entries >= 0xffff || offset >= ZIP64_MAGIC || size >= ZIP64_MAGIC;
+		ByteBuffer end = ByteBuffer.allocate(56 + 20 + 22 + comment.length).order(ByteOrder.LITTLE_ENDIAN);
+
+		if (zip64)
+		{
+			long zip64Offset = channel.position();
+			end.putInt(ZIP64_END_OF_CENTRAL_DIRECTORY).putLong(44).putShort((short) 45).putShort((short) 45)
+			   .putInt(0).putInt(0).putLong(entries).putLong(entries).putLong(size).putLong(offset);
+			end.putInt(ZIP64_LOCATOR).putInt(0).putLong(zip64Offset).putInt(1);
+		}
+		end.putInt(END_OF_CENTRAL_DIRECTORY).putShort((short) 0).putShort((short) 0)
+		   .putShort((short) (zip64 ? 0xffff : entries)).putShort((short) (zip64 ? 0xffff : entries))
+		   .putInt((int) (zip64 ? ZIP64_MAGIC : size)).putInt((int) (zip64 ? ZIP64_MAGIC : offset))
+		   .putShort((short) comment.length).put(comment);
+		end.flip();
+		writeFully(channel, end);
+	}
+
+	/**
+	 * Finds the end of central directory record in the last 64 KB of the file, following the
+	 * Zip64 locator when there is one, and reads every central directory record.
+	 */
+	private static CentralDirectory readCentralDirectory(FileChannel channel) throws IOException
+	{
+		long length = channel.size();
+		int tail = (int) Math.min(length, 22 + 0xffff);
+		ByteBuffer buffer = ByteBuffer.allocate(tail).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(channel, buffer, length - tail);
+
+		int end = -1;
+		for (int i = tail - 22; i >= 0 && end == -1; i--)
+		{
+			if (buffer.getInt(i) == END_OF_CENTRAL_DIRECTORY && i + 22 + (buffer.getShort(i + 20) & 0xffff) == tail)
+				end = i;
+		}
+		if (end == -1)
+			throw new ZipException("No central directory found, not a zip file.");
+
+		long entries = buffer.getShort(end + 10) & 0xffff;
+		long size = buffer.getInt(end + 12) & ZIP64_MAGIC;
+		long offset = buffer.getInt(end + 16) & ZIP64_MAGIC;
+		byte[] comment = new byte[buffer.getShort(end + 20) & 0xffff];
+		buffer.position(end + 22);
+		buffer.get(comment);
+
+		if (end >= 20 && buffer.getInt(end - 20) == ZIP64_LOCATOR)
+		{
+			ByteBuffer zip64 = ByteBuffer.allocate(56).order(ByteOrder.LITTLE_ENDIAN);
+			readFully(channel, zip64, buffer.getLong(end - 12));
+			if (zip64.getInt(0) != ZIP64_END_OF_CENTRAL_DIRECTORY)
+				throw new ZipException("Broken Zip64 end of central directory.");
+			entries = zip64.getLong(32);
+			size = zip64.getLong(40);
+			offset = zip64.getLong(48);
+		}
+
+		ByteBuffer data = ByteBuffer.allocate(Math.toIntExact(size)).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(channel, data, offset);
+
+		List<Record> records = new ArrayList<>();
+		int position = 0;
+		for (long i = 0; i < entries; i++)
+		{
+			if (data.getInt(position) != CENTRAL_HEADER)
+				throw new ZipException("Broken central directory record " + i);
+
+			int nameLength = data.getShort(position + 28) & 0xffff;
+			int recordLength = 46 + nameLength + (data.getShort(position + 30) & 0xffff) + (data.getShort(position + 32) & 0xffff);
+			byte[] bytes = new byte[recordLength];
+			data.position(position);
+			data.get(bytes);
+
+			boolean utf8 = (data.getShort(position + 8) & UTF8_FLAG) != 0;
+			String name = new String(bytes, 46, nameLength, utf8 ? StandardCharsets.UTF_8 : CP437);
+			records.add(new Record(name, bytes, readCompressedSize(bytes)));
+			position += recordLength;
+		}
+		return new CentralDirectory(records, comment);
+	}
+
+	/**
+	 * @return the compressed size of a central directory record, from its Zip64 extra if needed.
+	 */
+	private static long readCompressedSize(byte[] record)
+	{
+		ByteBuffer buffer = ByteBuffer.wrap(record).order(ByteOrder.LITTLE_ENDIAN);
+		long compressedSize = buffer.getInt(20) & ZIP64_MAGIC;
+		if (compressedSize != ZIP64_MAGIC)
+			return compressedSize;
+
+		int skip = (buffer.getInt(24) & ZIP64_MAGIC) == ZIP64_MAGIC ? 8 : 0;
+		long extra = zip64Extra(buffer);
+		return extra == -1 ? 0 : buffer.getLong((int) extra + skip);
+	}
+
+	/**
+	 * @return the local header offset of a central directory record, from its Zip64 extra if needed.
+	 */
+	private static long readOffset(byte[] record)
+	{
+		ByteBuffer buffer = ByteBuffer.wrap(record).order(ByteOrder.LITTLE_ENDIAN);
+		long offset = buffer.getInt(42) & ZIP64_MAGIC;
+		if (offset != ZIP64_MAGIC)
+			return offset;
+
+		int skip = ((buffer.getInt(24) & ZIP64_MAGIC) == ZIP64_MAGIC ? 8 : 0)
+				+ ((buffer.getInt(20) & ZIP64_MAGIC) == ZIP64_MAGIC ? 8 : 0);
+		return buffer.getLong((int) zip64Extra(buffer) + skip);
+	}
+
+	/**
+	 * @return the position of the data of the Zip64 extra field in the record, or {@code -1}.
+	 */
+	private static long zip64Extra(ByteBuffer record)
+	{
+		int nameLength = record.getShort(28) & 0xffff;
+		int extraEnd = 46 + nameLength + (record.getShort(30) & 0xffff);
+		int position = 46 + nameLength;
+
+		while (position + 4 <= extraEnd)
+		{
+			int id = record.getShort(position) & 0xffff;
+			int length = record.getShort(position + 2) & 0xffff;
+			if (id == ZIP64_EXTRA)
+				return position + 4;
+			position += 4 + length;
+		}
+		return -1;
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+	{
+		while (buffer.hasRemaining())
+		{
+			if (channel.read(buffer, position + buffer.position()) == -1)
+				throw new ZipException("Unexpected end of the zip file.");
+		}
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+	}
+
+	private static final class CentralDirectory
+	{
+		final List<Record> records;
+		final byte[] comment;
+
+		CentralDirectory(List<Record> records, byte[] comment)
+		{
+			this.records = Collections.unmodifiableList(records);
+			this.comment = comment;
+		}
+	}
+
+	/**
+	 * A central directory record, kept as the raw bytes it was read as.
+	 */
+	private static final class Record
+	{
+		final String name;
+		final byte[] bytes;
+		final long compressedSize;
+
+		Record(String name, byte[] bytes, long compressedSize)
+		{
+			this.name = name;
+			this.bytes = bytes;
+			this.compressedSize = compressedSize;
+		}
+	}
+}
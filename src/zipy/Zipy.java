@@ -2,7 +2,13 @@ package zipy;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * A static helper class used when only needing to create and extract files from
@@ -16,14 +22,20 @@ public class Zipy
 {
 	public static boolean deleteDirectory(File dir)
 	{
-		for(File file : dir.listFiles())
+		File[] files = dir.listFiles();
+		boolean deleted = true;
+		
+		if (files != null)
 		{
-			if (file.isDirectory())
-				return deleteDirectory(file);
-			else
-				return file.delete();
+			for(File file : files)
+			{
+				if (file.isDirectory() && !Files.isSymbolicLink(file.toPath()))
+					deleted &= deleteDirectory(file);
+				else
+					deleted &= file.delete();
+			}
 		}
-		return dir.delete();
+		return dir.delete() && deleted;
 	}
 	/**
 	 * A static method used to extract the zipped file to the specified output file. The output file
@@ -75,7 +87,7 @@ public class Zipy
 	public static void makeZipArchive(File zipFile, File contentsToZip)
 	{
 		try {
-			ZipReader.makeArchive(zipFile, contentsToZip);
+			ZipReader.makeArchive(contentsToZip, zipFile);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -91,7 +103,7 @@ public class Zipy
 	 */
 	public static boolean extract7zTo(Path zip, Path extractTo) throws IOException
 	{
-		return Zipy.extractZipTo(zip.toFile(), extractTo.toFile());
+		return Zipy.extract7zTo(zip.toFile(), extractTo.toFile());
 	}
 
 	/**
@@ -104,7 +116,7 @@ public class Zipy
 	 */
 	public static boolean extract7zTo(String sevenZipPath, String extractToPath) throws IOException
 	{
-		return Zipy.extractZipTo(new File(sevenZipPath), new File(extractToPath));
+		return Zipy.extract7zTo(new File(sevenZipPath), new File(extractToPath));
 	}
 
 	/**
@@ -132,7 +144,7 @@ public class Zipy
 	public static void make7zArchive(File sevenZipFile, File contentsTo7z, int compressionLevel)
 	{
 		try {
-			SevenZReader.makeArchive(sevenZipFile, contentsTo7z, compressionLevel);
+			SevenZReader.makeArchive(contentsTo7z, sevenZipFile, compressionLevel);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -148,7 +160,7 @@ public class Zipy
 	 */
 	public static boolean extractTarTo(Path tarPath, Path extractToPath) throws IOException
 	{
-		return Zipy.extractZipTo(tarPath.toFile(), extractToPath.toFile());
+		return Zipy.extractTarTo(tarPath.toFile(), extractToPath.toFile());
 	}
 
 	/**
@@ -161,13 +173,14 @@ public class Zipy
 	 */
 	public static boolean extractTarTo(String tarPath, String extractToPath) throws IOException
 	{
-		return Zipy.extractZipTo(new File(tarPath), new File(extractToPath));
+		return Zipy.extractTarTo(new File(tarPath), new File(extractToPath));
 	}
 
 	/**
 	 * A static method used to extract a TAR archive to the specified output directory. The output directory
 	 * doesn't need to be created as it will create the folder on the disk itself. Any previous files at
-	 * the specified location will be overwritten if necessary.
+	 * the specified location will be overwritten if necessary. Gzip, bzip2 and xz compressed tarballs
+	 * are decompressed while they are read.
 	 * @param tar the archive file to extract.
 	 * @param extractTo the location to extract the files to.
 	 * @return {@code true} if the extraction was successful, {@code false} if it failed.
@@ -188,7 +201,25 @@ public class Zipy
 	public static void makeTarArchive(File tarFile, File contentsToTar)
 	{
 		try {
-			TarReader.makeArchive(tarFile, contentsToTar);
+			TarReader.makeArchive(contentsToTar, tarFile);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * A static method used to create a compressed tarball, such as a .tar.gz file, from the specified file
+	 * or folder. The output archive will be written to the location specified by {@code tarFile}.
+	 * {@link #extractTarTo(File, File)} reads these back, as the compression is detected when extracting.
+	 * If you need to check for an exception, use {@link TarReader}.makeArchive
+	 * @param tarFile the file to save the archive as.
+	 * @param contentsToTar the file or directory to compress into the archive.
+	 * @param compression the compression wrapped around the tar data.
+	 */
+	public static void makeTarArchive(File tarFile, File contentsToTar, TarCompression compression)
+	{
+		try {
+			TarReader.makeArchive(contentsToTar, tarFile, compression);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -204,7 +235,7 @@ public class Zipy
 	 */
 	public static boolean extractRarTo(Path rarPath, Path extractToPath) throws IOException
 	{
-		return Zipy.extractZipTo(rarPath.toFile(), extractToPath.toFile());
+		return Zipy.extractRarTo(rarPath.toFile(), extractToPath.toFile());
 	}
 
 	/**
@@ -217,7 +248,7 @@ public class Zipy
 	 */
 	public static boolean extractRarTo(String rarPath, String extractToPath) throws IOException
 	{
-		return Zipy.extractZipTo(new File(rarPath), new File(extractToPath));
+		return Zipy.extractRarTo(new File(rarPath), new File(extractToPath));
 	}
 
 	/**
@@ -235,4 +266,274 @@ public class Zipy
 	}
 
 	// Can't make a .rar archive.
+	
+	/**
+	 * A static method used to extract any archive Zipy can read. The format is found from the first bytes of
+	 * the file, see {@link ArchiveType}, so the file name doesn't matter. The output directory doesn't need to
+	 * be created as it will create the folder on the disk itself.
+	 * @param archive the .zip, .7z, .rar, .tar or compressed tarball to extract.
+	 * @param extractTo the location to extract the files to.
+	 * @return {@link ExtractionResult} the outcome of the extraction.
+	 * @throws IOException if the format isn't known or the extraction fails.
+	 */
+	public static ExtractionResult extract(Path archive, Path extractTo) throws IOException
+	{
+		return extract(archive.toFile(), extractTo.toFile());
+	}
+	
+	/**
+	 * A static method used to bring a folder up to date with an archive, only writing the entries that are
+	 * missing or changed, see {@link SyncExtractor}. Re-extracting a new version of a mostly unchanged
+	 * archive this way writes only the difference.
+	 * @param archive the .zip, .7z, .rar, .tar or compressed tarball to extract.
+	 * @param extractTo the folder to bring up to date.
+	 * @param deleteExtraFiles whether files in the folder that aren't in the archive are deleted.
+	 * @return {@link SyncExtractor.SyncResult} what was written, kept and deleted.
+	 * @throws IOException if the format isn't known or a file can't be written.
+	 */
+	public static SyncExtractor.SyncResult sync(Path archive, Path extractTo, boolean deleteExtraFiles) throws IOException
+	{
+		SyncExtractor extractor = new SyncExtractor(archive.toFile(), extractTo.toFile());
+		extractor.setDeleteExtraFiles(deleteExtraFiles);
+		return extractor.sync();
+	}
+	
+	/**
+	 * A static method used to convert an archive into another format, such as a .zip upload into a .tar.gz,
+	 * without extracting it to the disk first. Each entry is streamed from the source into the target while
+	 * the next one is already being decoded, see {@link ArchiveTranscoder}.
+	 * @param source the .zip, .7z, .rar, .tar or compressed tarball to convert.
+	 * @param target the archive to create, it is replaced if it exists.
+	 * @param targetFormat the format of the archive to create, anything but RAR.
+	 * @return the amount of entries written to the target.
+	 * @throws IOException if the source can't be read or the target can't be written.
+	 */
+	public static int transcode(Path source, Path target, ArchiveType targetFormat) throws IOException
+	{
+		return new ArchiveTranscoder(source.toFile(), target.toFile(), targetFormat).transcode();
+	}
+
+	/**
+	 * A static method used to extract any archive Zipy can read into memory, without writing a thing to the
+	 * disk. Meant for small archives, such as bundles of templates, see {@link InMemoryExtraction}.
+	 * @param archive the .zip, .7z, .rar, .tar or compressed tarball to extract.
+	 * @return {@link InMemoryExtraction} the contents of every file, which must be closed.
+	 * @throws IOException if the format isn't known or the archive can't be read.
+	 */
+	public static InMemoryExtraction extractToMemory(Path archive) throws IOException
+	{
+		return open(archive).extractToMemory();
+	}
+
+	/**
+	 * A static method used to open the reader for any archive Zipy can read, picked from the first bytes of
+	 * the file. The reader extracts into the folder the archive is in, use {@link #open(Path, Path)} to pick
+	 * another one.
+	 * @param archive the archive to read.
+	 * @return {@link IReader} the reader for the archive.
+	 * @throws IOException if the format isn't known or the file can't be read.
+	 */
+	public static IReader open(Path archive) throws IOException
+	{
+		Path parent = archive.toAbsolutePath().getParent();
+		return open(archive, parent);
+	}
+	
+	/**
+	 * A static method used to open the reader for any archive Zipy can read, picked from the first bytes of
+	 * the file.
+	 * @param archive the archive to read.
+	 * @param extractTo the location the reader extracts the files to.
+	 * @return {@link IReader} the reader for the archive.
+	 * @throws IOException if the format isn't known or the file can't be read.
+	 */
+	public static IReader open(Path archive, Path extractTo) throws IOException
+	{
+		IReader reader = readerFor(archive.toFile(), extractTo.toFile());
+		if (reader == null)
+			throw new IOException("Unknown archive type: " + archive);
+		return reader;
+	}
+	
+	/**
+	 * A static method used to extract an archive without blocking the caller. The work runs on a virtual
+	 * thread when the runtime has them, see {@link #extractAsync(File, File, Executor)} to pick the executor.
+	 * @param archive the .zip, .7z, .rar, .tar or compressed tarball to extract.
+	 * @param extractTo the location to extract the files to.
+	 * @return {@link CompletableFuture} completed with the {@link ExtractionResult}, or completed
+	 * 		   exceptionally with the reason the extraction failed.
+	 */
+	public static CompletableFuture<ExtractionResult> extractAsync(File archive, File extractTo)
+	{
+		return extractAsync(archive, extractTo, AsyncTasks.defaultExecutor());
+	}
+	
+	/**
+	 * A static method used to extract an archive on the given executor. Cancelling the future interrupts the
+	 * extraction, which stops before the next entry. What happens to the files already written depends on
+	 * the format: a .zip extraction removes the whole output folder, as it does on any failure, while a .7z,
+	 * .rar or tarball extraction leaves the files written so far in place.
+	 * @param archive the .zip, .7z, .rar, .tar or compressed tarball to extract.
+	 * @param extractTo the location to extract the files to.
+	 * @param executor the executor the extraction runs on.
+	 * @return {@link CompletableFuture} completed with the {@link ExtractionResult}, or completed
+	 * 		   exceptionally with the reason the extraction failed.
+	 */
+	public static CompletableFuture<ExtractionResult> extractAsync(File archive, File extractTo, Executor executor)
+	{
+		return AsyncTasks.submit(() -> extract(archive, extractTo), executor);
+	}
+	
+	/**
+	 * Extracts an archive on the calling thread, picking the reader from the first bytes of the file.
+	 * @throws IOException if the archive type isn't known or the extraction fails.
+	 */
+	static ExtractionResult extract(File archive, File extractTo) throws IOException
+	{
+		return extract(archive, extractTo, 0);
+	}
+	
+	/**
+	 * Extracts an archive on the calling thread with at most {@code threads} threads of its own
+	 * decoding or writing it, so several extractions at once don't each use every core.
+	 * @param threads the threads the reader may start, or 0 to leave the reader its defaults.
+	 * @throws IOException if the archive type isn't known or the extraction fails.
+	 */
+	static ExtractionResult extract(File archive, File extractTo, int threads) throws IOException
+	{
+		IReader reader = readerFor(archive, extractTo);
+		if (reader == null)
+			throw new IOException("Unknown archive type: " + archive);
+		
+		if (threads > 0)
+		{
+			if (reader instanceof TarReader)
+			{
+				((TarReader) reader).setWriterThreads(threads);
+				((TarReader) reader).setDecompressionThreads(threads);
+			}
+			else if (reader instanceof SevenZReader)
+				((SevenZReader) reader).setWriterThreads(threads);
+			else if (reader instanceof RarReader)
+				((RarReader) reader).setWriterThreads(threads);
+		}
+		
+		long start = System.nanoTime();
+		if (!reader.extractFiles())
+			throw new IOException("Failed to extract " + archive);
+		
+		return new ExtractionResult(archive, extractTo, reader.getNumberOfItemsInArchive(),
+									Duration.ofNanos(System.nanoTime() - start));
+	}
+	
+	/**
+	 * A static method used to create a ZIP archive without blocking the caller. Unlike
+	 * {@link #makeZipArchive(File, File)} any failure is passed on through the future.
+	 * @param zipFile the file to save the archive as.
+	 * @param contentsToZip the file or directory to compress into the archive.
+	 * @return {@link CompletableFuture} completed with {@code zipFile} once it is written.
+	 */
+	public static CompletableFuture<File> makeZipArchiveAsync(File zipFile, File contentsToZip)
+	{
+		return makeZipArchiveAsync(zipFile, contentsToZip, AsyncTasks.defaultExecutor());
+	}
+	
+	/**
+	 * A static method used to create a ZIP archive on the given executor.
+	 * @param zipFile the file to save the archive as.
+	 * @param contentsToZip the file or directory to compress into the archive.
+	 * @param executor the executor the work runs on.
+	 * @return {@link CompletableFuture} completed with {@code zipFile} once it is written.
+	 */
+	public static CompletableFuture<File> makeZipArchiveAsync(File zipFile, File contentsToZip, Executor executor)
+	{
+		return AsyncTasks.submit(() -> {
+			ZipReader.makeArchive(contentsToZip, zipFile);
+			return zipFile;
+		}, executor);
+	}
+	
+	/**
+	 * A static method used to create a 7z archive without blocking the caller. Unlike
+	 * {@link #make7zArchive(File, File, int)} any failure is passed on through the future.
+	 * @param sevenZipFile the file to save the archive as.
+	 * @param contentsTo7z the file or directory to compress into the archive.
+	 * @param compressionLevel the level of compression to apply (usually between 0–9).
+	 * @return {@link CompletableFuture} completed with {@code sevenZipFile} once it is written.
+	 */
+	public static CompletableFuture<File> make7zArchiveAsync(File sevenZipFile, File contentsTo7z, int compressionLevel)
+	{
+		return make7zArchiveAsync(sevenZipFile, contentsTo7z, compressionLevel, AsyncTasks.defaultExecutor());
+	}
+	
+	/**
+	 * A static method used to create a 7z archive on the given executor.
+	 * @param sevenZipFile the file to save the archive as.
+	 * @param contentsTo7z the file or directory to compress into the archive.
+	 * @param compressionLevel the level of compression to apply (usually between 0–9).
+	 * @param executor the executor the work runs on.
+	 * @return {@link CompletableFuture} completed with {@code sevenZipFile} once it is written.
+	 */
+	public static CompletableFuture<File> make7zArchiveAsync(File sevenZipFile, File contentsTo7z, int compressionLevel, Executor executor)
+	{
+		return AsyncTasks.submit(() -> {
+			SevenZReader.makeArchive(contentsTo7z, sevenZipFile, compressionLevel);
+			return sevenZipFile;
+		}, executor);
+	}
+	
+	/**
+	 * A static method used to create a TAR archive or compressed tarball without blocking the caller. Unlike
+	 * {@link #makeTarArchive(File, File, TarCompression)} any failure is passed on through the future.
+	 * @param tarFile the file to save the archive as.
+	 * @param contentsToTar the file or directory to compress into the archive.
+	 * @param compression the compression wrapped around the tar data.
+	 * @return {@link CompletableFuture} completed with {@code tarFile} once it is written.
+	 */
+	public static CompletableFuture<File> makeTarArchiveAsync(File tarFile, File contentsToTar, TarCompression compression)
+	{
+		return makeTarArchiveAsync(tarFile, contentsToTar, compression, AsyncTasks.defaultExecutor());
+	}
+	
+	/**
+	 * A static method used to create a TAR archive or compressed tarball on the given executor.
+	 * @param tarFile the file to save the archive as.
+	 * @param contentsToTar the file or directory to compress into the archive.
+	 * @param compression the compression wrapped around the tar data.
+	 * @param executor the executor the work runs on.
+	 * @return {@link CompletableFuture} completed with {@code tarFile} once it is written.
+	 */
+	public static CompletableFuture<File> makeTarArchiveAsync(File tarFile, File contentsToTar, TarCompression compression, Executor executor)
+	{
+		return AsyncTasks.submit(() -> {
+			TarReader.makeArchive(contentsToTar, tarFile, compression);
+			return tarFile;
+		}, executor);
+	}
+	
+	/**
+	 * A static method used to open an archive as a read-only {@link FileSystem}, so its entries can be
+	 * read with {@link java.nio.file.Files} without extracting anything to the disk. Entries are only
+	 * decompressed when they are opened. Close the file system when done with it.
+	 * @param archive the .zip, .7z, .rar, .tar or compressed tarball to open.
+	 * @return {@link FileSystem} the contents of the archive.
+	 * @throws IOException if the file can't be read or isn't an archive Zipy can read.
+	 */
+	public static FileSystem mount(Path archive) throws IOException
+	{
+		return ArchiveFileSystemProvider.installed().newFileSystem(archive, Collections.emptyMap());
+	}
+	
+	/**
+	 * Picks the reader for an archive from the first bytes of the file.
+	 * @param archive the archive to read.
+	 * @param output the folder the reader extracts to.
+	 * @return the reader, or {@code null} if the file isn't a known archive type.
+	 * @throws IOException if the file can't be read, or is a type no library can read.
+	 */
+	static IReader readerFor(File archive, File output) throws IOException
+	{
+		ArchiveType type = ArchiveType.detect(archive.toPath());
+		return type == null ? null : type.newReader(archive, output);
+	}
 }
\ No newline at end of file
@@ -0,0 +1,171 @@
+package zipy;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The counters behind {@link ZipyMetricsMXBean}, one instance per reader class. They are fed by
+ * {@link ProgressTracker} when an operation ends, so nothing is counted per buffer here.
+ * <p>
+ * Metrics are on by default. Start the JVM with {@code -Dzipy.metrics=false} to turn both the
+ * MBeans and the JFR events off, which also stops readers from counting bytes when no
+ * {@link ArchiveProgressListener} is set.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+final class ZipyMetrics implements ZipyMetricsMXBean
+{
+	/** Entries of at least this many bytes get their own JFR event, 4 MB. */
+	static final long LARGE_ENTRY_SIZE = 4 * 1024 * 1024;
+
+	private static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("zipy.metrics"));
+	private static final long[] BUCKETS = { 1, 10, 100, 1_000, 10_000, 60_000, Long.MAX_VALUE };
+	private static final Map<Class<?>, ZipyMetrics> METRICS = new ConcurrentHashMap<>();
+
+	private final String reader;
+	private final LongAdder operations = new LongAdder();
+	private final LongAdder failures = new LongAdder();
+	private final LongAdder entries = new LongAdder();
+	private final LongAdder compressedBytes = new LongAdder();
+	private final LongAdder uncompressedBytes = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final AtomicLong maxNanos = new AtomicLong();
+	private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS.length);
+
+	private ZipyMetrics(String reader)
+	{
+		this.reader = reader;
+	}
+
+	/**
+	 * @return whether metrics and JFR events are turned on.
+	 */
+	static boolean isEnabled()
+	{
+		return ENABLED;
+	}
+
+	/**
+	 * @return the metrics of the reader class, registering their MBean the first time.
+	 */
+	static ZipyMetrics of(Class<?> readerClass)
+	{
+		return METRICS.computeIfAbsent(readerClass, type -> {
+			ZipyMetrics metrics = new ZipyMetrics(type.getSimpleName());
+			try {
+				ManagementFactory.getPlatformMBeanServer()
+								 .registerMBean(metrics, new ObjectName("zipy:type=Metrics,reader=" + metrics.reader));
+			} catch (JMException | SecurityException e) {
+				// Another copy of Zipy already registered it, the counters still work without it.
+			}
+			return metrics;
+		});
+	}
+
+	/**
+	 * Adds one finished operation.
+	 */
+	void record(long nanos, boolean successful, long entryCount, long compressed, long uncompressed)
+	{
+		operations.increment();
+		if (!successful)
+			failures.increment();
+		entries.add(entryCount);
+		compressedBytes.add(compressed);
+		uncompressedBytes.add(uncompressed);
+		totalNanos.add(nanos);
+		maxNanos.accumulateAndGet(nanos, Math::max);
+
+		long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+		int bucket = 0;
+		while (millis > BUCKETS[bucket])
+			bucket++;
+		histogram.incrementAndGet(bucket);
+	}
+
+	@Override
+	public String getReader()
+	{
+		return reader;
+	}
+
+	@Override
+	public long getOperations()
+	{
+		return operations.sum();
+	}
+
+	@Override
+	public long getFailures()
+	{
+		return failures.sum();
+	}
+
+	@Override
+	public long getEntries()
+	{
+		return entries.sum();
+	}
+
+	@Override
+	public long getCompressedBytes()
+	{
+		return compressedBytes.sum();
+	}
+
+	@Override
+	public long getUncompressedBytes()
+	{
+		return uncompressedBytes.sum();
+	}
+
+	@Override
+	public long getTotalTimeMillis()
+	{
+		return TimeUnit.NANOSECONDS.toMillis(totalNanos.sum());
+	}
+
+	@Override
+	public long getMaxTimeMillis()
+	{
+		return TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+	}
+
+	@Override
+	public long[] getLatencyBucketsMillis()
+	{
+		return BUCKETS.clone();
+	}
+
+	@Override
+	public long[] getLatencyHistogram()
+	{
+		long[] counts = new long[histogram.length()];
+		for (int i = 0; i < counts.length; i++)
+			counts[i] = histogram.get(i);
+		return counts;
+	}
+
+	@Override
+	public void reset()
+	{
+		operations.reset();
+		failures.reset();
+		entries.reset();
+		compressedBytes.reset();
+		uncompressedBytes.reset();
+		totalNanos.reset();
+		maxNanos.set(0);
+		for (int i = 0; i < histogram.length(); i++)
+			histogram.set(i, 0);
+	}
+}
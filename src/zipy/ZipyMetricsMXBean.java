@@ -0,0 +1,73 @@
+package zipy;
+
+/**
+ * Cumulative metrics for one reader class, registered with the platform MBean server as
+ * {@code zipy:type=Metrics,reader=<ReaderClass>} the first time that reader is used. Both
+ * extractions and archive creations are counted.
+ * <p>
+ * Latencies are kept as a histogram: {@link #getLatencyHistogram()}{@code [i]} is the amount of
+ * operations that took at most {@link #getLatencyBucketsMillis()}{@code [i]} milliseconds, and more
+ * than the bucket before it. The last bucket catches everything slower.
+ * <p>
+ * Start the JVM with {@code -Dzipy.metrics=false} to turn the metrics and the Zipy JFR events off.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+public interface ZipyMetricsMXBean
+{
+	/**
+	 * @return the simple name of the reader class these metrics are for.
+	 */
+	public String getReader();
+
+	/**
+	 * @return the amount of operations that finished, successfully or not.
+	 */
+	public long getOperations();
+
+	/**
+	 * @return the amount of operations that failed.
+	 */
+	public long getFailures();
+
+	/**
+	 * @return the amount of entries extracted or added.
+	 */
+	public long getEntries();
+
+	/**
+	 * @return the compressed bytes read while extracting, or written while creating.
+	 */
+	public long getCompressedBytes();
+
+	/**
+	 * @return the uncompressed bytes written while extracting, or read while creating.
+	 */
+	public long getUncompressedBytes();
+
+	/**
+	 * @return the time spent in all operations together.
+	 */
+	public long getTotalTimeMillis();
+
+	/**
+	 * @return the time the slowest operation took.
+	 */
+	public long getMaxTimeMillis();
+
+	/**
+	 * @return the upper bound of every latency bucket, in milliseconds.
+	 */
+	public long[] getLatencyBucketsMillis();
+
+	/**
+	 * @return the amount of operations in every latency bucket.
+	 */
+	public long[] getLatencyHistogram();
+
+	/**
+	 * Sets every counter back to zero.
+	 */
+	public void reset();
+}
@@ -0,0 +1,53 @@
+package zipy;
+
+import static zipy.TestFiles.check;
+import static zipy.TestFiles.checkEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Tests of the file systems {@link Zipy#mount(Path)} opens.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+public class ArchiveFileSystemTest
+{
+	public void testUriOfMountedPathResolves() throws IOException
+	{
+		File folder = TestFiles.folder();
+		byte[] b = TestFiles.bytes(5000, 30);
+		File tar = TestFiles.tar(new File(folder, "m.tar"), "a", TestFiles.bytes(10, 31), "d/b", b);
+
+		Path path;
+		try (FileSystem fileSystem = Zipy.mount(tar.toPath())) {
+			path = fileSystem.getPath("/d/b");
+			Path resolved = Paths.get(path.toUri());
+			checkEquals(path, resolved, "path from its URI");
+			check(Arrays.equals(b, Files.readAllBytes(resolved)), "contents through the URI differ");
+		}
+
+		try {
+			Paths.get(path.toUri());
+			throw new AssertionError("the URI resolved once its file system was closed");
+		} catch (FileSystemNotFoundException expected) {
+		}
+	}
+
+	public void testMountingOtherFileThrows() throws IOException
+	{
+		File text = new File(TestFiles.folder(), "notes.txt");
+		Files.write(text.toPath(), TestFiles.bytes(600, 32));
+		try (FileSystem fileSystem = Zipy.mount(text.toPath())) {
+			throw new AssertionError("mounted " + fileSystem);
+		} catch (IOException expected) {
+		}
+	}
+}
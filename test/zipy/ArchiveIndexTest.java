@@ -0,0 +1,92 @@
+package zipy;
+
+import static zipy.TestFiles.checkEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Tests of {@link ArchiveIndex} and the lookups of single entries that go through it.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+public class ArchiveIndexTest
+{
+	private static final byte[] OLDER = TestFiles.bytes(3_000_000, 5);
+	private static final byte[] NEWER = { 1, 2, 3, 4 };
+
+	public void testLastEntryWithSameNameWins()
+	{
+		ArchiveIndex index = new ArchiveIndex(Arrays.asList(entry("v/f", 3), entry("v/g", 1), entry("v/f", 4)));
+		checkEquals(4L, index.find("v/f").getSize(), "size of v/f");
+		checkEquals(3, index.size(), "entries");
+	}
+
+	public void testTarReadsLastEntryWithSameName() throws IOException
+	{
+		File tar = appendedTar();
+		checkSingleEntry(new TarReader(tar, tar.getParentFile()));
+	}
+
+	/**
+	 * A compressed tarball has no offsets, so the entry is found by reading through the archive.
+	 */
+	public void testTarballReadsLastEntryWithSameName() throws IOException
+	{
+		File tar = appendedTar();
+		File tgz = new File(tar.getParentFile(), "appended.tgz");
+		try (OutputStream out = new GZIPOutputStream(new FileOutputStream(tgz))) {
+			Files.copy(tar.toPath(), out);
+		}
+		checkSingleEntry(new TarReader(tgz, tgz.getParentFile()));
+	}
+
+	/**
+	 * The entry count sits after the magic, the archive length and the archive date.
+	 */
+	public void testCorruptCountIsIgnored() throws IOException
+	{
+		File tar = appendedTar();
+		File sidecar = new TarReader(tar, tar.getParentFile()).writeIndex();
+		checkEquals(3, ArchiveIndex.load(sidecar, tar).size(), "entries");
+
+		byte[] bytes = Files.readAllBytes(sidecar.toPath());
+		ByteBuffer.wrap(bytes).putInt(20, Integer.MAX_VALUE);
+		Files.write(sidecar.toPath(), bytes);
+		checkEquals(null, ArchiveIndex.load(sidecar, tar), "index with a corrupt count");
+		checkSingleEntry(new TarReader(tar, tar.getParentFile()));
+	}
+
+	private static void checkSingleEntry(IReader reader) throws IOException
+	{
+		checkEquals((long) NEWER.length, reader.getIndex().find("v/f").getSize(), "indexed size");
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		checkEquals(true, reader.extractEntry("v/f", out), "extracted");
+		checkEquals(Arrays.toString(NEWER), Arrays.toString(out.toByteArray()), "extracted contents");
+
+		try (InputStream in = reader.openEntry("v/f")) {
+			checkEquals(Arrays.toString(NEWER), Arrays.toString(in.readAllBytes()), "opened contents");
+		}
+	}
+
+	private static File appendedTar() throws IOException
+	{
+		File folder = TestFiles.folder();
+		return TestFiles.tar(new File(folder, "appended.tar"), "v/f", OLDER, "v/g", NEWER, "v/f", NEWER);
+	}
+
+	private static ArchiveIndex.Entry entry(String name, long size)
+	{
+		return new ArchiveIndex.Entry(name, size, size, "STORED", -1, -1, -1, 0, false);
+	}
+}
@@ -0,0 +1,56 @@
+package zipy;
+
+import static zipy.TestFiles.checkEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+/**
+ * Tests of {@link ArchiveType#detect(java.nio.file.Path)}.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+public class ArchiveTypeTest
+{
+	public void testTarballsAreDetected() throws IOException
+	{
+		File folder = TestFiles.folder();
+		File tar = TestFiles.tar(new File(folder, "t.tar"), "a", TestFiles.bytes(1000, 40));
+		checkEquals(ArchiveType.TAR, ArchiveType.detect(tar.toPath()), "tar");
+
+		for (TarCompression compression : new TarCompression[] { TarCompression.GZIP, TarCompression.BZIP2 })
+		{
+			File tarball = new File(folder, "t" + compression.getExtension());
+			try (OutputStream out = compression.compress(new FileOutputStream(tarball))) {
+				Files.copy(tar.toPath(), out);
+			}
+			checkEquals(compression, ArchiveType.detect(tarball.toPath()).getTarCompression(), "tarball");
+		}
+	}
+
+	/**
+	 * Without the library for a compression its data can't be looked into, which must not make
+	 * the file look like no archive at all.
+	 */
+	public void testMissingCodecTrustsMagic() throws IOException
+	{
+		File folder = TestFiles.folder();
+		byte[][] magics = { { (byte) 0xfd, '7', 'z', 'X', 'Z', 0 }, { 0x28, (byte) 0xb5, 0x2f, (byte) 0xfd } };
+		ArchiveType[] types = { ArchiveType.TAR_XZ, ArchiveType.TAR_ZSTD };
+
+		for (int i = 0; i < magics.length; i++)
+		{
+			File file = new File(folder, "t" + i);
+			try (OutputStream out = new FileOutputStream(file)) {
+				out.write(magics[i]);
+				out.write(new byte[600]);
+			}
+			ArchiveType expected = types[i].getTarCompression().isAvailable() ? null : types[i];
+			checkEquals(expected, ArchiveType.detect(file.toPath()), "type of " + types[i] + " magic");
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package zipy;
+
+import static zipy.TestFiles.check;
+import static zipy.TestFiles.checkContents;
+import static zipy.TestFiles.checkEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests of {@link BatchExtractor}.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+public class BatchExtractorTest
+{
+	public void testEveryArchiveIsExtracted() throws Exception
+	{
+		File folder = TestFiles.folder();
+		List<File> archives = new ArrayList<>();
+		List<byte[]> contents = new ArrayList<>();
+		for (int i = 0; i < 6; i++)
+		{
+			File contentFolder = new File(folder, "in" + i);
+			contentFolder.mkdirs();
+			byte[] data = TestFiles.bytes(200_000 * (i + 1), 50 + i);
+			Files.write(new File(contentFolder, "f").toPath(), data);
+			File tarball = new File(folder, "a" + i + ".tar.gz");
+			TarReader.makeArchive(contentFolder, tarball, TarCompression.GZIP, 2);
+			archives.add(tarball);
+			contents.add(data);
+		}
+
+		File output = new File(folder, "out");
+		try (BatchExtractor batch = new BatchExtractor(2, 1, 2)) {
+			List<BatchExtractor.JobResult> results = batch.extractAll(archives, output);
+			for (int i = 0; i < results.size(); i++)
+			{
+				check(results.get(i).isSuccessful(), results.get(i).toString());
+				checkContents(contents.get(i), new File(output, "a" + i + "/in" + i + "/f"));
+			}
+		}
+	}
+
+	/**
+	 * Only the archive extension is stripped, and archives that would share a folder get their own.
+	 */
+	public void testArchivesGetTheirOwnFolder() throws Exception
+	{
+		checkEquals("app.v1", BatchExtractor.folderName("app.v1.zip"), "folder of app.v1.zip");
+		checkEquals("logs", BatchExtractor.folderName("logs.TAR.GZ"), "folder of logs.TAR.GZ");
+		checkEquals("notes.txt", BatchExtractor.folderName("notes.txt"), "folder of notes.txt");
+
+		File folder = TestFiles.folder();
+		File contentFolder = new File(folder, "in");
+		contentFolder.mkdirs();
+		byte[] data = TestFiles.bytes(1000, 7);
+		Files.write(new File(contentFolder, "f").toPath(), data);
+
+		List<File> archives = new ArrayList<>();
+		for (String name : new String[] { "logs.tar.gz", "logs.tgz", "app.v1.tar.gz", "app.v2.tar.gz" })
+		{
+			File tarball = new File(folder, name);
+			TarReader.makeArchive(contentFolder, tarball, TarCompression.GZIP, 1);
+			archives.add(tarball);
+		}
+
+		File output = new File(folder, "out");
+		try (BatchExtractor batch = new BatchExtractor(2, 1, 2)) {
+			List<BatchExtractor.JobResult> results = batch.extractAll(archives, output);
+			String[] folders = { "logs", "logs-2", "app.v1", "app.v2" };
+			for (int i = 0; i < results.size(); i++)
+			{
+				check(results.get(i).isSuccessful(), results.get(i).toString());
+				checkEquals(new File(output, folders[i]), results.get(i).getDestination(), "folder of " + archives.get(i));
+				checkContents(data, new File(output, folders[i] + "/in/f"));
+			}
+		}
+	}
+
+	/**
+	 * An interrupted close stops waiting without throwing, and leaves the interrupt to the caller.
+	 */
+	public void testInterruptedCloseKeepsInterrupt() throws InterruptedException, IOException
+	{
+		BatchExtractor batch = new BatchExtractor(2, 1, 2);
+		Thread.currentThread().interrupt();
+		batch.close();
+		check(Thread.interrupted(), "the interrupt was lost");
+		check(batch.awaitTermination(10, TimeUnit.SECONDS), "the workers didn't stop");
+	}
+}
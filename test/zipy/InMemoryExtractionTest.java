@@ -0,0 +1,59 @@
+package zipy;
+
+import static zipy.TestFiles.check;
+import static zipy.TestFiles.checkEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Tests of {@link InMemoryExtraction}.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+public class InMemoryExtractionTest
+{
+	/**
+	 * An entry whose stream fails halfway isn't stored, and neither replaces an earlier entry with
+	 * the same name.
+	 */
+	public void testFailedEntryIsNotStored() throws IOException
+	{
+		byte[] contents = TestFiles.bytes(1000, 9);
+		try (InMemoryExtraction extraction = new InMemoryExtraction()) {
+			extraction.add("f", contents.length, new ByteArrayInputStream(contents));
+
+			InputStream failing = new SequenceInputStream(new ByteArrayInputStream(TestFiles.bytes(5000, 10)),
+														  new InputStream() {
+				@Override
+				public int read() throws IOException
+				{
+					throw new IOException("Truncated.");
+				}
+			});
+			try {
+				extraction.add("f", 10_000, failing);
+				check(false, "the failure wasn't passed on");
+			} catch (IOException e) {
+				checkEquals("Truncated.", e.getMessage(), "failure");
+			}
+			try {
+				extraction.add("g", 10_000, failing);
+				check(false, "the failure wasn't passed on");
+			} catch (IOException e) {
+				checkEquals("Truncated.", e.getMessage(), "failure");
+			}
+
+			checkEquals(1, extraction.size(), "entries");
+			checkEquals(null, extraction.get("g"), "failed entry");
+			ByteBuffer stored = extraction.get("f");
+			byte[] read = new byte[stored.remaining()];
+			stored.get(read);
+			checkEquals(ByteBuffer.wrap(contents), ByteBuffer.wrap(read), "contents of f");
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package zipy;
+
+import static zipy.TestFiles.check;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.ZipException;
+
+/**
+ * Tests of {@link ParallelGzipInputStream}, with members inflated on workers and on the reading
+ * thread.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+public class ParallelGzipInputStreamTest
+{
+	/** Where {@link ParallelGzipOutputStream} puts the {@code ZY} member size. */
+	private static final int SIZE_OFFSET = 16;
+
+	public void testRoundTripOnSeveralThreads() throws IOException
+	{
+		byte[] data = TestFiles.bytes(3 * 1024 * 1024 + 17, 10);
+		Arrays.fill(data, 100_000, 900_000, (byte) 'z');
+		check(Arrays.equals(data, gunzip(gzip(data, 64 * 1024), 4)), "round trip differs");
+	}
+
+	/**
+	 * A size far beyond any member is read on the reading thread instead of allocated.
+	 */
+	public void testHugeMemberSizeIsInflatedInline() throws IOException
+	{
+		byte[] data = TestFiles.bytes(100_000, 11);
+		byte[] gzip = gzip(data, data.length);
+		putInt(gzip, SIZE_OFFSET, 0xfffffff0);
+		check(Arrays.equals(data, gunzip(gzip, 2)), "inline member differs");
+	}
+
+	/**
+	 * A trailer claiming 2 GB must neither allocate it up front nor get past the checks.
+	 */
+	public void testLyingTrailerSizeThrows() throws IOException
+	{
+		byte[] data = TestFiles.bytes(100_000, 12);
+		for (int size : new int[] { Integer.MAX_VALUE, -1, 10 })
+		{
+			byte[] gzip = gzip(data, data.length);
+			putInt(gzip, gzip.length - 4, size);
+			try {
+				gunzip(gzip, 2);
+				throw new AssertionError("no exception for a trailer size of " + size);
+			} catch (ZipException expected) {
+			}
+		}
+	}
+
+	private static byte[] gzip(byte[] data, int blockSize) throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(out, 4, blockSize, 6)) {
+			gzip.write(data);
+		}
+		return out.toByteArray();
+	}
+
+	private static byte[] gunzip(byte[] gzip, int threads) throws IOException
+	{
+		try (InputStream in = new ParallelGzipInputStream(new ByteArrayInputStream(gzip), threads)) {
+			return in.readAllBytes();
+		}
+	}
+
+	private static void putInt(byte[] bytes, int offset, int value)
+	{
+		for (int i = 0; i < 4; i++)
+			bytes[offset + i] = (byte) (value >>> 8 * i);
+	}
+}
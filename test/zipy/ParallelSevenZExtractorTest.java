@@ -0,0 +1,91 @@
+package zipy;
+
+import static zipy.TestFiles.assume;
+import static zipy.TestFiles.check;
+import static zipy.TestFiles.checkContents;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.apache.commons.compress.archivers.sevenz.SevenZArchiveEntry;
+import org.apache.commons.compress.archivers.sevenz.SevenZMethod;
+import org.apache.commons.compress.archivers.sevenz.SevenZOutputFile;
+import org.apache.commons.compress.compressors.xz.XZUtils;
+import org.apache.commons.compress.utils.SeekableInMemoryByteChannel;
+
+/**
+ * Tests of {@link ParallelSevenZExtractor} through {@link SevenZReader}, where the entries are cut
+ * into ranges that are decoded side by side. The Apache Commons library loads its 7z coders with
+ * the {@code org.tukaani:xz} library, which isn't in {@code lib/}, so the tests are skipped
+ * without it. The archives are deflated all the same, to keep them quick to write.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+public class ParallelSevenZExtractorTest
+{
+	private static final int ENTRIES = 25;
+
+	public void testEveryEntryIsExtractedInParallel() throws IOException
+	{
+		File folder = TestFiles.folder();
+		File archive = sevenZ(new File(folder, "p.7z"));
+
+		for (int threads : new int[] { 1, 3, 8, ENTRIES * 2 })
+		{
+			File output = new File(folder, "out" + threads);
+			check(new SevenZReader(archive, output).extractFilesParallel(threads), "extraction failed");
+			checkEntries(output);
+		}
+	}
+
+	public void testChannelIsSharedByTheWorkers() throws IOException
+	{
+		File folder = TestFiles.folder();
+		byte[] archive = Files.readAllBytes(sevenZ(new File(folder, "p.7z")).toPath());
+
+		File output = new File(folder, "out");
+		check(new SevenZReader(new SeekableInMemoryByteChannel(archive), output).extractFilesParallel(4),
+			  "extraction failed");
+		checkEntries(output);
+	}
+
+	/**
+	 * Writes a folder entry and files from empty to a few hundred KB, where the sizes are uneven
+	 * so the ranges split differently for every amount of threads.
+	 */
+	private static File sevenZ(File file) throws IOException
+	{
+		assume(XZUtils.isXZCompressionAvailable(), "7z needs org.tukaani:xz on the class path");
+		try (SevenZOutputFile out = new SevenZOutputFile(file)) {
+			out.setContentCompression(SevenZMethod.DEFLATE);
+			SevenZArchiveEntry folder = new SevenZArchiveEntry();
+			folder.setName("d");
+			folder.setDirectory(true);
+			out.putArchiveEntry(folder);
+			out.closeArchiveEntry();
+
+			for (int i = 0; i < ENTRIES; i++)
+			{
+				SevenZArchiveEntry entry = new SevenZArchiveEntry();
+				entry.setName("d/" + i % 4 + "/f" + i);
+				out.putArchiveEntry(entry);
+				out.write(contents(i));
+				out.closeArchiveEntry();
+			}
+		}
+		return file;
+	}
+
+	private static byte[] contents(int entry)
+	{
+		return TestFiles.bytes(entry % 5 == 0 ? 0 : entry * entry * 500, 80 + entry);
+	}
+
+	private static void checkEntries(File output) throws IOException
+	{
+		for (int i = 0; i < ENTRIES; i++)
+			checkContents(contents(i), new File(output, "d/" + i % 4 + "/f" + i));
+	}
+}
@@ -0,0 +1,58 @@
+package zipy;
+
+import static zipy.TestFiles.check;
+import static zipy.TestFiles.checkContents;
+import static zipy.TestFiles.checkEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+
+/**
+ * Tests of {@link ParallelZipCreator} through {@link ZipReader#makeArchiveParallel(File, File, int,
+ * ArchiveProgressListener)}.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+public class ParallelZipCreatorTest
+{
+	/**
+	 * A linked folder is followed, but a link back to a folder above it ends the walk there.
+	 */
+	public void testLinkBackToAParentIsNotFollowed() throws IOException
+	{
+		File folder = TestFiles.folder();
+		File input = new File(folder, "in");
+		new File(input, "sub").mkdirs();
+		byte[] contents = TestFiles.bytes(1000, 8);
+		Files.write(new File(input, "sub/f").toPath(), contents);
+		try {
+			Files.createSymbolicLink(new File(input, "sub/loop").toPath(), Paths.get(".."));
+		} catch (IOException | UnsupportedOperationException e) {
+			TestFiles.assume(false, "symbolic links can't be created here");
+		}
+
+		File zip = new File(folder, "loop.zip");
+		ZipReader.makeArchiveParallel(input, zip, 2, null);
+
+		List<String> names = new ArrayList<>();
+		try (ZipFile zipFile = ZipFile.builder().setFile(zip).get()) {
+			for (ZipArchiveEntry entry : Collections.list(zipFile.getEntries()))
+				names.add(entry.getName());
+		}
+		checkEquals(Arrays.asList("in/", "in/sub/", "in/sub/f"), names, "entries");
+
+		File output = new File(folder, "out");
+		check(new ZipReader(zip, output).extractFiles(), "extraction failed");
+		checkContents(contents, new File(output, "f"));
+	}
+}
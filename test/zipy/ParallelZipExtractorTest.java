@@ -0,0 +1,156 @@
+package zipy;
+
+import static zipy.TestFiles.check;
+import static zipy.TestFiles.checkContents;
+import static zipy.TestFiles.checkEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.zip.CRC32;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.utils.SeekableInMemoryByteChannel;
+
+/**
+ * Tests of {@link ParallelZipExtractor} through {@link ZipReader}, where every worker reads the
+ * entries it takes through a channel of its own.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+public class ParallelZipExtractorTest
+{
+	private static final int ENTRIES = 40;
+
+	public void testEveryEntryIsExtractedInParallel() throws IOException
+	{
+		File folder = TestFiles.folder();
+		File zip = zip(new File(folder, "p.zip"));
+
+		File output = new File(folder, "out");
+		check(new ZipReader(zip, output).extractFilesParallel(4), "extraction failed");
+		checkEntries(output);
+	}
+
+	/**
+	 * The workers take turns reading the one channel the caller handed over.
+	 */
+	public void testChannelIsSharedByTheWorkers() throws IOException
+	{
+		File folder = TestFiles.folder();
+		byte[] zip = Files.readAllBytes(zip(new File(folder, "p.zip")).toPath());
+
+		File output = new File(folder, "out");
+		check(new ZipReader(new SeekableInMemoryByteChannel(zip), output).extractFilesParallel(4), "extraction failed");
+		checkEntries(output);
+	}
+
+	public void testCorruptEntryFailsTheExtraction() throws IOException
+	{
+		File folder = TestFiles.folder();
+		File zip = zip(new File(folder, "p.zip"));
+		byte[] bytes = Files.readAllBytes(zip.toPath());
+		byte[] stored = contents(ENTRIES - 2);
+		int start = indexOf(bytes, stored);
+		check(start != -1, "stored entry not found");
+		bytes[start + stored.length / 2] ^= 1;
+		Files.write(zip.toPath(), bytes);
+
+		File output = new File(folder, "out");
+		checkEquals(false, new ZipReader(zip, output).extractFilesParallel(4), "extraction result");
+		check(!output.exists(), "the output folder was left behind");
+	}
+
+	/**
+	 * The later entries are tiny, so a worker that takes one would often finish before the worker
+	 * on the larger first entry with the same base name.
+	 */
+	public void testFirstEntryOwnsAFlattenedName() throws IOException
+	{
+		File folder = TestFiles.folder();
+		File zip = new File(folder, "same.zip");
+		try (OutputStream out = new FileOutputStream(zip);
+				ZipArchiveOutputStream zos = new ZipArchiveOutputStream(out)) {
+			for (int i = 0; i < ENTRIES; i++)
+			{
+				zos.putArchiveEntry(new ZipArchiveEntry("a/x" + i));
+				zos.write(contents(i + 20));
+				zos.closeArchiveEntry();
+			}
+			for (int i = 0; i < ENTRIES; i++)
+			{
+				zos.putArchiveEntry(new ZipArchiveEntry("b/x" + i));
+				zos.write(new byte[] { (byte) i });
+				zos.closeArchiveEntry();
+			}
+		}
+
+		for (int run = 0; run < 5; run++)
+		{
+			File output = new File(folder, "out" + run);
+			check(new ZipReader(zip, output).extractFilesParallel(8), "extraction failed");
+			for (int i = 0; i < ENTRIES; i++)
+				checkContents(contents(i + 20), new File(output, "x" + i));
+		}
+	}
+
+	/**
+	 * Writes every other entry stored, the rest deflated, in sizes from empty to a few hundred KB.
+	 */
+	private static File zip(File file) throws IOException
+	{
+		try (OutputStream out = new FileOutputStream(file);
+				ZipArchiveOutputStream zos = new ZipArchiveOutputStream(out)) {
+			for (int i = 0; i < ENTRIES; i++)
+			{
+				byte[] contents = contents(i);
+				ZipArchiveEntry entry = new ZipArchiveEntry("d" + i % 3 + "/f" + i);
+				if (i % 2 == 0)
+				{
+					CRC32 crc = new CRC32();
+					crc.update(contents);
+					entry.setMethod(ZipArchiveEntry.STORED);
+					entry.setSize(contents.length);
+					entry.setCrc(crc.getValue());
+				}
+				zos.putArchiveEntry(entry);
+				zos.write(contents);
+				zos.closeArchiveEntry();
+			}
+		}
+		return file;
+	}
+
+	private static byte[] contents(int entry)
+	{
+		return TestFiles.bytes(entry * entry * 200, 60 + entry);
+	}
+
+	/**
+	 * The zip readers flatten the entries into the output folder.
+	 */
+	private static void checkEntries(File output) throws IOException
+	{
+		for (int i = 0; i < ENTRIES; i++)
+			checkContents(contents(i), new File(output, "f" + i));
+	}
+
+	private static int indexOf(byte[] bytes, byte[] part)
+	{
+		search:
+		for (int i = 0; i + part.length <= bytes.length; i++)
+		{
+			for (int j = 0; j < 64; j++)
+			{
+				if (bytes[i + j] != part[j])
+					continue search;
+			}
+			return i;
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,117 @@
+package zipy;
+
+import static zipy.TestFiles.check;
+import static zipy.TestFiles.checkContents;
+import static zipy.TestFiles.checkEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+
+/**
+ * Tests of {@link PipelinedExtractor} through {@link TarReader#extractFiles()}, where entries are
+ * written on several threads.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+public class PipelinedExtractorTest
+{
+	/**
+	 * A file added to a tar again, as {@code tar rf} does, replaces the earlier one. The large old
+	 * copy is still being written by one writer when the small new one reaches another.
+	 */
+	public void testLaterEntryWithSameNameWins() throws IOException
+	{
+		File folder = TestFiles.folder();
+		byte[] newer = { 1, 2, 3, 4 };
+		File tar = TestFiles.tar(new File(folder, "appended.tar"), "v/f", TestFiles.bytes(20 * 1024 * 1024, 1),
+								 "v/g", TestFiles.bytes(10, 2), "v/f", newer);
+
+		for (int run = 0; run < 30; run++)
+		{
+			File output = new File(folder, "out" + run);
+			check(new TarReader(tar, output).extractFiles(), "extraction failed");
+			checkContents(newer, new File(output, "v/f"));
+		}
+	}
+
+	public void testHardLinkWaitsForItsTarget() throws IOException
+	{
+		File folder = TestFiles.folder();
+		byte[] contents = TestFiles.bytes(5 * 1024 * 1024, 3);
+		File tar = new File(folder, "links.tar");
+		try (OutputStream out = new FileOutputStream(tar);
+				TarArchiveOutputStream tos = new TarArchiveOutputStream(out)) {
+			TarArchiveEntry file = new TarArchiveEntry("a/original");
+			file.setSize(contents.length);
+			tos.putArchiveEntry(file);
+			tos.write(contents);
+			tos.closeArchiveEntry();
+
+			TarArchiveEntry link = new TarArchiveEntry("b/link", TarConstants.LF_LINK);
+			link.setLinkName("a/original");
+			tos.putArchiveEntry(link);
+			tos.closeArchiveEntry();
+		}
+
+		File output = new File(folder, "out");
+		check(new TarReader(tar, output).extractFiles(), "extraction failed");
+		checkContents(contents, new File(output, "a/original"));
+		checkContents(contents, new File(output, "b/link"));
+	}
+
+	/**
+	 * Neither a file nor a hard link may be written outside the output folder, and the link must
+	 * not delete the file it would have replaced there.
+	 */
+	public void testEntriesOutsideTheOutputAreRejected() throws IOException
+	{
+		File folder = TestFiles.folder();
+		byte[] victim = { 5, 6, 7 };
+		Files.write(new File(folder, "victim").toPath(), victim);
+
+		File escaping = TestFiles.tar(new File(folder, "escaping.tar"), "v/f", TestFiles.bytes(100, 5),
+									  "../escaped", TestFiles.bytes(10, 6));
+		File output = new File(folder, "out");
+		checkEquals(false, new TarReader(escaping, output).extractFiles(), "extraction result");
+		check(!new File(folder, "escaped").exists(), "a file was written outside the output");
+
+		File linked = new File(folder, "linked.tar");
+		try (OutputStream out = new FileOutputStream(linked);
+				TarArchiveOutputStream tos = new TarArchiveOutputStream(out)) {
+			TarArchiveEntry file = new TarArchiveEntry("v/f");
+			file.setSize(1);
+			tos.putArchiveEntry(file);
+			tos.write(1);
+			tos.closeArchiveEntry();
+
+			TarArchiveEntry link = new TarArchiveEntry("../victim", TarConstants.LF_LINK);
+			link.setLinkName("v/f");
+			tos.putArchiveEntry(link);
+			tos.closeArchiveEntry();
+		}
+
+		checkEquals(false, new TarReader(linked, output).extractFiles(), "extraction result");
+		checkContents(victim, new File(folder, "victim"));
+	}
+
+	public void testWriteFailureReturnsFalse() throws IOException
+	{
+		File folder = TestFiles.folder();
+		File tar = TestFiles.tar(new File(folder, "a.tar"), "v/f", TestFiles.bytes(100, 4));
+		File output = new File(folder, "out");
+		output.mkdirs();
+		// A file where the folder of the entry has to go.
+		check(new File(output, "v").createNewFile(), "couldn't block the output");
+
+		checkEquals(false, new TarReader(tar, output).extractFiles(), "extraction result");
+		check(!output.exists(), "the output folder was left behind");
+	}
+}
@@ -0,0 +1,71 @@
+package zipy;
+
+import static zipy.TestFiles.assume;
+import static zipy.TestFiles.checkEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.compress.compressors.xz.XZUtils;
+
+import net.sf.sevenzipjbinding.SevenZip;
+
+/**
+ * Tests of creating .7z files with {@link SevenZReader}.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+public class SevenZReaderTest
+{
+	/** The entries in name order, {@code c} and {@code d/e} copy {@code a} and {@code b}. */
+	private static final List<String> GROUPED = Arrays.asList("a", "c", "b", "d/e", "d/");
+
+	public void testDuplicatesFollowTheirOriginal() throws IOException
+	{
+		File folder = folder();
+		List<File> files = new ArrayList<>();
+		List<String> paths = new ArrayList<>();
+		SevenZReader.collectEntries(folder, new File(folder, "out.7z"), files, paths, true);
+		checkEquals(GROUPED, paths, "entry order");
+
+		paths.clear();
+		SevenZReader.collectEntries(folder, new File(folder, "out.7z"), new ArrayList<>(), paths, false);
+		checkEquals(Arrays.asList("a", "b", "c", "d/", "d/e"), paths, "entry order without grouping");
+	}
+
+	public void testArchiveKeepsGroupedOrder() throws IOException
+	{
+		try {
+			SevenZip.initSevenZipFromPlatformJAR();
+		} catch (Exception | LinkageError e) {
+			assume(false, "no 7-Zip native library for this platform");
+		}
+		assume(XZUtils.isXZCompressionAvailable(), "7z needs org.tukaani:xz on the class path");
+
+		File folder = folder();
+		File archive = new File(folder.getParentFile(), folder.getName() + ".7z");
+		SevenZReader.makeArchive(folder, archive, 5, null, true);
+		checkEquals(Arrays.asList("a", "c", "b", "d/e", "d"), new SevenZReader(archive, folder).listEntries(),
+					"archive entries");
+	}
+
+	/**
+	 * A folder where {@code c} has the contents of {@code a}, and {@code d/e} those of {@code b}.
+	 */
+	private static File folder() throws IOException
+	{
+		File folder = TestFiles.folder();
+		byte[] a = TestFiles.bytes(3000, 70), b = TestFiles.bytes(3000, 71);
+		new File(folder, "d").mkdirs();
+		Files.write(new File(folder, "a").toPath(), a);
+		Files.write(new File(folder, "b").toPath(), b);
+		Files.write(new File(folder, "c").toPath(), a);
+		Files.write(new File(folder, "d/e").toPath(), b);
+		return folder;
+	}
+}
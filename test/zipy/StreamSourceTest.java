@@ -0,0 +1,104 @@
+package zipy;
+
+import static zipy.TestFiles.checkContents;
+import static zipy.TestFiles.checkEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+
+/**
+ * Tests of the readers over an archive that can only be read once, where the index is built
+ * while the stream is read.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+public class StreamSourceTest
+{
+	private static final List<String> NAMES = Arrays.asList("a", "d/b");
+
+	public void testTarListsEntriesAfterExtraction() throws IOException
+	{
+		File folder = TestFiles.folder();
+		byte[] b = TestFiles.bytes(70_000, 21);
+		File tar = TestFiles.tar(new File(folder, "s.tar"), "a", TestFiles.bytes(10, 20), "d/b", b);
+
+		TarReader reader = new TarReader(new ByteArrayInputStream(Files.readAllBytes(tar.toPath())),
+										 new File(folder, "out"));
+		TestFiles.check(reader.extractFiles(), "extraction failed");
+		checkContents(b, new File(folder, "out/d/b"));
+		checkEquals(NAMES, reader.listEntries(), "entries");
+		checkEquals(2, reader.getNumberOfItemsInArchive(), "amount of entries");
+
+		reader = new TarReader(new ByteArrayInputStream(Files.readAllBytes(tar.toPath())), folder);
+		try (InMemoryExtraction extraction = reader.extractToMemory()) {
+			checkEquals(2, extraction.size(), "files in memory");
+		}
+		checkEquals(NAMES, reader.listEntries(), "entries after extracting to memory");
+	}
+
+	public void testZipListsEntriesAfterExtraction() throws IOException
+	{
+		File folder = TestFiles.folder();
+		byte[] zip = zip();
+
+		ZipReader reader = new ZipReader(new ByteArrayInputStream(zip), new File(folder, "out"));
+		TestFiles.check(reader.extractFiles(), "extraction failed");
+		checkEquals(NAMES, reader.listEntries(), "entries");
+		checkEquals(70_000L, reader.getIndex().find("d/b").getSize(), "size from the data descriptor");
+
+		reader = new ZipReader(new ByteArrayInputStream(zip), folder);
+		try (InMemoryExtraction extraction = reader.extractToMemory()) {
+			checkEquals(2, extraction.size(), "files in memory");
+		}
+		checkEquals(NAMES, reader.listEntries(), "entries after extracting to memory");
+	}
+
+	/**
+	 * Reading a single entry leaves the rest of the stream unread, which must not look empty.
+	 */
+	public void testPartlyReadStreamThrows() throws IOException
+	{
+		File folder = TestFiles.folder();
+		File tar = TestFiles.tar(new File(folder, "s.tar"), "a", TestFiles.bytes(10, 20), "d/b", TestFiles.bytes(10, 21));
+		IReader[] readers = {
+			new TarReader(new ByteArrayInputStream(Files.readAllBytes(tar.toPath())), folder),
+			new ZipReader(new ByteArrayInputStream(zip()), folder)
+		};
+
+		for (IReader reader : readers)
+		{
+			TestFiles.check(reader.extractEntry("a", new ByteArrayOutputStream()), "no entry a");
+			try {
+				reader.listEntries();
+				throw new AssertionError(reader.getClass().getSimpleName() + " listed a stream it had read");
+			} catch (IOException expected) {
+			}
+		}
+	}
+
+	/**
+	 * A zip written to a stream, so every entry is followed by a data descriptor.
+	 */
+	private static byte[] zip() throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (ZipArchiveOutputStream zos = new ZipArchiveOutputStream(out)) {
+			zos.putArchiveEntry(new ZipArchiveEntry("a"));
+			zos.write(TestFiles.bytes(10, 20));
+			zos.closeArchiveEntry();
+			zos.putArchiveEntry(new ZipArchiveEntry("d/b"));
+			zos.write(TestFiles.bytes(70_000, 21));
+			zos.closeArchiveEntry();
+		}
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,136 @@
+package zipy;
+
+import static zipy.TestFiles.check;
+import static zipy.TestFiles.checkContents;
+import static zipy.TestFiles.checkEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+
+/**
+ * Tests of {@link SyncExtractor}.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+public class SyncExtractorTest
+{
+	/**
+	 * A file added to a tar again must be synced from its last copy, or every sync rewrites it.
+	 */
+	public void testTarWithReplacedEntryConverges() throws IOException
+	{
+		File folder = TestFiles.folder();
+		byte[] newer = { 1, 2, 3, 4 };
+		File tar = TestFiles.tar(new File(folder, "appended.tar"), "v/f", TestFiles.bytes(3_000_000, 6), "v/f", newer);
+		File target = new File(folder, "sy");
+
+		SyncExtractor.SyncResult first = new SyncExtractor(tar, target).sync();
+		checkEquals(Collections.singletonList("v/f"), first.getWritten(), "first sync");
+		checkContents(newer, new File(target, "v/f"));
+
+		SyncExtractor.SyncResult second = new SyncExtractor(tar, target).sync();
+		checkEquals(Collections.emptyList(), second.getWritten(), "second sync");
+		checkContents(newer, new File(target, "v/f"));
+	}
+
+	/**
+	 * Links have no data, they must be made again as links instead of written as empty files, and
+	 * a symbolic link leading out of the target is left out.
+	 */
+	public void testTarLinksAreKept() throws IOException
+	{
+		File folder = TestFiles.folder();
+		byte[] contents = TestFiles.bytes(5000, 9);
+		File tar = new File(folder, "links.tar");
+		try (OutputStream out = new FileOutputStream(tar);
+				TarArchiveOutputStream tos = new TarArchiveOutputStream(out)) {
+			TarArchiveEntry file = new TarArchiveEntry("v/f");
+			file.setSize(contents.length);
+			tos.putArchiveEntry(file);
+			tos.write(contents);
+			tos.closeArchiveEntry();
+
+			String[][] links = { { "v/h", "v/f" }, { "v/s", "f" }, { "v/out", "../../outside" } };
+			for (String[] link : links)
+			{
+				TarArchiveEntry entry = new TarArchiveEntry(link[0], link[0].equals("v/h") ? TarConstants.LF_LINK
+																						   : TarConstants.LF_SYMLINK);
+				entry.setLinkName(link[1]);
+				tos.putArchiveEntry(entry);
+				tos.closeArchiveEntry();
+			}
+		}
+		File target = new File(folder, "sy");
+		Path hard = new File(target, "v/h").toPath(), symbolic = new File(target, "v/s").toPath();
+
+		SyncExtractor.SyncResult first = new SyncExtractor(tar, target).sync();
+		checkEquals(Arrays.asList("v/f", "v/h", "v/s"), first.getWritten(), "first sync");
+		checkContents(contents, hard.toFile());
+		check(Files.isSameFile(hard, new File(target, "v/f").toPath()), "the hard link is a copy");
+		check(Files.isSymbolicLink(symbolic), "the symbolic link is a file");
+		checkEquals(Paths.get("f"), Files.readSymbolicLink(symbolic), "symbolic link target");
+		check(!Files.exists(new File(target, "v/out").toPath(), LinkOption.NOFOLLOW_LINKS), "the outside link was made");
+
+		SyncExtractor.SyncResult second = new SyncExtractor(tar, target).sync();
+		checkEquals(Collections.emptyList(), second.getWritten(), "second sync");
+		checkEquals(3, second.getUnchanged(), "unchanged");
+		check(Files.isSymbolicLink(symbolic), "the symbolic link was replaced");
+		checkContents(contents, hard.toFile());
+	}
+
+	/**
+	 * Only a file of the same size and time is hashed, a changed time alone rewrites the file.
+	 */
+	public void testZipComparesTimeThenHash() throws IOException
+	{
+		File folder = TestFiles.folder();
+		byte[] a = TestFiles.bytes(1000, 7), b = TestFiles.bytes(1000, 8), c = TestFiles.bytes(1000, 9);
+		File zip = new File(folder, "s.zip");
+		try (OutputStream out = new FileOutputStream(zip);
+				ZipArchiveOutputStream zos = new ZipArchiveOutputStream(out)) {
+			for (Object[] file : new Object[][] { { "a", a }, { "b", b }, { "c", c } })
+			{
+				ZipArchiveEntry entry = new ZipArchiveEntry((String) file[0]);
+				entry.setTime(1_600_000_000_000L);
+				zos.putArchiveEntry(entry);
+				zos.write((byte[]) file[1]);
+				zos.closeArchiveEntry();
+			}
+		}
+		File target = new File(folder, "sy");
+		checkEquals(3, new SyncExtractor(zip, target).sync().getWritten().size(), "first sync");
+
+		// Same size and time with other contents, only the hash finds it.
+		File changed = new File(target, "a");
+		FileTime time = Files.getLastModifiedTime(changed.toPath());
+		try (RandomAccessFile file = new RandomAccessFile(changed, "rw")) {
+			file.write(a[0] + 1);
+		}
+		Files.setLastModifiedTime(changed.toPath(), time);
+		// Same contents at another time.
+		Files.setLastModifiedTime(new File(target, "b").toPath(), FileTime.fromMillis(1_700_000_000_000L));
+
+		SyncExtractor.SyncResult result = new SyncExtractor(zip, target).sync();
+		checkEquals(Arrays.asList("a", "b"), result.getWritten(), "written");
+		checkEquals(1, result.getUnchanged(), "unchanged");
+		checkContents(a, changed);
+		checkEquals(1_600_000_000_000L, Files.getLastModifiedTime(new File(target, "b").toPath()).toMillis(), "time of b");
+	}
+}
@@ -0,0 +1,106 @@
+package zipy;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+
+/**
+ * The checks and the archives the tests share. Archives are written with the Apache Commons
+ * library rather than with Zipy, so a bug in a creator can't hide the same bug in a reader.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+final class TestFiles
+{
+	private TestFiles() {}
+
+	/**
+	 * @return a new empty folder, removed when the JVM exits.
+	 */
+	static File folder() throws IOException
+	{
+		File folder = Files.createTempDirectory("zipy-test").toFile();
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> Zipy.deleteDirectory(folder)));
+		return folder;
+	}
+
+	/**
+	 * @return {@code size} bytes that are the same for the same seed.
+	 */
+	static byte[] bytes(int size, long seed)
+	{
+		byte[] bytes = new byte[size];
+		new Random(seed).nextBytes(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Writes an uncompressed tar holding the given files in order, names may repeat.
+	 * @param entries pairs of a name and its contents.
+	 */
+	static File tar(File file, Object... entries) throws IOException
+	{
+		try (OutputStream out = new FileOutputStream(file);
+				TarArchiveOutputStream tar = new TarArchiveOutputStream(out)) {
+			tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+			for (int i = 0; i < entries.length; i += 2)
+			{
+				byte[] contents = (byte[]) entries[i + 1];
+				TarArchiveEntry entry = new TarArchiveEntry((String) entries[i]);
+				entry.setSize(contents.length);
+				tar.putArchiveEntry(entry);
+				tar.write(contents);
+				tar.closeArchiveEntry();
+			}
+		}
+		return file;
+	}
+
+	/**
+	 * Skips the rest of the test when something it needs is missing.
+	 */
+	static void assume(boolean condition, String reason)
+	{
+		if (!condition)
+			throw new Skipped(reason);
+	}
+
+	static void check(boolean condition, String message)
+	{
+		if (!condition)
+			throw new AssertionError(message);
+	}
+
+	static void checkEquals(Object expected, Object actual, String message)
+	{
+		if (expected == null ? actual != null : !expected.equals(actual))
+			throw new AssertionError(message + ": expected " + expected + " but was " + actual);
+	}
+
+	static void checkContents(byte[] expected, File file) throws IOException
+	{
+		check(file.isFile(), file + " is missing");
+		byte[] actual = Files.readAllBytes(file.toPath());
+		if (!Arrays.equals(expected, actual))
+			throw new AssertionError(file + " has " + actual.length + " bytes that differ from the "
+									 + expected.length + " expected");
+	}
+
+	static final class Skipped extends RuntimeException
+	{
+		private static final long serialVersionUID = 1L;
+
+		Skipped(String reason)
+		{
+			super(reason);
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package zipy;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Runs the tests in {@code test/} with nothing but the JDK and the jars in {@code lib/}. Every public
+ * method of a test class whose name starts with {@code test} is run on a new instance of the class,
+ * and a test fails by throwing. The tests live in the {@code zipy} package, so they can reach the
+ * package-private classes the readers are built from.
+ * <p>
+ * Build and run it from the project folder:
+ * <pre>
+ * javac -encoding UTF-8 -d out/test -cp "lib/*" $(find src test -name "*.java")
+ * java -cp "out/test:src:lib/*" zipy.TestRunner
+ * </pre>
+ * The {@code src} folder is on the class path for {@code META-INF/services}, which installs the
+ * archive file system provider.
+ * Naming test classes runs only those, {@code zipy.TestRunner PipelinedExtractorTest}. A test that
+ * needs a library missing from {@code lib/} is skipped through {@link TestFiles#assume(boolean, String)}.
+ * The run exits with 1 when any test failed.
+ * <p>
+ * @version 1.0
+ * @since 2026-10-16
+ */
+public final class TestRunner
+{
+	/** Every test class, run in this order when none are named. */
+	private static final Class<?>[] TESTS = {
+		PipelinedExtractorTest.class,
+		ArchiveIndexTest.class,
+		SyncExtractorTest.class,
+		ParallelGzipInputStreamTest.class,
+		StreamSourceTest.class,
+		InMemoryExtractionTest.class,
+		ArchiveFileSystemTest.class,
+		ArchiveTypeTest.class,
+		BatchExtractorTest.class,
+		ParallelZipExtractorTest.class,
+		ParallelZipCreatorTest.class,
+		ParallelSevenZExtractorTest.class,
+		SevenZReaderTest.class
+	};
+
+	private TestRunner() {}
+
+	public static void main(String[] args) throws Exception
+	{
+		List<Class<?>> classes = new ArrayList<>();
+		if (args.length == 0)
+			classes.addAll(Arrays.asList(TESTS));
+		for (String name : args)
+			classes.add(Class.forName(name.contains(".") ? name : "zipy." + name));
+
+		int passed = 0, skipped = 0, failed = 0;
+		for (Class<?> type : classes)
+		{
+			Method[] methods = type.getDeclaredMethods();
+			Arrays.sort(methods, Comparator.comparing(Method::getName));
+			for (Method method : methods)
+			{
+				if (!method.getName().startsWith("test") || !Modifier.isPublic(method.getModifiers())
+						|| method.getParameterCount() != 0)
+					continue;
+
+				String name = type.getSimpleName() + "." + method.getName();
+				try {
+					method.invoke(type.getDeclaredConstructor().newInstance());
+					System.out.println("ok     " + name);
+					passed++;
+				} catch (InvocationTargetException e) {
+					if (e.getCause() instanceof TestFiles.Skipped)
+					{
+						System.out.println("skip   " + name + ": " + e.getCause().getMessage());
+						skipped++;
+						continue;
+					}
+					System.out.println("FAILED " + name);
+					e.getCause().printStackTrace(System.out);
+					failed++;
+				}
+			}
+		}
+
+		System.out.println(passed + " passed, " + skipped + " skipped, " + failed + " failed");
+		if (failed > 0)
+			System.exit(1);
+	}
+}